@@ -35,6 +35,8 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.nuxeo.apidoc.api.BaseNuxeoArtifact;
+import org.nuxeo.apidoc.api.BundleInfo;
+import org.nuxeo.apidoc.api.ComponentInfo;
 import org.nuxeo.apidoc.api.NuxeoArtifact;
 import org.nuxeo.apidoc.api.QueryHelper;
 import org.nuxeo.apidoc.snapshot.DistributionSnapshot;
@@ -68,6 +70,41 @@ public abstract class BaseNuxeoArtifactDocAdapter extends BaseNuxeoArtifact {
 
     protected static final String DEFAULT_LISTING_LIMIT = "2000";
 
+    /**
+     * Schema holding information common to artifacts, including denormalized parent information.
+     *
+     * @since 2023.1
+     */
+    public static final String APIDOC_COMMON_SCHEMA = "apidoccommon";
+
+    /**
+     * Id of the bundle holding the artifact (or of the artifact itself, for bundles).
+     *
+     * @since 2023.1
+     */
+    public static final String PROP_PARENT_BUNDLE_ID = "adc:bundleId";
+
+    /**
+     * Version of the bundle holding the artifact (or of the artifact itself, for bundles).
+     *
+     * @since 2023.1
+     */
+    public static final String PROP_PARENT_BUNDLE_VERSION = "adc:bundleVersion";
+
+    /**
+     * Id of the component holding the artifact (or of the artifact itself, for components).
+     *
+     * @since 2023.1
+     */
+    public static final String PROP_PARENT_COMPONENT_ID = "adc:componentId";
+
+    /**
+     * Hierarchy path of the artifact, as computed from parent documents, see {@link #getHierarchyPath()}.
+     *
+     * @since 2023.1
+     */
+    public static final String PROP_HIERARCHY_PATH = "adc:hierarchyPath";
+
     public static void setLocalCoreSession(CoreSession session) {
         localCoreSession.set(session);
     }
@@ -169,8 +206,67 @@ public abstract class BaseNuxeoArtifactDocAdapter extends BaseNuxeoArtifact {
         }
     }
 
+    /**
+     * Returns the value of given denormalized property, or null if not available on this document (as it may not have
+     * been filled on documents persisted by previous versions).
+     *
+     * @since 2023.1
+     */
+    protected <T> T getDenormalized(String xPath) {
+        if (!doc.hasSchema(APIDOC_COMMON_SCHEMA)) {
+            return null;
+        }
+        return safeGet(xPath);
+    }
+
+    /**
+     * Fills denormalized parent information on given artifact document, from its parent document.
+     * <p>
+     * Parent document should have been filled already, otherwise nothing is filled and adapters will resolve this
+     * information from parent documents.
+     *
+     * @since 2023.1
+     */
+    public static void fillParentData(DocumentModel doc, DocumentModel parent) {
+        if (!doc.hasSchema(APIDOC_COMMON_SCHEMA)) {
+            return;
+        }
+        NuxeoArtifact artifact = doc.getAdapter(NuxeoArtifact.class);
+        if (artifact == null) {
+            return;
+        }
+        String path = "";
+        String bundleId = null;
+        String bundleVersion = null;
+        String componentId = null;
+        if (parent != null && parent.hasSchema(APIDOC_COMMON_SCHEMA)) {
+            path = (String) parent.getPropertyValue(PROP_HIERARCHY_PATH);
+            if (path == null) {
+                // parent not filled
+                return;
+            }
+            bundleId = (String) parent.getPropertyValue(PROP_PARENT_BUNDLE_ID);
+            bundleVersion = (String) parent.getPropertyValue(PROP_PARENT_BUNDLE_VERSION);
+            componentId = (String) parent.getPropertyValue(PROP_PARENT_COMPONENT_ID);
+        }
+        if (BundleInfo.TYPE_NAME.equals(doc.getType())) {
+            bundleId = artifact.getId();
+            bundleVersion = artifact.getVersion();
+        } else if (ComponentInfo.TYPE_NAME.equals(doc.getType())) {
+            componentId = artifact.getId();
+        }
+        doc.setPropertyValue(PROP_HIERARCHY_PATH, path + "/" + artifact.getId());
+        doc.setPropertyValue(PROP_PARENT_BUNDLE_ID, bundleId);
+        doc.setPropertyValue(PROP_PARENT_BUNDLE_VERSION, bundleVersion);
+        doc.setPropertyValue(PROP_PARENT_COMPONENT_ID, componentId);
+    }
+
     @Override
     public String getHierarchyPath() {
+        String denormalized = getDenormalized(PROP_HIERARCHY_PATH);
+        if (denormalized != null) {
+            return denormalized;
+        }
         List<DocumentModel> parents = getCoreSession().getParentDocuments(doc.getRef());
         Collections.reverse(parents);
 
@@ -60,6 +60,33 @@ public class BundleGroupDocAdapter extends BaseNuxeoArtifactDocAdapter implement
             doc = session.getDocument(new PathRef(targetPath));
         }
         doc.setPathInfo(containerPath, name);
+        fillDocument(doc, bundleGroup);
+
+        fillContextData(doc);
+        if (exist) {
+            doc = session.saveDocument(doc);
+        } else {
+            doc = session.createDocument(doc);
+        }
+        return new BundleGroupDocAdapter(doc);
+    }
+
+    /**
+     * Returns a new document model filled with given bundle group information, without persisting it.
+     *
+     * @since 2023.1
+     */
+    public static DocumentModel createDocumentModel(BundleGroup bundleGroup, CoreSession session,
+            String containerPath) {
+        DocumentModel doc = session.createDocumentModel(TYPE_NAME);
+        doc.setPathInfo(containerPath, computeDocumentName("bg-" + bundleGroup.getId()));
+        fillDocument(doc, bundleGroup);
+        fillContextData(doc);
+        return doc;
+    }
+
+    /** @since 2023.1 */
+    protected static void fillDocument(DocumentModel doc, BundleGroup bundleGroup) {
         doc.setPropertyValue(NuxeoArtifact.TITLE_PROPERTY_PATH, bundleGroup.getName());
         doc.setPropertyValue(PROP_GROUP_NAME, bundleGroup.getName());
         doc.setPropertyValue(PROP_KEY, bundleGroup.getId());
@@ -70,14 +97,6 @@ public class BundleGroupDocAdapter extends BaseNuxeoArtifactDocAdapter implement
             files.add(item);
         }
         doc.setPropertyValue(PROP_READMES, files);
-
-        fillContextData(doc);
-        if (exist) {
-            doc = session.saveDocument(doc);
-        } else {
-            doc = session.createDocument(doc);
-        }
-        return new BundleGroupDocAdapter(doc);
     }
 
     public BundleGroupDocAdapter(DocumentModel doc) {
@@ -65,6 +65,34 @@ public class BundleInfoDocAdapter extends BaseNuxeoArtifactDocAdapter implements
             doc = session.getDocument(new PathRef(targetPath));
         }
         doc.setPathInfo(containerPath, name);
+        fillDocument(doc, bundleInfo);
+
+        fillContextData(doc);
+        if (exist) {
+            doc = session.saveDocument(doc);
+        } else {
+            doc = session.createDocument(doc);
+        }
+
+        return new BundleInfoDocAdapter(doc);
+    }
+
+    /**
+     * Returns a new document model filled with given bundle information, without persisting it.
+     *
+     * @since 2023.1
+     */
+    public static DocumentModel createDocumentModel(BundleInfo bundleInfo, CoreSession session,
+            String containerPath) {
+        DocumentModel doc = session.createDocumentModel(TYPE_NAME);
+        doc.setPathInfo(containerPath, computeDocumentName("bundle-" + bundleInfo.getId()));
+        fillDocument(doc, bundleInfo);
+        fillContextData(doc);
+        return doc;
+    }
+
+    /** @since 2023.1 */
+    protected static void fillDocument(DocumentModel doc, BundleInfo bundleInfo) {
         doc.setPropertyValue(NuxeoArtifact.TITLE_PROPERTY_PATH, bundleInfo.getBundleId());
         doc.setPropertyValue(PROP_ARTIFACT_GROUP_ID, bundleInfo.getGroupId());
         doc.setPropertyValue(PROP_ARTIFACT_ID, bundleInfo.getArtifactId());
@@ -83,15 +111,6 @@ public class BundleInfoDocAdapter extends BaseNuxeoArtifactDocAdapter implements
         }
         doc.setPropertyValue(PROP_README, (Serializable) bundleInfo.getReadme());
         doc.setPropertyValue(PROP_PARENT_README, (Serializable) bundleInfo.getParentReadme());
-
-        fillContextData(doc);
-        if (exist) {
-            doc = session.saveDocument(doc);
-        } else {
-            doc = session.createDocument(doc);
-        }
-
-        return new BundleInfoDocAdapter(doc);
     }
 
     public BundleInfoDocAdapter(DocumentModel doc) {
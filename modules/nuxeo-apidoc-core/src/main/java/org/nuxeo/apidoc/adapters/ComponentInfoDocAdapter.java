@@ -66,6 +66,33 @@ public class ComponentInfoDocAdapter extends BaseNuxeoArtifactDocAdapter impleme
             doc = session.getDocument(new PathRef(targetPath));
         }
         doc.setPathInfo(containerPath, name);
+        fillDocument(doc, componentInfo);
+
+        fillContextData(doc);
+        if (exist) {
+            doc = session.saveDocument(doc);
+        } else {
+            doc = session.createDocument(doc);
+        }
+        return new ComponentInfoDocAdapter(doc);
+    }
+
+    /**
+     * Returns a new document model filled with given component information, without persisting it.
+     *
+     * @since 2023.1
+     */
+    public static DocumentModel createDocumentModel(ComponentInfo componentInfo, CoreSession session,
+            String containerPath) {
+        DocumentModel doc = session.createDocumentModel(TYPE_NAME);
+        doc.setPathInfo(containerPath, computeDocumentName("component-" + componentInfo.getId()));
+        fillDocument(doc, componentInfo);
+        fillContextData(doc);
+        return doc;
+    }
+
+    /** @since 2023.1 */
+    protected static void fillDocument(DocumentModel doc, ComponentInfo componentInfo) {
         doc.setPropertyValue(NuxeoArtifact.TITLE_PROPERTY_PATH, componentInfo.getName());
         doc.setPropertyValue(PROP_COMPONENT_ID, componentInfo.getId());
         doc.setPropertyValue(PROP_COMPONENT_NAME, componentInfo.getName());
@@ -81,14 +108,6 @@ public class ComponentInfoDocAdapter extends BaseNuxeoArtifactDocAdapter impleme
         Blob xmlBlob = Blobs.createBlob(componentInfo.getXmlFileContent(), "text/xml", null,
                 componentInfo.getXmlFileName());
         doc.setPropertyValue(NuxeoArtifact.CONTENT_PROPERTY_PATH, (Serializable) xmlBlob);
-
-        fillContextData(doc);
-        if (exist) {
-            doc = session.saveDocument(doc);
-        } else {
-            doc = session.createDocument(doc);
-        }
-        return new ComponentInfoDocAdapter(doc);
     }
 
     @Override
@@ -166,6 +185,10 @@ public class ComponentInfoDocAdapter extends BaseNuxeoArtifactDocAdapter impleme
 
     @Override
     public String getVersion() {
+        String version = getDenormalized(PROP_PARENT_BUNDLE_VERSION);
+        if (version != null) {
+            return version;
+        }
 
         BundleInfo parentBundle = getParentNuxeoArtifact(BundleInfo.class);
 
@@ -19,10 +19,13 @@
  */
 package org.nuxeo.apidoc.adapters;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.Collections;
 import java.util.List;
 
+import javax.xml.parsers.ParserConfigurationException;
+
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.dom4j.DocumentException;
@@ -34,6 +37,8 @@ import org.nuxeo.apidoc.api.VirtualNodesConsts;
 import org.nuxeo.apidoc.documentation.ContributionItem;
 import org.nuxeo.apidoc.documentation.DocumentationHelper;
 import org.nuxeo.apidoc.documentation.XMLContributionParser;
+import org.nuxeo.apidoc.listener.AttributesExtractorStater;
+import org.nuxeo.apidoc.worker.ExtractXmlAttributesWorker;
 import org.nuxeo.common.utils.Path;
 import org.nuxeo.ecm.core.api.Blob;
 import org.nuxeo.ecm.core.api.Blobs;
@@ -41,6 +46,7 @@ import org.nuxeo.ecm.core.api.CoreSession;
 import org.nuxeo.ecm.core.api.DocumentModel;
 import org.nuxeo.ecm.core.api.PathRef;
 import org.nuxeo.runtime.model.ComponentName;
+import org.xml.sax.SAXException;
 
 public class ExtensionInfoDocAdapter extends BaseNuxeoArtifactDocAdapter implements ExtensionInfo {
 
@@ -64,6 +70,38 @@ public class ExtensionInfoDocAdapter extends BaseNuxeoArtifactDocAdapter impleme
             doc = session.getDocument(new PathRef(targetPath));
         }
         doc.setPathInfo(containerPath, name);
+        fillDocument(doc, xi, id);
+
+        fillContextData(doc);
+        if (exist) {
+            doc = session.saveDocument(doc);
+        } else {
+            doc = session.createDocument(doc);
+        }
+
+        return new ExtensionInfoDocAdapter(doc);
+    }
+
+    /**
+     * Returns a new document model filled with given contribution information, without persisting it.
+     *
+     * @since 2023.1
+     */
+    public static DocumentModel createDocumentModel(ExtensionInfo xi, int index, CoreSession session,
+            String containerPath) {
+        String id = xi.getId();
+        if (index > 0) {
+            id += "-" + index;
+        }
+        DocumentModel doc = session.createDocumentModel(TYPE_NAME);
+        doc.setPathInfo(containerPath, computeDocumentName("contrib-" + id));
+        fillDocument(doc, xi, id);
+        fillContextData(doc);
+        return doc;
+    }
+
+    /** @since 2023.1 */
+    protected static void fillDocument(DocumentModel doc, ExtensionInfo xi, String id) {
         doc.setPropertyValue(NuxeoArtifact.TITLE_PROPERTY_PATH, id);
 
         doc.setPropertyValue(PROP_CONTRIB_ID, id);
@@ -74,15 +112,16 @@ public class ExtensionInfoDocAdapter extends BaseNuxeoArtifactDocAdapter impleme
 
         Blob xmlBlob = Blobs.createBlob(xi.getXml(), "text/xml", null, "contrib.xml"); // !!!!!
         doc.setPropertyValue(NuxeoArtifact.CONTENT_PROPERTY_PATH, (Serializable) xmlBlob);
-
-        fillContextData(doc);
-        if (exist) {
-            doc = session.saveDocument(doc);
-        } else {
-            doc = session.createDocument(doc);
+        // extracted here rather than asynchronously, unless it fails: see AttributesExtractorStater
+        try {
+            doc.setPropertyValue(AttributesExtractorStater.ATTRIBUTES_PROPERTY,
+                    ExtractXmlAttributesWorker.extractXmlAttributes(xi.getXml()));
+        } catch (IOException | ParserConfigurationException | SAXException | RuntimeException e) {
+            log.warn(String.format("Cannot extract XML attributes of contribution '%s', will retry asynchronously", id),
+                    e);
+            // left null for the listener to schedule the extraction worker
+            doc.setPropertyValue(AttributesExtractorStater.ATTRIBUTES_PROPERTY, null);
         }
-
-        return new ExtensionInfoDocAdapter(doc);
     }
 
     public ExtensionInfoDocAdapter(DocumentModel doc) {
@@ -121,6 +160,10 @@ public class ExtensionInfoDocAdapter extends BaseNuxeoArtifactDocAdapter impleme
 
     @Override
     public String getVersion() {
+        String version = getDenormalized(PROP_PARENT_BUNDLE_VERSION);
+        if (version != null) {
+            return version;
+        }
 
         BundleInfo parentBundle = getParentNuxeoArtifact(BundleInfo.class);
 
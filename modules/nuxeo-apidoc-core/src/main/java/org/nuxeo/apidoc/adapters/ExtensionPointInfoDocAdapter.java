@@ -60,14 +60,7 @@ public class ExtensionPointInfoDocAdapter extends BaseNuxeoArtifactDocAdapter im
             doc = session.getDocument(new PathRef(targetPath));
         }
         doc.setPathInfo(containerPath, name);
-        doc.setPropertyValue(NuxeoArtifact.TITLE_PROPERTY_PATH, xpi.getId());
-
-        doc.setPropertyValue(PROP_NAME, xpi.getName());
-        doc.setPropertyValue(PROP_EP_ID, xpi.getId());
-        doc.setPropertyValue(PROP_EP_ALIASES, (Serializable) xpi.getAliases());
-        doc.setPropertyValue(PROP_DOC, xpi.getDocumentation());
-        // TODO incoherent naming here, also schema has no types
-        doc.setPropertyValue(PROP_DESCRIPTORS, xpi.getDescriptors());
+        fillDocument(doc, xpi);
 
         fillContextData(doc);
         if (exist) {
@@ -78,6 +71,31 @@ public class ExtensionPointInfoDocAdapter extends BaseNuxeoArtifactDocAdapter im
         return new ExtensionPointInfoDocAdapter(doc);
     }
 
+    /**
+     * Returns a new document model filled with given extension point information, without persisting it.
+     *
+     * @since 2023.1
+     */
+    public static DocumentModel createDocumentModel(ExtensionPointInfo xpi, CoreSession session, String containerPath) {
+        DocumentModel doc = session.createDocumentModel(TYPE_NAME);
+        doc.setPathInfo(containerPath, computeDocumentName("xp-" + xpi.getId()));
+        fillDocument(doc, xpi);
+        fillContextData(doc);
+        return doc;
+    }
+
+    /** @since 2023.1 */
+    protected static void fillDocument(DocumentModel doc, ExtensionPointInfo xpi) {
+        doc.setPropertyValue(NuxeoArtifact.TITLE_PROPERTY_PATH, xpi.getId());
+
+        doc.setPropertyValue(PROP_NAME, xpi.getName());
+        doc.setPropertyValue(PROP_EP_ID, xpi.getId());
+        doc.setPropertyValue(PROP_EP_ALIASES, (Serializable) xpi.getAliases());
+        doc.setPropertyValue(PROP_DOC, xpi.getDocumentation());
+        // TODO incoherent naming here, also schema has no types
+        doc.setPropertyValue(PROP_DESCRIPTORS, xpi.getDescriptors());
+    }
+
     public ExtensionPointInfoDocAdapter(DocumentModel doc) {
         super(doc);
     }
@@ -153,6 +171,11 @@ public class ExtensionPointInfoDocAdapter extends BaseNuxeoArtifactDocAdapter im
 
     @Override
     public String getVersion() {
+        String version = getDenormalized(PROP_PARENT_BUNDLE_VERSION);
+        if (version != null) {
+            return version;
+        }
+
         BundleInfo parentBundle = getParentNuxeoArtifact(BundleInfo.class);
 
         if (parentBundle != null) {
@@ -150,6 +150,31 @@ public class OperationInfoDocAdapter extends BaseNuxeoArtifactDocAdapter impleme
             doc = session.createDocumentModel(TYPE_NAME);
             doc.setPathInfo(containerPath, name);
         }
+        fillDocument(doc, oi);
+        fillContextData(doc);
+        if (exists) {
+            doc = session.saveDocument(doc);
+        } else {
+            doc = session.createDocument(doc);
+        }
+        return new OperationInfoDocAdapter(doc);
+    }
+
+    /**
+     * Returns a new document model filled with given operation information, without persisting it.
+     *
+     * @since 2023.1
+     */
+    public static DocumentModel createDocumentModel(OperationInfo oi, CoreSession session, String containerPath) {
+        DocumentModel doc = session.createDocumentModel(TYPE_NAME);
+        doc.setPathInfo(containerPath, computeDocumentName(oi.getId()));
+        fillDocument(doc, oi);
+        fillContextData(doc);
+        return doc;
+    }
+
+    /** @since 2023.1 */
+    protected static void fillDocument(DocumentModel doc, OperationInfo oi) {
         doc.setPropertyValue(NuxeoArtifact.TITLE_PROPERTY_PATH, oi.getName());
         doc.setPropertyValue(PROP_NAME, oi.getName());
         doc.setPropertyValue(PROP_ALIASES, (Serializable) oi.getAliases());
@@ -176,13 +201,6 @@ public class OperationInfoDocAdapter extends BaseNuxeoArtifactDocAdapter impleme
             params.add(map);
         }
         doc.setPropertyValue(PROP_PARAMS, (Serializable) params);
-        fillContextData(doc);
-        if (exists) {
-            doc = session.saveDocument(doc);
-        } else {
-            doc = session.createDocument(doc);
-        }
-        return new OperationInfoDocAdapter(doc);
     }
 
     @Override
@@ -66,6 +66,32 @@ public class PackageInfoDocAdapter extends BaseNuxeoArtifactDocAdapter implement
             doc = session.getDocument(new PathRef(targetPath));
         }
         doc.setPathInfo(containerPath, name);
+        fillDocument(doc, pkg);
+
+        fillContextData(doc);
+        if (exist) {
+            doc = session.saveDocument(doc);
+        } else {
+            doc = session.createDocument(doc);
+        }
+        return new PackageInfoDocAdapter(doc);
+    }
+
+    /**
+     * Returns a new document model filled with given package information, without persisting it.
+     *
+     * @since 2023.1
+     */
+    public static DocumentModel createDocumentModel(PackageInfo pkg, CoreSession session, String containerPath) {
+        DocumentModel doc = session.createDocumentModel(TYPE_NAME);
+        doc.setPathInfo(containerPath, computeDocumentName("pkg-" + pkg.getId()));
+        fillDocument(doc, pkg);
+        fillContextData(doc);
+        return doc;
+    }
+
+    /** @since 2023.1 */
+    protected static void fillDocument(DocumentModel doc, PackageInfo pkg) {
         doc.setPropertyValue(NuxeoArtifact.TITLE_PROPERTY_PATH, pkg.getTitle());
         doc.setPropertyValue(PROP_PACKAGE_ID, pkg.getId());
         doc.setPropertyValue(PROP_PACKAGE_NAME, pkg.getName());
@@ -75,14 +101,6 @@ public class PackageInfoDocAdapter extends BaseNuxeoArtifactDocAdapter implement
         doc.setPropertyValue(PROP_DEPENDENCIES, (Serializable) pkg.getDependencies());
         doc.setPropertyValue(PROP_OPTIONAL_DEPENDENCIES, (Serializable) pkg.getOptionalDependencies());
         doc.setPropertyValue(PROP_CONFLICTS, (Serializable) pkg.getConflicts());
-
-        fillContextData(doc);
-        if (exist) {
-            doc = session.saveDocument(doc);
-        } else {
-            doc = session.createDocument(doc);
-        }
-        return new PackageInfoDocAdapter(doc);
     }
 
     public PackageInfoDocAdapter(DocumentModel doc) {
@@ -50,11 +50,7 @@ public class ServiceInfoDocAdapter extends BaseNuxeoArtifactDocAdapter implement
             doc = session.getDocument(new PathRef(targetPath));
         }
         doc.setPathInfo(containerPath, name);
-        doc.setPropertyValue(NuxeoArtifact.TITLE_PROPERTY_PATH, si.getId());
-
-        doc.setPropertyValue(PROP_CLASS_NAME, si.getId());
-        doc.setPropertyValue(PROP_COMPONENT_ID, si.getComponentId());
-        doc.setPropertyValue(PROP_OVERRIDEN, si.isOverriden());
+        fillDocument(doc, si);
 
         fillContextData(doc);
         if (exist) {
@@ -66,6 +62,28 @@ public class ServiceInfoDocAdapter extends BaseNuxeoArtifactDocAdapter implement
         return new ServiceInfoDocAdapter(doc);
     }
 
+    /**
+     * Returns a new document model filled with given service information, without persisting it.
+     *
+     * @since 2023.1
+     */
+    public static DocumentModel createDocumentModel(ServiceInfo si, CoreSession session, String containerPath) {
+        DocumentModel doc = session.createDocumentModel(TYPE_NAME);
+        doc.setPathInfo(containerPath, computeDocumentName("service-" + si.getId()));
+        fillDocument(doc, si);
+        fillContextData(doc);
+        return doc;
+    }
+
+    /** @since 2023.1 */
+    protected static void fillDocument(DocumentModel doc, ServiceInfo si) {
+        doc.setPropertyValue(NuxeoArtifact.TITLE_PROPERTY_PATH, si.getId());
+
+        doc.setPropertyValue(PROP_CLASS_NAME, si.getId());
+        doc.setPropertyValue(PROP_COMPONENT_ID, si.getComponentId());
+        doc.setPropertyValue(PROP_OVERRIDEN, si.isOverriden());
+    }
+
     @Override
     public String getId() {
         return safeGet(PROP_CLASS_NAME, "unknown_service");
@@ -83,6 +101,11 @@ public class ServiceInfoDocAdapter extends BaseNuxeoArtifactDocAdapter implement
 
     @Override
     public String getVersion() {
+        String version = getDenormalized(PROP_PARENT_BUNDLE_VERSION);
+        if (version != null) {
+            return version;
+        }
+
         BundleInfo parentBundle = getParentNuxeoArtifact(BundleInfo.class);
 
         if (parentBundle != null) {
@@ -0,0 +1,61 @@
+/*
+ * (C) Copyright 2023 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nuxeo.apidoc.api;
+
+/**
+ * Lightweight view of a {@link ComponentInfo}, holding only information needed for listings.
+ *
+ * @since 2023.1
+ */
+public class ComponentSummary {
+
+    protected final String id;
+
+    protected final Long resolutionOrder;
+
+    protected final Long declaredStartOrder;
+
+    protected final boolean xmlPureComponent;
+
+    public ComponentSummary(String id, Long resolutionOrder, Long declaredStartOrder, boolean xmlPureComponent) {
+        this.id = id;
+        this.resolutionOrder = resolutionOrder;
+        this.declaredStartOrder = declaredStartOrder;
+        this.xmlPureComponent = xmlPureComponent;
+    }
+
+    public static ComponentSummary of(ComponentInfo component) {
+        return new ComponentSummary(component.getId(), component.getResolutionOrder(),
+                component.getDeclaredStartOrder(), component.isXmlPureComponent());
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Long getResolutionOrder() {
+        return resolutionOrder;
+    }
+
+    public Long getDeclaredStartOrder() {
+        return declaredStartOrder;
+    }
+
+    public boolean isXmlPureComponent() {
+        return xmlPureComponent;
+    }
+
+}
@@ -0,0 +1,56 @@
+/*
+ * (C) Copyright 2023 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nuxeo.apidoc.api;
+
+import org.nuxeo.runtime.model.ComponentName;
+
+/**
+ * Lightweight view of an {@link ExtensionInfo}, holding only information needed for listings.
+ *
+ * @since 2023.1
+ */
+public class ContributionSummary {
+
+    protected final String id;
+
+    protected final String extensionPoint;
+
+    protected final ComponentName targetComponentName;
+
+    public ContributionSummary(String id, String extensionPoint, ComponentName targetComponentName) {
+        this.id = id;
+        this.extensionPoint = extensionPoint;
+        this.targetComponentName = targetComponentName;
+    }
+
+    public static ContributionSummary of(ExtensionInfo contribution) {
+        return new ContributionSummary(contribution.getId(), contribution.getExtensionPoint(),
+                contribution.getTargetComponentName());
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getExtensionPoint() {
+        return extensionPoint;
+    }
+
+    public ComponentName getTargetComponentName() {
+        return targetComponentName;
+    }
+
+}
@@ -0,0 +1,78 @@
+/*
+ * (C) Copyright 2023 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nuxeo.apidoc.api;
+
+import java.util.List;
+
+/**
+ * Lightweight view of an {@link OperationInfo}, holding only information needed for listings.
+ *
+ * @since 2023.1
+ */
+public class OperationSummary {
+
+    protected final String name;
+
+    protected final String label;
+
+    protected final String category;
+
+    protected final List<String> aliases;
+
+    protected final String requires;
+
+    protected final String since;
+
+    public OperationSummary(String name, String label, String category, List<String> aliases, String requires,
+            String since) {
+        this.name = name;
+        this.label = label;
+        this.category = category;
+        this.aliases = aliases == null ? List.of() : List.copyOf(aliases);
+        this.requires = requires;
+        this.since = since;
+    }
+
+    public static OperationSummary of(OperationInfo operation) {
+        return new OperationSummary(operation.getName(), operation.getLabel(), operation.getCategory(),
+                operation.getAliases(), operation.getRequires(), operation.getSince());
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public List<String> getAliases() {
+        return aliases;
+    }
+
+    public String getRequires() {
+        return requires;
+    }
+
+    public String getSince() {
+        return since;
+    }
+
+}
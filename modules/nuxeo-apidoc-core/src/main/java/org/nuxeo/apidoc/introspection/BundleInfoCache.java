@@ -0,0 +1,222 @@
+/*
+ * (C) Copyright 2023 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nuxeo.apidoc.introspection;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.nuxeo.common.Environment;
+import org.nuxeo.ecm.core.api.Blob;
+import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.services.config.ConfigurationService;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * File-backed cache of bundles metadata extracted from jars, so that building the server information does not need to
+ * read unchanged jars again.
+ * <p>
+ * Entries are keyed by jar absolute path, and are only valid while the jar size and last modification time are
+ * unchanged. Saving the cache only keeps entries that were looked up or added since it was loaded, so that removed
+ * jars do not accumulate.
+ *
+ * @since 2023.1
+ */
+public class BundleInfoCache {
+
+    private static final Logger log = LogManager.getLogger(BundleInfoCache.class);
+
+    /**
+     * Property controlling whether bundles metadata is cached on disk, under the server data directory, enabled
+     * unless set to false.
+     */
+    public static final String PROPERTY_CACHE_ENABLED = "org.nuxeo.apidoc.introspection.cache.enabled";
+
+    public static final String CACHE_DIR = "apidoc";
+
+    public static final String CACHE_FILE = "bundles-cache.json";
+
+    protected static final ObjectMapper MAPPER = new ObjectMapper().configure(
+            DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    protected final File file;
+
+    protected final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    protected final Set<String> used = ConcurrentHashMap.newKeySet();
+
+    protected volatile boolean modified;
+
+    protected int loaded;
+
+    /**
+     * Returns the cache stored under the server data directory, or null if disabled.
+     */
+    public static BundleInfoCache load() {
+        if (Framework.getService(ConfigurationService.class).isBooleanFalse(PROPERTY_CACHE_ENABLED)) {
+            return null;
+        }
+        Environment env = Environment.getDefault();
+        if (env == null || env.getData() == null) {
+            return null;
+        }
+        return new BundleInfoCache(new File(new File(env.getData(), CACHE_DIR), CACHE_FILE));
+    }
+
+    public BundleInfoCache(File file) {
+        this.file = file;
+        if (file.isFile()) {
+            try {
+                entries.putAll(MAPPER.readValue(file, new TypeReference<Map<String, Entry>>() {
+                }));
+                loaded = entries.size();
+            } catch (IOException e) {
+                log.warn("Ignoring unreadable bundles cache at {}: {}", file, e.getMessage());
+                log.debug(e, e);
+            }
+        }
+    }
+
+    /**
+     * Fills given bundle with metadata cached for given jar, and returns true, or returns false if no valid entry is
+     * cached.
+     */
+    public boolean fill(File jar, BundleInfoImpl binfo) {
+        String key = jar.getAbsolutePath();
+        Entry entry = entries.get(key);
+        if (entry == null || entry.size != jar.length() || entry.lastModified != jar.lastModified()) {
+            return false;
+        }
+        used.add(key);
+        binfo.setManifest(entry.manifest);
+        binfo.setRequirements(entry.requirements);
+        binfo.setGroupId(entry.groupId);
+        binfo.setArtifactId(entry.artifactId);
+        binfo.setArtifactVersion(entry.artifactVersion);
+        binfo.setReadme(toBlob(entry.readmeName, entry.readme));
+        binfo.setParentReadme(toBlob(entry.parentReadmeName, entry.parentReadme));
+        return true;
+    }
+
+    /**
+     * Caches metadata of given bundle, as extracted from given jar.
+     */
+    public void put(File jar, BundleInfoImpl binfo) {
+        Entry entry = new Entry();
+        entry.size = jar.length();
+        entry.lastModified = jar.lastModified();
+        entry.manifest = binfo.getManifest();
+        entry.requirements = new ArrayList<>(binfo.getRequirements());
+        entry.groupId = binfo.getGroupId();
+        entry.artifactId = binfo.getArtifactId();
+        entry.artifactVersion = binfo.getArtifactVersion();
+        try {
+            if (binfo.getReadme() != null) {
+                entry.readmeName = binfo.getReadme().getFilename();
+                entry.readme = binfo.getReadme().getString();
+            }
+            if (binfo.getParentReadme() != null) {
+                entry.parentReadmeName = binfo.getParentReadme().getFilename();
+                entry.parentReadme = binfo.getParentReadme().getString();
+            }
+        } catch (IOException e) {
+            log.debug(e, e);
+            return;
+        }
+        String key = jar.getAbsolutePath();
+        entries.put(key, entry);
+        used.add(key);
+        modified = true;
+    }
+
+    /**
+     * Writes the cache to disk if it was modified, or if some entries were not used since it was loaded.
+     */
+    public void save() {
+        entries.keySet().retainAll(used);
+        if (!modified && entries.size() == loaded) {
+            return;
+        }
+        try {
+            Files.createDirectories(file.getParentFile().toPath());
+            File tmp = new File(file.getParentFile(), file.getName() + ".tmp");
+            MAPPER.writeValue(tmp, entries);
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            modified = false;
+            loaded = entries.size();
+        } catch (IOException e) {
+            log.warn("Unable to write bundles cache at {}: {}", file, e.getMessage());
+            log.debug(e, e);
+        }
+    }
+
+    protected static Blob toBlob(String name, String content) {
+        if (content == null) {
+            return null;
+        }
+        try {
+            return EmbeddedDocExtractor.getReadme(name,
+                    new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (IOException e) {
+            // cannot happen on a byte array
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Metadata cached for a jar.
+     */
+    public static class Entry {
+
+        public long size;
+
+        public long lastModified;
+
+        public String manifest;
+
+        public List<String> requirements;
+
+        public String groupId;
+
+        public String artifactId;
+
+        public String artifactVersion;
+
+        public String readmeName;
+
+        public String readme;
+
+        public String parentReadmeName;
+
+        public String parentReadme;
+
+    }
+
+}
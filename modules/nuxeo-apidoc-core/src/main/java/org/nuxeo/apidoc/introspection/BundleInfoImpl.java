@@ -24,7 +24,6 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
-import java.util.stream.Collectors;
 
 import org.nuxeo.apidoc.api.BaseNuxeoArtifact;
 import org.nuxeo.apidoc.api.BundleGroup;
@@ -74,7 +73,7 @@ public class BundleInfoImpl extends BaseNuxeoArtifact implements BundleInfo {
     /** @since 11.1 */
     protected final List<String> packages = new ArrayList<>();
 
-    // cache lists
+    // cache lists, computed on first access and never modified afterwards
 
     protected List<ExtensionPointInfo> extensionPoints;
 
@@ -91,6 +90,43 @@ public class BundleInfoImpl extends BaseNuxeoArtifact implements BundleInfo {
         this.bundleId = null;
     }
 
+    /**
+     * Returns a copy of this bundle holding the same metadata, but no components.
+     *
+     * @since 2023.1
+     */
+    public BundleInfoImpl withoutComponents() {
+        BundleInfoImpl copy = new BundleInfoImpl(bundleId);
+        copy.fileName = fileName;
+        copy.manifest = manifest;
+        copy.location = location;
+        copy.requirements.addAll(requirements);
+        copy.groupId = groupId;
+        copy.artifactId = artifactId;
+        copy.artifactVersion = artifactVersion;
+        copy.bundleGroup = bundleGroup;
+        copy.readme = readme;
+        copy.parentReadme = parentReadme;
+        copy.minResolutionOrder = minResolutionOrder;
+        copy.maxResolutionOrder = maxResolutionOrder;
+        copy.packages.addAll(packages);
+        return copy;
+    }
+
+    /**
+     * Returns a copy of this bundle holding the same metadata and components.
+     * <p>
+     * Components are re-parented to the copy when the index holding it is built, see
+     * {@link RuntimeSnapshotIndex.Builder#build()}.
+     *
+     * @since 2023.1
+     */
+    public BundleInfoImpl copy() {
+        BundleInfoImpl copy = withoutComponents();
+        copy.components.addAll(components);
+        return copy;
+    }
+
     @Override
     public BundleGroup getBundleGroup() {
         return bundleGroup;
@@ -108,6 +144,35 @@ public class BundleInfoImpl extends BaseNuxeoArtifact implements BundleInfo {
 
     public void addComponent(ComponentInfoImpl component) {
         components.add(component);
+        resetCaches();
+    }
+
+    /** @since 2023.1 */
+    public void removeComponent(ComponentInfo component) {
+        components.remove(component);
+        resetCaches();
+    }
+
+    /**
+     * Replaces given component by another one, at the same position.
+     *
+     * @since 2023.1
+     */
+    public void replaceComponent(ComponentInfo component, ComponentInfoImpl replacement) {
+        int index = components.indexOf(component);
+        if (index < 0) {
+            components.add(replacement);
+        } else {
+            components.set(index, replacement);
+        }
+        resetCaches();
+    }
+
+    /** @since 2023.1 */
+    protected void resetCaches() {
+        extensionPoints = null;
+        services = null;
+        extensions = null;
     }
 
     @Override
@@ -138,13 +203,15 @@ public class BundleInfoImpl extends BaseNuxeoArtifact implements BundleInfo {
 
     @Override
     public List<String> getPackages() {
-        return packages.stream().sorted().collect(Collectors.toUnmodifiableList());
+        return Collections.unmodifiableList(packages);
     }
 
     public void setPackages(List<String> packages) {
         this.packages.clear();
         if (packages != null) {
             this.packages.addAll(packages);
+            // sorted once here rather than on each access
+            Collections.sort(this.packages);
         }
     }
 
@@ -254,32 +321,41 @@ public class BundleInfoImpl extends BaseNuxeoArtifact implements BundleInfo {
 
     @Override
     public List<ServiceInfo> getServices() {
-        if (services == null) {
-            services = new ArrayList<>();
-            getComponents().forEach(c -> services.addAll(c.getServices()));
-            services.sort(Comparator.comparing(NuxeoArtifact::getId));
+        List<ServiceInfo> res = services;
+        if (res == null) {
+            List<ServiceInfo> computed = new ArrayList<>();
+            getComponents().forEach(c -> computed.addAll(c.getServices()));
+            computed.sort(Comparator.comparing(NuxeoArtifact::getId));
+            res = Collections.unmodifiableList(computed);
+            services = res;
         }
-        return Collections.unmodifiableList(services);
+        return res;
     }
 
     @Override
     public List<ExtensionPointInfo> getExtensionPoints() {
-        if (extensionPoints == null) {
-            extensionPoints = new ArrayList<>();
-            getComponents().forEach(c -> extensionPoints.addAll(c.getExtensionPoints()));
-            extensionPoints.sort(Comparator.comparing(NuxeoArtifact::getId));
+        List<ExtensionPointInfo> res = extensionPoints;
+        if (res == null) {
+            List<ExtensionPointInfo> computed = new ArrayList<>();
+            getComponents().forEach(c -> computed.addAll(c.getExtensionPoints()));
+            computed.sort(Comparator.comparing(NuxeoArtifact::getId));
+            res = Collections.unmodifiableList(computed);
+            extensionPoints = res;
         }
-        return Collections.unmodifiableList(extensionPoints);
+        return res;
     }
 
     @Override
     public List<ExtensionInfo> getExtensions() {
-        if (extensions == null) {
-            extensions = new ArrayList<>();
-            getComponents().forEach(c -> extensions.addAll(c.getExtensions()));
-            extensions.sort(Comparator.comparing(NuxeoArtifact::getId));
+        List<ExtensionInfo> res = extensions;
+        if (res == null) {
+            List<ExtensionInfo> computed = new ArrayList<>();
+            getComponents().forEach(c -> computed.addAll(c.getExtensions()));
+            computed.sort(Comparator.comparing(NuxeoArtifact::getId));
+            res = Collections.unmodifiableList(computed);
+            extensions = res;
         }
-        return Collections.unmodifiableList(extensions);
+        return res;
     }
 
 }
@@ -53,7 +53,7 @@ public class ComponentInfoImpl extends BaseNuxeoArtifact implements ComponentInf
 
     private static final Logger log = LogManager.getLogger(ComponentInfoImpl.class);
 
-    protected final BundleInfo bundle;
+    protected BundleInfo bundle;
 
     protected final String name;
 
@@ -99,11 +99,70 @@ public class ComponentInfoImpl extends BaseNuxeoArtifact implements ComponentInf
         this.name = null;
     }
 
+    /**
+     * Returns a copy of this component held by given bundle, with copies of its extension points.
+     * <p>
+     * Services and contributions are shared with this component, and re-parented to the copy when the index holding
+     * it is built, see {@link RuntimeSnapshotIndex.Builder#build()}.
+     *
+     * @since 2023.1
+     */
+    public ComponentInfoImpl copy(BundleInfo bundle) {
+        ComponentInfoImpl copy = new ComponentInfoImpl(bundle, name);
+        extensionPoints.forEach(xp -> copy.extensionPoints.add(((ExtensionPointInfoImpl) xp).copy(copy)));
+        copy.services.addAll(services);
+        copy.extensions.addAll(extensions);
+        copy.requirements.addAll(requirements);
+        copy.resolutionOrder = resolutionOrder;
+        copy.startOrder = startOrder;
+        copy.declaredStartOrder = declaredStartOrder;
+        copy.aliases.addAll(aliases);
+        copy.xmlFileUrl = xmlFileUrl;
+        copy.xmlFileContent = xmlFileContent;
+        copy.componentClass = componentClass;
+        copy.documentation = documentation;
+        copy.operations = operations;
+        return copy;
+    }
+
     @Override
     public String getName() {
         return name;
     }
 
+    /**
+     * Makes this component reference given bundle, see {@link RuntimeSnapshotIndex.Builder#build()}.
+     *
+     * @since 2023.1
+     */
+    protected void reparent(BundleInfo bundle) {
+        this.bundle = bundle;
+    }
+
+    /**
+     * Makes the extension points, services and contributions of this component reference it, see
+     * {@link RuntimeSnapshotIndex.Builder#build()}.
+     *
+     * @since 2023.1
+     */
+    protected void reparentChildren() {
+        for (ExtensionPointInfo xp : extensionPoints) {
+            if (xp instanceof ExtensionPointInfoImpl) {
+                ((ExtensionPointInfoImpl) xp).reparent(this);
+            }
+        }
+        for (ServiceInfo service : services) {
+            if (service instanceof ServiceInfoImpl) {
+                ((ServiceInfoImpl) service).reparent(this);
+            }
+        }
+        for (ExtensionInfo contribution : extensions) {
+            if (contribution instanceof ExtensionInfoImpl) {
+                ((ExtensionInfoImpl) contribution).reparent(this);
+            }
+        }
+    }
+
     @Override
     public BundleInfo getBundle() {
         return bundle;
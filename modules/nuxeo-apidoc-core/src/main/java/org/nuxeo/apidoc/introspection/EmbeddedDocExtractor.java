@@ -81,6 +81,29 @@ public class EmbeddedDocExtractor {
         return file;
     }
 
+    /**
+     * Extracts local and parent readmes, for use by a {@link JarScanner}.
+     *
+     * @since 2023.1
+     */
+    public static final JarScanner.EntryExtractor README_EXTRACTOR = new JarScanner.EntryExtractor() {
+
+        @Override
+        public boolean accept(ZipEntry entry, BundleInfoImpl binfo) {
+            return isReadme(entry.getName()) > 0;
+        }
+
+        @Override
+        public void extract(ZipEntry entry, InputStream is, BundleInfoImpl binfo) throws IOException {
+            extractReadme(entry, is, binfo);
+        }
+
+        @Override
+        public boolean isDone(BundleInfoImpl binfo) {
+            return hasReadmes(binfo);
+        }
+    };
+
     public static void extractEmbeddedDoc(ZipFile jarFile, BundleInfoImpl bi) throws IOException {
         Enumeration<? extends ZipEntry> entries = jarFile.entries();
         while (entries.hasMoreElements()) {
@@ -88,25 +111,35 @@ public class EmbeddedDocExtractor {
             if (entry.isDirectory()) {
                 continue;
             }
-            int isReadme = isReadme(entry.getName());
-            if (isReadme > 0) {
-                Blob content = null;
-                String name = new Path(entry.getName()).lastSegment();
+            if (isReadme(entry.getName()) > 0) {
                 try (InputStream is = jarFile.getInputStream(entry)) {
-                    content = getReadme(name, is);
-                }
-                if (isReadme == 1) {
-                    bi.setReadme(content);
-                } else {
-                    bi.setParentReadme(content);
+                    extractReadme(entry, is, bi);
                 }
             }
-            if (bi.getReadme() != null && bi.getParentReadme() != null) {
+            if (hasReadmes(bi)) {
                 break;
             }
         }
     }
 
+    /**
+     * Sets the local or parent readme of given bundle from given readme entry.
+     *
+     * @since 2023.1
+     */
+    protected static void extractReadme(ZipEntry entry, InputStream is, BundleInfoImpl bi) throws IOException {
+        Blob content = getReadme(new Path(entry.getName()).lastSegment(), is);
+        if (isReadme(entry.getName()) == 1) {
+            bi.setReadme(content);
+        } else {
+            bi.setParentReadme(content);
+        }
+    }
+
+    protected static boolean hasReadmes(BundleInfoImpl bi) {
+        return bi.getReadme() != null && bi.getParentReadme() != null;
+    }
+
     /**
      * Mimicks extaction of readme file for tests.
      *
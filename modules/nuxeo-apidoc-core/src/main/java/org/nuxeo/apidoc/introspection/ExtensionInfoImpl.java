@@ -45,7 +45,7 @@ public class ExtensionInfoImpl extends BaseNuxeoArtifact implements ExtensionInf
 
     protected final String id;
 
-    protected final ComponentInfo component;
+    protected ComponentInfo component;
 
     protected String extensionPoint;
 
@@ -150,6 +150,15 @@ public class ExtensionInfoImpl extends BaseNuxeoArtifact implements ExtensionInf
         // NOOP, useful for jackson deserialization
     }
 
+    /**
+     * Makes this contribution reference given component, see {@link RuntimeSnapshotIndex.Builder#build()}.
+     *
+     * @since 2023.1
+     */
+    protected void reparent(ComponentInfo component) {
+        this.component = component;
+    }
+
     @Override
     public ComponentInfo getComponent() {
         return component;
@@ -64,6 +64,30 @@ public class ExtensionPointInfoImpl extends BaseNuxeoArtifact implements Extensi
         this.name = null;
     }
 
+    /**
+     * Returns a copy of this extension point held by given component, referencing the same contributions.
+     *
+     * @since 2023.1
+     */
+    public ExtensionPointInfoImpl copy(ComponentInfoImpl component) {
+        ExtensionPointInfoImpl copy = new ExtensionPointInfoImpl(component, name);
+        copy.aliases.addAll(aliases);
+        copy.extensions.addAll(extensions);
+        copy.spi.addAll(spi);
+        copy.descriptors = descriptors;
+        copy.documentation = documentation;
+        return copy;
+    }
+
+    /**
+     * Makes this extension point reference given component, see {@link RuntimeSnapshotIndex.Builder#build()}.
+     *
+     * @since 2023.1
+     */
+    protected void reparent(ComponentInfo component) {
+        this.component = component;
+    }
+
     @Override
     public ComponentInfo getComponent() {
         return component;
@@ -97,6 +121,11 @@ public class ExtensionPointInfoImpl extends BaseNuxeoArtifact implements Extensi
         extensions.add(xt);
     }
 
+    /** @since 2023.1 */
+    public void removeExtension(ExtensionInfo xt) {
+        extensions.remove(xt);
+    }
+
     public void setDocumentation(String documentation) {
         this.documentation = documentation;
     }
@@ -0,0 +1,83 @@
+/*
+ * (C) Copyright 2023 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nuxeo.apidoc.introspection;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Scans a bundle jar in a single pass, dispatching its entries to registered extractors.
+ * <p>
+ * Scanning stops as soon as all extractors are done, so that jars are usually not read entirely.
+ *
+ * @since 2023.1
+ */
+public class JarScanner {
+
+    /**
+     * Extracts bundle metadata from some jar entries.
+     */
+    public interface EntryExtractor {
+
+        /**
+         * Returns true if given entry should be passed to {@link #extract(ZipEntry, InputStream, BundleInfoImpl)}.
+         */
+        boolean accept(ZipEntry entry, BundleInfoImpl binfo);
+
+        void extract(ZipEntry entry, InputStream is, BundleInfoImpl binfo) throws IOException;
+
+        /**
+         * Returns true if this extractor does not need any other entry.
+         */
+        boolean isDone(BundleInfoImpl binfo);
+
+    }
+
+    protected final List<EntryExtractor> extractors;
+
+    public JarScanner(List<EntryExtractor> extractors) {
+        this.extractors = extractors;
+    }
+
+    public void scan(File jarFile, BundleInfoImpl binfo) throws IOException {
+        try (ZipFile zFile = new ZipFile(jarFile)) {
+            Enumeration<? extends ZipEntry> entries = zFile.entries();
+            while (entries.hasMoreElements() && !isDone(binfo)) {
+                ZipEntry entry = entries.nextElement();
+                if (entry.isDirectory()) {
+                    continue;
+                }
+                for (EntryExtractor extractor : extractors) {
+                    if (extractor.accept(entry, binfo)) {
+                        try (InputStream is = zFile.getInputStream(entry)) {
+                            extractor.extract(entry, is, binfo);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    protected boolean isDone(BundleInfoImpl binfo) {
+        return extractors.stream().allMatch(extractor -> extractor.isDone(binfo));
+    }
+
+}
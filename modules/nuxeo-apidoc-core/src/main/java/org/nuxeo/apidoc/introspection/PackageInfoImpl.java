@@ -81,6 +81,18 @@ public class PackageInfoImpl extends BaseNuxeoArtifact implements PackageInfo {
         this.packageType = null;
     }
 
+    /**
+     * Returns a copy of this package, holding the same bundles.
+     *
+     * @since 2023.1
+     */
+    public PackageInfoImpl copy() {
+        PackageInfoImpl copy = new PackageInfoImpl(id, name, version, title, packageType, dependencies,
+                optionalDependencies, conflicts);
+        copy.bundles.putAll(bundles);
+        return copy;
+    }
+
     @Override
     public String getId() {
         return id;
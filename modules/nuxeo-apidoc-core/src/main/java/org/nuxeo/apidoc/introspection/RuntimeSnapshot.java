@@ -33,20 +33,23 @@ import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
 import org.nuxeo.apidoc.api.BaseNuxeoArtifact;
 import org.nuxeo.apidoc.api.BundleGroup;
-import org.nuxeo.apidoc.api.BundleGroupExtractor;
 import org.nuxeo.apidoc.api.BundleGroupFlatTree;
 import org.nuxeo.apidoc.api.BundleInfo;
 import org.nuxeo.apidoc.api.ComponentInfo;
+import org.nuxeo.apidoc.api.ComponentSummary;
+import org.nuxeo.apidoc.api.ContributionSummary;
 import org.nuxeo.apidoc.api.ExtensionInfo;
 import org.nuxeo.apidoc.api.ExtensionPointInfo;
 import org.nuxeo.apidoc.api.NuxeoArtifact;
-import org.nuxeo.apidoc.api.NuxeoArtifactComparator;
 import org.nuxeo.apidoc.api.OperationInfo;
+import org.nuxeo.apidoc.api.OperationSummary;
 import org.nuxeo.apidoc.api.PackageInfo;
 import org.nuxeo.apidoc.api.ServiceInfo;
 import org.nuxeo.apidoc.documentation.JavaDocHelper;
@@ -55,13 +58,19 @@ import org.nuxeo.apidoc.plugin.PluginSnapshot;
 import org.nuxeo.apidoc.snapshot.DistributionSnapshot;
 import org.nuxeo.apidoc.snapshot.JsonMapper;
 import org.nuxeo.apidoc.snapshot.SnapshotFilter;
+import org.nuxeo.apidoc.snapshot.SnapshotListener;
 import org.nuxeo.apidoc.snapshot.SnapshotManager;
+import org.nuxeo.connect.update.LocalPackage;
 import org.nuxeo.ecm.automation.AutomationService;
 import org.nuxeo.ecm.automation.OperationDocumentation;
 import org.nuxeo.ecm.automation.OperationException;
 import org.nuxeo.ecm.automation.OperationType;
 import org.nuxeo.ecm.core.api.NuxeoException;
 import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.model.ComponentManager;
+import org.nuxeo.runtime.model.ComponentName;
+import org.nuxeo.runtime.model.RegistrationInfo;
+import org.osgi.framework.Bundle;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
@@ -87,35 +96,15 @@ public class RuntimeSnapshot extends BaseNuxeoArtifact implements DistributionSn
 
     protected final String version;
 
-    protected final Map<String, BundleInfo> bundles = new LinkedHashMap<>();
+    /**
+     * Indexes of the snapshot artifacts, replaced as a whole on updates so that concurrent readers always see a
+     * consistent state.
+     *
+     * @since 2023.1
+     */
+    protected volatile RuntimeSnapshotIndex index;
 
-    protected final Map<String, String> components2Bundles = new HashMap<>();
-
-    protected final Map<String, String> componentAliases2Bundles = new HashMap<>();
-
-    protected final Map<String, String> services2Components = new HashMap<>();
-
-    protected final Map<String, ExtensionPointInfo> extensionPoints = new LinkedHashMap<>();
-
-    protected final Map<String, ExtensionPointInfo> extensionPointAliases = new LinkedHashMap<>();
-
-    protected final Map<String, ExtensionInfo> contributions = new LinkedHashMap<>();
-
-    protected List<BundleGroup> parentBundleGroups = new ArrayList<>();
-
-    protected final Map<String, BundleGroup> bundleGroups = new LinkedHashMap<>();
-
-    protected boolean opsInitialized = false;
-
-    protected final Map<String, OperationInfo> operations = new LinkedHashMap<>();
-
-    protected final Map<String, String> operationAliases = new HashMap<>();
-
-    protected final Map<String, PackageInfo> packages = new HashMap<>();
-
-    protected JavaDocHelper jdocHelper;
-
-    protected boolean pluginSnapshotsInitialized = false;
+    protected volatile JavaDocHelper jdocHelper;
 
     protected final Map<String, PluginSnapshot<?>> pluginSnapshots = new HashMap<>();
 
@@ -136,15 +125,15 @@ public class RuntimeSnapshot extends BaseNuxeoArtifact implements DistributionSn
         this.released = released;
         this.name = name;
         this.version = version;
-        index(bundles, packages);
+        RuntimeSnapshotIndex.Builder builder = new RuntimeSnapshotIndex.Builder();
+        index(builder, bundles, packages);
         if (operations != null) {
-            operations.forEach(this::addOperation);
+            operations.forEach(builder::addOperation);
         }
-        this.opsInitialized = true;
+        this.index = builder.build();
         if (pluginSnapshots != null) {
             this.pluginSnapshots.putAll(pluginSnapshots);
         }
-        this.pluginSnapshotsInitialized = true;
     }
 
     protected RuntimeSnapshot() {
@@ -153,48 +142,206 @@ public class RuntimeSnapshot extends BaseNuxeoArtifact implements DistributionSn
         ServerInfo serverInfo = ServerInfo.build();
         this.name = serverInfo.getName();
         this.version = serverInfo.getVersion();
-        index(serverInfo.getBundles(), serverInfo.getPackages());
-        initOperations();
+        RuntimeSnapshotIndex.Builder builder = new RuntimeSnapshotIndex.Builder();
+        index(builder, serverInfo.getBundles(), serverInfo.getPackages());
+        initOperations(builder);
+        this.index = builder.build();
+        // plugins may need to browse the snapshot
         initPluginSnapshots();
     }
 
-    protected void index(List<BundleInfo> distributionBundles, List<PackageInfo> packages) {
+    protected void index(RuntimeSnapshotIndex.Builder builder, List<BundleInfo> distributionBundles,
+            List<PackageInfo> packages) {
         if (packages != null) {
-            packages.stream().forEach(pkg -> this.packages.put(pkg.getName(), pkg));
+            packages.forEach(builder::addPackage);
         }
 
-        if (distributionBundles == null) {
+        if (distributionBundles != null) {
+            for (BundleInfo bInfo : distributionBundles) {
+                String bid = bInfo.getId();
+                builder.putBundle(bInfo);
+                for (ComponentInfo cInfo : bInfo.getComponents()) {
+                    builder.indexComponent(bid, cInfo);
+                }
+            }
+        }
+
+        builder.indexBundleGroups(version);
+    }
+
+    /**
+     * Applies runtime registration changes that happened after this snapshot was built, as recorded by the
+     * {@link SnapshotListener}: components are removed from indexes, and resolved ones are computed and indexed again,
+     * along with their bundle if it was not known yet.
+     * <p>
+     * Updated indexes are published at once when all changes are applied, artifacts held by the previous indexes are
+     * copied before being modified. Concurrent updates are not supported.
+     * <p>
+     * Operations and plugin snapshots are not updated.
+     *
+     * @param changes component names, associated to true if resolved, false if unresolved
+     * @since 2023.1
+     */
+    public void update(Map<String, Boolean> changes) {
+        RuntimeSnapshotIndex.Builder builder = new RuntimeSnapshotIndex.Builder(index);
+        for (String name : changes.keySet()) {
+            removeComponent(builder, name);
+        }
+        ComponentManager manager = Framework.getRuntime().getComponentManager();
+        List<RegistrationInfo> resolved = changes.entrySet()
+                                                 .stream()
+                                                 .filter(change -> Boolean.TRUE.equals(change.getValue()))
+                                                 .map(change -> manager.getRegistrationInfo(
+                                                         new ComponentName(change.getKey())))
+                                                 .filter(ri -> ri != null && ri.isResolved())
+                                                 .collect(Collectors.toList());
+        if (!resolved.isEmpty()) {
+            boolean newBundles = addBundles(builder, resolved);
+            // same resolution order as a full build
+            List<ComponentName> registrations = new ArrayList<>(manager.getResolvedRegistrations());
+            for (RegistrationInfo ri : resolved) {
+                addComponent(builder, ri, registrations.indexOf(ri.getName()));
+            }
+            if (newBundles) {
+                builder.indexBundleGroups(version);
+            }
+        }
+        index = builder.build();
+    }
+
+    /**
+     * Replaces the bundle groups computed from the maven groups of bundles by given ones, bundles being expected to
+     * reference their group already.
+     * <p>
+     * Used to restore the bundle groups of a persisted distribution, see
+     * {@link org.nuxeo.apidoc.repository.RepositoryDistributionSnapshot#writeBlob}.
+     *
+     * @param roots the root bundle groups
+     * @since 2023.1
+     */
+    public void setBundleGroups(List<BundleGroup> roots) {
+        RuntimeSnapshotIndex.Builder builder = new RuntimeSnapshotIndex.Builder(index);
+        builder.indexBundleGroups(roots);
+        index = builder.build();
+    }
+
+    /**
+     * Removes given component from indexes, copying its bundle and the extension points it contributed to first.
+     *
+     * @since 2023.1
+     */
+    protected void removeComponent(RuntimeSnapshotIndex.Builder builder, String name) {
+        String bid = builder.getComponentBundleId(name);
+        if (bid == null) {
             return;
         }
-        for (BundleInfo bInfo : distributionBundles) {
-            String bid = bInfo.getId();
-            bundles.put(bid, bInfo);
-            for (ComponentInfo cInfo : bInfo.getComponents()) {
-                String cid = cInfo.getId();
-                components2Bundles.put(cid, bid);
-                cInfo.getAliases().forEach(a -> componentAliases2Bundles.put(a, bid));
-
-                for (ServiceInfo sInfo : cInfo.getServices()) {
-                    if (sInfo.isOverriden()) {
-                        continue;
-                    }
-                    services2Components.put(sInfo.getId(), cid);
-                }
+        ComponentInfo cInfo = builder.getBundle(bid)
+                                     .getComponents()
+                                     .stream()
+                                     .filter(c -> name.equals(c.getId()))
+                                     .findFirst()
+                                     .orElse(null);
+        if (cInfo == null) {
+            return;
+        }
+        builder.unindexComponent(cInfo);
+        BundleInfoImpl bInfo = builder.getMutableBundle(bid);
+        if (bInfo != null) {
+            bInfo.removeComponent(cInfo);
+        }
+        for (ExtensionInfo ei : cInfo.getExtensions()) {
+            ExtensionPointInfoImpl target = builder.getMutableExtensionPoint(ei.getExtensionPoint());
+            if (target != null) {
+                target.removeExtension(ei);
+            }
+        }
+    }
 
-                for (ExtensionPointInfo epi : cInfo.getExtensionPoints()) {
-                    extensionPoints.put(epi.getId(), epi);
-                    epi.getAliases().forEach(a -> extensionPointAliases.put(a, epi));
+    /** @since 2023.1 */
+    protected static String getBundleId(RegistrationInfo ri) {
+        Bundle bundle = ri.getContext().getBundle();
+        return bundle == null ? BundleInfo.RUNTIME_CONFIG_BUNDLE : bundle.getSymbolicName();
+    }
+
+    /**
+     * Computes and indexes the bundles of given registrations that are not known yet, along with their packages,
+     * returns true if any.
+     *
+     * @since 2023.1
+     */
+    protected boolean addBundles(RuntimeSnapshotIndex.Builder builder, List<RegistrationInfo> registrations) {
+        Map<String, Bundle> bundles = new LinkedHashMap<>();
+        for (RegistrationInfo ri : registrations) {
+            String bid = getBundleId(ri);
+            if (bid != null && builder.getBundle(bid) == null) {
+                bundles.put(bid, ri.getContext().getBundle());
+            }
+        }
+        if (bundles.isEmpty()) {
+            return false;
+        }
+        Map<String, List<LocalPackage>> pkgByBundle = new HashMap<>();
+        Map<String, PackageInfoImpl> installed = ServerInfo.computePackageInfos(pkgByBundle)
+                                                           .stream()
+                                                           .collect(Collectors.toMap(PackageInfoImpl::getName,
+                                                                   Function.identity(), (a, b) -> a));
+        bundles.forEach((bid, bundle) -> {
+            BundleInfoImpl bInfo = bundle == null ? new BundleInfoImpl(bid)
+                    : ServerInfo.computeBundleInfo(bundle, pkgByBundle);
+            builder.putBundle(bInfo);
+            for (String pkgName : bInfo.getPackages()) {
+                PackageInfoImpl pkg = builder.getMutablePackage(pkgName);
+                if (pkg == null && installed.containsKey(pkgName)) {
+                    pkg = installed.get(pkgName);
+                    builder.addPackage(pkg);
                 }
-
-                for (ExtensionInfo ei : cInfo.getExtensions()) {
-                    contributions.put(ei.getId(), ei);
+                if (pkg != null) {
+                    pkg.addBundle(bInfo);
                 }
             }
+        });
+        return true;
+    }
+
+    /**
+     * Computes and indexes given resolved component, its bundle being indexed already.
+     *
+     * @since 2023.1
+     */
+    protected void addComponent(RuntimeSnapshotIndex.Builder builder, RegistrationInfo ri, long resolutionOrder) {
+        String bid = getBundleId(ri);
+        BundleInfoImpl bInfo = bid == null ? null : builder.getMutableBundle(bid);
+        if (bInfo == null) {
+            return;
+        }
+        List<ExtensionInfoImpl> contribs = new ArrayList<>();
+        ComponentInfoImpl cInfo = ServerInfo.computeComponentInfo(ri, bInfo, resolutionOrder,
+                Framework.getService(SnapshotListener.class), new HashMap<>(), contribs, new ArrayList<>());
+        bInfo.addComponent(cInfo);
+        if (bInfo.getMinResolutionOrder() == null || bInfo.getMinResolutionOrder() > resolutionOrder) {
+            bInfo.setMinResolutionOrder(resolutionOrder);
+        }
+        if (bInfo.getMaxResolutionOrder() == null || bInfo.getMaxResolutionOrder() < resolutionOrder) {
+            bInfo.setMaxResolutionOrder(resolutionOrder);
         }
+        builder.indexComponent(bid, cInfo);
 
-        BundleGroupExtractor bge = new BundleGroupExtractor(bundles, version);
-        parentBundleGroups.addAll(bge.getRoots());
-        bundleGroups.putAll(bge.getGroups());
+        // associate contributions of the component, and contributions to its extension points
+        for (ExtensionInfoImpl contrib : contribs) {
+            ExtensionPointInfoImpl target = builder.getMutableExtensionPoint(contrib.getExtensionPoint());
+            if (target != null) {
+                target.addExtension(contrib);
+            }
+        }
+        for (ExtensionPointInfo epi : cInfo.getExtensionPoints()) {
+            for (ExtensionInfo contrib : builder.getContributions()) {
+                if (contrib instanceof ExtensionInfoImpl && !contribs.contains(contrib)
+                        && (epi.getId().equals(contrib.getExtensionPoint())
+                                || epi.getAliases().contains(contrib.getExtensionPoint()))) {
+                    ((ExtensionPointInfoImpl) epi).addExtension((ExtensionInfoImpl) contrib);
+                }
+            }
+        }
     }
 
     @Override
@@ -209,9 +356,7 @@ public class RuntimeSnapshot extends BaseNuxeoArtifact implements DistributionSn
 
     @Override
     public List<BundleGroup> getBundleGroups() {
-        return parentBundleGroups.stream()
-                                 .sorted(new NuxeoArtifactComparator())
-                                 .collect(Collectors.toUnmodifiableList());
+        return index.getBundleGroups();
     }
 
     @Override
@@ -220,9 +365,9 @@ public class RuntimeSnapshot extends BaseNuxeoArtifact implements DistributionSn
             return null;
         }
         if (groupId.startsWith(BundleGroup.PREFIX)) {
-            return bundleGroups.get(groupId);
+            return index.getBundleGroup(groupId);
         } else {
-            return bundleGroups.get(BundleGroup.PREFIX + groupId);
+            return index.getBundleGroup(BundleGroup.PREFIX + groupId);
         }
     }
 
@@ -236,86 +381,67 @@ public class RuntimeSnapshot extends BaseNuxeoArtifact implements DistributionSn
 
     @Override
     public List<String> getBundleIds() {
-        return new ArrayList<>(bundles.keySet());
+        return index.getBundleIds();
     }
 
     @Override
     public BundleInfo getBundle(String id) {
-        return bundles.get(id);
+        return index.getBundle(id);
     }
 
     @Override
     public List<String> getComponentIds() {
-        List<String> componentsIds = new ArrayList<>();
-        componentsIds.addAll(components2Bundles.keySet());
-        Collections.sort(componentsIds);
-        return componentsIds;
+        return index.getComponentIds();
     }
 
     @Override
     public List<ComponentInfo> getComponents() {
-        return bundles.values()
-                      .stream()
-                      .flatMap(b -> b.getComponents().stream())
-                      .sorted(new NuxeoArtifactComparator())
-                      .collect(Collectors.toUnmodifiableList());
+        return index.getComponents();
     }
 
     @Override
-    public ComponentInfo getComponent(String id) {
-        String bundleId = components2Bundles.getOrDefault(id, componentAliases2Bundles.get(id));
-        if (bundleId == null) {
-            return null;
-        }
-        BundleInfo bi = getBundle(bundleId);
+    public List<ComponentSummary> getComponentSummaries() {
+        return index.getComponentSummaries();
+    }
 
-        for (ComponentInfo ci : bi.getComponents()) {
-            if (ci.getId().equals(id) || ci.getAliases().contains(id)) {
-                return ci;
-            }
-        }
-        return null;
+    @Override
+    public ComponentInfo getComponent(String id) {
+        return index.getComponent(id);
     }
 
     @Override
     public List<String> getServiceIds() {
-        List<String> serviceIds = new ArrayList<>();
-        serviceIds.addAll(services2Components.keySet());
-        Collections.sort(serviceIds);
-        return serviceIds;
+        return index.getServiceIds();
     }
 
     @Override
     public List<String> getExtensionPointIds() {
-        List<String> epIds = new ArrayList<>();
-        epIds.addAll(extensionPoints.keySet());
-        Collections.sort(epIds);
-        return epIds;
+        return index.getExtensionPointIds();
     }
 
     @Override
     public ExtensionPointInfo getExtensionPoint(String id) {
-        return extensionPoints.getOrDefault(id, extensionPointAliases.get(id));
+        return index.getExtensionPoint(id);
     }
 
     @Override
     public List<String> getContributionIds() {
-        List<String> contribIds = new ArrayList<>();
-        contribIds.addAll(contributions.keySet());
-        Collections.sort(contribIds);
-        return contribIds;
+        return index.getContributionIds();
     }
 
     @Override
     public List<ExtensionInfo> getContributions() {
-        List<ExtensionInfo> contribs = new ArrayList<>();
-        contribs.addAll(contributions.values());
-        return contribs;
+        return index.getContributions();
+    }
+
+    @Override
+    public List<ContributionSummary> getContributionSummaries() {
+        return index.getContributionSummaries();
     }
 
     @Override
     public ExtensionInfo getContribution(String id) {
-        return contributions.get(id);
+        return index.getContribution(id);
     }
 
     @Override
@@ -335,17 +461,7 @@ public class RuntimeSnapshot extends BaseNuxeoArtifact implements DistributionSn
 
     @Override
     public ServiceInfo getService(String id) {
-        String cId = services2Components.get(id);
-        if (cId == null) {
-            return null;
-        }
-
-        for (ServiceInfo si : getComponent(cId).getServices()) {
-            if (id.equals(si.getId())) {
-                return si;
-            }
-        }
-        return null;
+        return index.getService(id);
     }
 
     @Override
@@ -368,10 +484,7 @@ public class RuntimeSnapshot extends BaseNuxeoArtifact implements DistributionSn
         return null;
     }
 
-    protected void initOperations() {
-        if (opsInitialized) {
-            return;
-        }
+    protected void initOperations(RuntimeSnapshotIndex.Builder builder) {
         AutomationService service = Framework.getService(AutomationService.class);
         if (service == null) {
             return;
@@ -394,13 +507,12 @@ public class RuntimeSnapshot extends BaseNuxeoArtifact implements DistributionSn
             if (StringUtils.isNotBlank(cid) && !OperationInfo.BUILT_IN.equals(cid)) {
                 bundleToOperations.computeIfAbsent(opi.getContributingComponent(), c -> new ArrayList<>()).add(opi);
             }
-            addOperation(opi);
+            builder.addOperation(opi);
         }
-        opsInitialized = true;
 
         // post process all components to set operations on them
         for (Map.Entry<String, List<OperationInfo>> e : bundleToOperations.entrySet()) {
-            ComponentInfo c = getComponent(e.getKey());
+            ComponentInfo c = builder.getComponent(e.getKey());
             if (c instanceof ComponentInfoImpl) {
                 ((ComponentInfoImpl) c).setOperations(e.getValue());
             }
@@ -412,41 +524,45 @@ public class RuntimeSnapshot extends BaseNuxeoArtifact implements DistributionSn
         }
     }
 
-    protected void addOperation(OperationInfo opi) {
-        this.operations.put(opi.getName(), opi);
-        String opName = opi.getName();
-        List<String> aliases = opi.getAliases();
-        if (aliases != null) {
-            aliases.forEach(a -> this.operationAliases.put(a, opName));
-        }
-    }
-
     @Override
     public OperationInfo getOperation(String id) {
         String finalId = id;
         if (id.startsWith(OperationInfo.ARTIFACT_PREFIX)) {
             finalId = id.substring(OperationInfo.ARTIFACT_PREFIX.length());
         }
-        if (!operations.containsKey(finalId) && operationAliases.containsKey(finalId)) {
-            finalId = operationAliases.get(finalId);
-        }
-        return operations.get(finalId);
+        return index.getOperation(finalId);
     }
 
     @Override
     public List<OperationInfo> getOperations() {
-        initOperations();
-        return new ArrayList<>(operations.values());
+        return index.getOperations();
+    }
+
+    @Override
+    public List<OperationSummary> getOperationSummaries() {
+        return index.getOperationSummaries();
     }
 
     @Override
     public PackageInfo getPackage(String name) {
-        return packages.get(name);
+        return index.getPackage(name);
     }
 
     @Override
     public List<PackageInfo> getPackages() {
-        return Collections.unmodifiableList(new ArrayList<>(packages.values()));
+        return index.getPackages();
+    }
+
+    /**
+     * Returns the object attached to the current state of this snapshot with given name, computing it if needed.
+     * <p>
+     * Attached objects are dropped when the snapshot is updated.
+     *
+     * @since 2023.1
+     */
+    @Override
+    public <T> T getAttachment(String name, Supplier<T> loader) {
+        return index.getAttachment(name, loader);
     }
 
     public JavaDocHelper getJavaDocHelper() {
@@ -539,22 +655,17 @@ public class RuntimeSnapshot extends BaseNuxeoArtifact implements DistributionSn
     }
 
     protected void initPluginSnapshots() {
-        if (pluginSnapshotsInitialized) {
-            return;
-        }
         getPlugins().forEach(plugin -> pluginSnapshots.put(plugin.getId(), plugin.getRuntimeSnapshot(this)));
-        pluginSnapshotsInitialized = true;
     }
 
     @Override
     public Map<String, PluginSnapshot<?>> getPluginSnapshots() {
-        initPluginSnapshots();
         return Collections.unmodifiableMap(pluginSnapshots);
     }
 
     @Override
     public List<BundleInfo> getBundles() {
-        return Collections.unmodifiableList(new ArrayList<>(bundles.values()));
+        return index.getBundles();
     }
 
 }
@@ -0,0 +1,570 @@
+/*
+ * (C) Copyright 2023 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nuxeo.apidoc.introspection;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.nuxeo.apidoc.api.BundleGroup;
+import org.nuxeo.apidoc.api.BundleGroupExtractor;
+import org.nuxeo.apidoc.api.BundleInfo;
+import org.nuxeo.apidoc.api.ComponentInfo;
+import org.nuxeo.apidoc.api.ComponentSummary;
+import org.nuxeo.apidoc.api.ContributionSummary;
+import org.nuxeo.apidoc.api.ExtensionInfo;
+import org.nuxeo.apidoc.api.ExtensionPointInfo;
+import org.nuxeo.apidoc.api.NuxeoArtifactComparator;
+import org.nuxeo.apidoc.api.OperationInfo;
+import org.nuxeo.apidoc.api.OperationSummary;
+import org.nuxeo.apidoc.api.PackageInfo;
+import org.nuxeo.apidoc.api.ServiceInfo;
+
+/**
+ * Immutable indexes of the artifacts of a {@link RuntimeSnapshot}.
+ * <p>
+ * Sorted id lists and other views are computed once at build time and returned as is, so that an index can be shared
+ * by concurrent readers without locking nor copying. Updates are performed by building a new index from a
+ * {@link Builder} initialized with the previous one.
+ * <p>
+ * Artifacts held by an index are not modified once it is built, the builder modifies copies instead. Copies share
+ * their unchanged children with the originals: when building the new index, these children are only made to reference
+ * the copies, so that the object graph reachable from the new index is consistent once it is published.
+ *
+ * @since 2023.1
+ */
+public class RuntimeSnapshotIndex {
+
+    protected final Map<String, BundleInfo> bundles;
+
+    protected final Map<String, String> components2Bundles;
+
+    protected final Map<String, String> componentAliases2Bundles;
+
+    protected final Map<String, String> services2Components;
+
+    protected final Map<String, ExtensionPointInfo> extensionPoints;
+
+    protected final Map<String, ExtensionPointInfo> extensionPointAliases;
+
+    protected final Map<String, ExtensionInfo> contributions;
+
+    protected final List<BundleGroup> parentBundleGroups;
+
+    protected final Map<String, BundleGroup> bundleGroups;
+
+    protected final Map<String, OperationInfo> operations;
+
+    protected final Map<String, String> operationAliases;
+
+    protected final Map<String, PackageInfo> packages;
+
+    // views
+
+    protected final List<String> bundleIds;
+
+    protected final List<BundleInfo> bundleList;
+
+    protected final List<String> componentIds;
+
+    protected final List<ComponentInfo> componentList;
+
+    protected final List<ComponentSummary> componentSummaries;
+
+    protected final List<String> serviceIds;
+
+    protected final List<String> extensionPointIds;
+
+    protected final List<String> contributionIds;
+
+    protected final List<ExtensionInfo> contributionList;
+
+    protected final List<ContributionSummary> contributionSummaries;
+
+    protected final List<OperationInfo> operationList;
+
+    protected final List<OperationSummary> operationSummaries;
+
+    protected final List<PackageInfo> packageList;
+
+    protected final Map<String, Object> attachments = new ConcurrentHashMap<>();
+
+    protected RuntimeSnapshotIndex(Builder builder) {
+        bundles = Collections.unmodifiableMap(new LinkedHashMap<>(builder.bundles));
+        components2Bundles = Collections.unmodifiableMap(new HashMap<>(builder.components2Bundles));
+        componentAliases2Bundles = Collections.unmodifiableMap(new HashMap<>(builder.componentAliases2Bundles));
+        services2Components = Collections.unmodifiableMap(new HashMap<>(builder.services2Components));
+        extensionPoints = Collections.unmodifiableMap(new LinkedHashMap<>(builder.extensionPoints));
+        extensionPointAliases = Collections.unmodifiableMap(new LinkedHashMap<>(builder.extensionPointAliases));
+        contributions = Collections.unmodifiableMap(new LinkedHashMap<>(builder.contributions));
+        parentBundleGroups = builder.parentBundleGroups.stream()
+                                                       .sorted(new NuxeoArtifactComparator())
+                                                       .collect(Collectors.toUnmodifiableList());
+        bundleGroups = Collections.unmodifiableMap(new LinkedHashMap<>(builder.bundleGroups));
+        operations = Collections.unmodifiableMap(new LinkedHashMap<>(builder.operations));
+        operationAliases = Collections.unmodifiableMap(new HashMap<>(builder.operationAliases));
+        packages = Collections.unmodifiableMap(new HashMap<>(builder.packages));
+
+        bundleIds = Collections.unmodifiableList(new ArrayList<>(bundles.keySet()));
+        bundleList = Collections.unmodifiableList(new ArrayList<>(bundles.values()));
+        componentIds = sorted(components2Bundles.keySet());
+        componentList = bundleList.stream()
+                                  .flatMap(b -> b.getComponents().stream())
+                                  .sorted(new NuxeoArtifactComparator())
+                                  .collect(Collectors.toUnmodifiableList());
+        componentSummaries = componentList.stream()
+                                          .map(ComponentSummary::of)
+                                          .sorted(Comparator.comparing(ComponentSummary::getId))
+                                          .collect(Collectors.toUnmodifiableList());
+        serviceIds = sorted(services2Components.keySet());
+        extensionPointIds = sorted(extensionPoints.keySet());
+        contributionIds = sorted(contributions.keySet());
+        contributionList = Collections.unmodifiableList(new ArrayList<>(contributions.values()));
+        contributionSummaries = contributionList.stream()
+                                                .map(ContributionSummary::of)
+                                                .sorted(Comparator.comparing(ContributionSummary::getId))
+                                                .collect(Collectors.toUnmodifiableList());
+        operationList = Collections.unmodifiableList(new ArrayList<>(operations.values()));
+        operationSummaries = operationList.stream()
+                                          .map(OperationSummary::of)
+                                          .collect(Collectors.toUnmodifiableList());
+        packageList = Collections.unmodifiableList(new ArrayList<>(packages.values()));
+    }
+
+    /**
+     * Returns the object attached to this index with given name, computing it if needed.
+     * <p>
+     * Useful to keep any other structure that is derived from the snapshot content, and that should be dropped when
+     * the snapshot is updated. Values are loaded outside of any lock: concurrent loads may happen, only the first
+     * stored value is kept.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getAttachment(String name, Supplier<T> loader) {
+        Object value = attachments.get(name);
+        if (value == null) {
+            value = loader.get();
+            Object previous = attachments.putIfAbsent(name, value);
+            if (previous != null) {
+                value = previous;
+            }
+        }
+        return (T) value;
+    }
+
+    protected static List<String> sorted(Iterable<String> ids) {
+        List<String> res = new ArrayList<>();
+        ids.forEach(res::add);
+        Collections.sort(res);
+        return Collections.unmodifiableList(res);
+    }
+
+    public BundleInfo getBundle(String id) {
+        return bundles.get(id);
+    }
+
+    public ComponentInfo getComponent(String id) {
+        return getComponent(bundles, components2Bundles, componentAliases2Bundles, id);
+    }
+
+    protected static ComponentInfo getComponent(Map<String, BundleInfo> bundles, Map<String, String> components2Bundles,
+            Map<String, String> componentAliases2Bundles, String id) {
+        String bundleId = components2Bundles.getOrDefault(id, componentAliases2Bundles.get(id));
+        if (bundleId == null) {
+            return null;
+        }
+        BundleInfo bi = bundles.get(bundleId);
+        for (ComponentInfo ci : bi.getComponents()) {
+            if (ci.getId().equals(id) || ci.getAliases().contains(id)) {
+                return ci;
+            }
+        }
+        return null;
+    }
+
+    public ServiceInfo getService(String id) {
+        String cId = services2Components.get(id);
+        if (cId == null) {
+            return null;
+        }
+        ComponentInfo component = getComponent(cId);
+        if (component == null) {
+            return null;
+        }
+        for (ServiceInfo si : component.getServices()) {
+            if (id.equals(si.getId())) {
+                return si;
+            }
+        }
+        return null;
+    }
+
+    public ExtensionPointInfo getExtensionPoint(String id) {
+        return extensionPoints.getOrDefault(id, extensionPointAliases.get(id));
+    }
+
+    public ExtensionInfo getContribution(String id) {
+        return contributions.get(id);
+    }
+
+    public BundleGroup getBundleGroup(String id) {
+        return bundleGroups.get(id);
+    }
+
+    public OperationInfo getOperation(String id) {
+        String finalId = id;
+        if (!operations.containsKey(finalId) && operationAliases.containsKey(finalId)) {
+            finalId = operationAliases.get(finalId);
+        }
+        return operations.get(finalId);
+    }
+
+    public PackageInfo getPackage(String name) {
+        return packages.get(name);
+    }
+
+    public List<String> getBundleIds() {
+        return bundleIds;
+    }
+
+    public List<BundleInfo> getBundles() {
+        return bundleList;
+    }
+
+    public List<BundleGroup> getBundleGroups() {
+        return parentBundleGroups;
+    }
+
+    public List<String> getComponentIds() {
+        return componentIds;
+    }
+
+    public List<ComponentInfo> getComponents() {
+        return componentList;
+    }
+
+    public List<ComponentSummary> getComponentSummaries() {
+        return componentSummaries;
+    }
+
+    public List<String> getServiceIds() {
+        return serviceIds;
+    }
+
+    public List<String> getExtensionPointIds() {
+        return extensionPointIds;
+    }
+
+    public List<String> getContributionIds() {
+        return contributionIds;
+    }
+
+    public List<ExtensionInfo> getContributions() {
+        return contributionList;
+    }
+
+    public List<ContributionSummary> getContributionSummaries() {
+        return contributionSummaries;
+    }
+
+    public List<OperationInfo> getOperations() {
+        return operationList;
+    }
+
+    public List<OperationSummary> getOperationSummaries() {
+        return operationSummaries;
+    }
+
+    public List<PackageInfo> getPackages() {
+        return packageList;
+    }
+
+    /**
+     * Mutable indexes, used to build a {@link RuntimeSnapshotIndex}.
+     * <p>
+     * Artifacts held by the index a builder was initialized with are never modified: the {@code getMutable*} methods
+     * replace them by copies first.
+     * <p>
+     * This builder is not thread-safe.
+     */
+    public static class Builder {
+
+        protected final Map<String, BundleInfo> bundles = new LinkedHashMap<>();
+
+        protected final Map<String, String> components2Bundles = new HashMap<>();
+
+        protected final Map<String, String> componentAliases2Bundles = new HashMap<>();
+
+        protected final Map<String, String> services2Components = new HashMap<>();
+
+        protected final Map<String, ExtensionPointInfo> extensionPoints = new LinkedHashMap<>();
+
+        protected final Map<String, ExtensionPointInfo> extensionPointAliases = new LinkedHashMap<>();
+
+        protected final Map<String, ExtensionInfo> contributions = new LinkedHashMap<>();
+
+        protected final List<BundleGroup> parentBundleGroups = new ArrayList<>();
+
+        protected final Map<String, BundleGroup> bundleGroups = new LinkedHashMap<>();
+
+        protected final Map<String, OperationInfo> operations = new LinkedHashMap<>();
+
+        protected final Map<String, String> operationAliases = new HashMap<>();
+
+        protected final Map<String, PackageInfo> packages = new HashMap<>();
+
+        /**
+         * Artifacts created or copied by this builder, that can be modified.
+         *
+         * @since 2023.1
+         */
+        protected final Set<Object> owned = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        public Builder() {
+        }
+
+        /**
+         * Initializes a builder with the content of given index, for updates.
+         */
+        public Builder(RuntimeSnapshotIndex index) {
+            bundles.putAll(index.bundles);
+            components2Bundles.putAll(index.components2Bundles);
+            componentAliases2Bundles.putAll(index.componentAliases2Bundles);
+            services2Components.putAll(index.services2Components);
+            extensionPoints.putAll(index.extensionPoints);
+            extensionPointAliases.putAll(index.extensionPointAliases);
+            contributions.putAll(index.contributions);
+            parentBundleGroups.addAll(index.parentBundleGroups);
+            bundleGroups.putAll(index.bundleGroups);
+            operations.putAll(index.operations);
+            operationAliases.putAll(index.operationAliases);
+            packages.putAll(index.packages);
+        }
+
+        public BundleInfo getBundle(String id) {
+            return bundles.get(id);
+        }
+
+        public void putBundle(BundleInfo bundle) {
+            bundles.put(bundle.getId(), bundle);
+            owned.add(bundle);
+        }
+
+        /**
+         * Returns the bundle with given id, replaced by a copy if it was not created by this builder.
+         *
+         * @since 2023.1
+         */
+        public BundleInfoImpl getMutableBundle(String id) {
+            BundleInfo bundle = bundles.get(id);
+            if (!(bundle instanceof BundleInfoImpl)) {
+                return null;
+            }
+            if (!owned.contains(bundle)) {
+                bundle = ((BundleInfoImpl) bundle).copy();
+                putBundle(bundle);
+            }
+            return (BundleInfoImpl) bundle;
+        }
+
+        /**
+         * Returns the extension point with given id or alias, replaced by a copy if it was not created by this
+         * builder.
+         * <p>
+         * The component holding it is replaced by a copy, along with its bundle.
+         *
+         * @since 2023.1
+         */
+        public ExtensionPointInfoImpl getMutableExtensionPoint(String id) {
+            ExtensionPointInfo xp = getExtensionPoint(id);
+            if (!(xp instanceof ExtensionPointInfoImpl)) {
+                return null;
+            }
+            if (owned.contains(xp)) {
+                return (ExtensionPointInfoImpl) xp;
+            }
+            ComponentInfo component = getComponent(xp.getComponentId());
+            String bid = component == null ? null : components2Bundles.get(component.getId());
+            BundleInfoImpl bundle = bid == null ? null : getMutableBundle(bid);
+            if (!(component instanceof ComponentInfoImpl) || bundle == null) {
+                return null;
+            }
+            ComponentInfoImpl copy = ((ComponentInfoImpl) component).copy(bundle);
+            bundle.replaceComponent(component, copy);
+            indexComponent(bid, copy);
+            return (ExtensionPointInfoImpl) getExtensionPoint(id);
+        }
+
+        public Map<String, BundleInfo> getBundles() {
+            return Collections.unmodifiableMap(bundles);
+        }
+
+        public String getComponentBundleId(String componentId) {
+            return components2Bundles.get(componentId);
+        }
+
+        public ComponentInfo getComponent(String id) {
+            return RuntimeSnapshotIndex.getComponent(bundles, components2Bundles, componentAliases2Bundles, id);
+        }
+
+        public ExtensionPointInfo getExtensionPoint(String id) {
+            return extensionPoints.getOrDefault(id, extensionPointAliases.get(id));
+        }
+
+        public List<ExtensionInfo> getContributions() {
+            return new ArrayList<>(contributions.values());
+        }
+
+        /**
+         * Indexes given component and its artifacts, under given bundle.
+         * <p>
+         * Since 2023.1, the component and its extension points are considered as created by this builder.
+         */
+        public void indexComponent(String bid, ComponentInfo cInfo) {
+            owned.add(cInfo);
+            owned.addAll(cInfo.getExtensionPoints());
+            String cid = cInfo.getId();
+            components2Bundles.put(cid, bid);
+            cInfo.getAliases().forEach(a -> componentAliases2Bundles.put(a, bid));
+
+            for (ServiceInfo sInfo : cInfo.getServices()) {
+                if (sInfo.isOverriden()) {
+                    continue;
+                }
+                services2Components.put(sInfo.getId(), cid);
+            }
+
+            for (ExtensionPointInfo epi : cInfo.getExtensionPoints()) {
+                extensionPoints.put(epi.getId(), epi);
+                epi.getAliases().forEach(a -> extensionPointAliases.put(a, epi));
+            }
+
+            for (ExtensionInfo ei : cInfo.getExtensions()) {
+                contributions.put(ei.getId(), ei);
+            }
+        }
+
+        /**
+         * Removes given component and its artifacts from indexes.
+         */
+        public void unindexComponent(ComponentInfo cInfo) {
+            String cid = cInfo.getId();
+            components2Bundles.remove(cid);
+            cInfo.getAliases().forEach(componentAliases2Bundles::remove);
+            services2Components.values().removeIf(cid::equals);
+            for (ExtensionPointInfo epi : cInfo.getExtensionPoints()) {
+                extensionPoints.remove(epi.getId());
+                epi.getAliases().forEach(extensionPointAliases::remove);
+            }
+            for (ExtensionInfo ei : cInfo.getExtensions()) {
+                contributions.remove(ei.getId());
+            }
+        }
+
+        /**
+         * Computes bundle groups from indexed bundles.
+         */
+        public void indexBundleGroups(String version) {
+            // bundles reference their group
+            new ArrayList<>(bundles.keySet()).forEach(this::getMutableBundle);
+            parentBundleGroups.clear();
+            bundleGroups.clear();
+            BundleGroupExtractor bge = new BundleGroupExtractor(bundles, version);
+            parentBundleGroups.addAll(bge.getRoots());
+            bundleGroups.putAll(bge.getGroups());
+        }
+
+        /**
+         * Indexes given bundle groups and their sub groups, instead of computing them from indexed bundles.
+         *
+         * @since 2023.1
+         */
+        public void indexBundleGroups(List<BundleGroup> roots) {
+            parentBundleGroups.clear();
+            bundleGroups.clear();
+            parentBundleGroups.addAll(roots);
+            roots.forEach(this::indexBundleGroup);
+        }
+
+        protected void indexBundleGroup(BundleGroup group) {
+            bundleGroups.put(group.getId(), group);
+            group.getSubGroups().forEach(this::indexBundleGroup);
+        }
+
+        public void addOperation(OperationInfo opi) {
+            String opName = opi.getName();
+            operations.put(opName, opi);
+            List<String> aliases = opi.getAliases();
+            if (aliases != null) {
+                aliases.forEach(a -> operationAliases.put(a, opName));
+            }
+        }
+
+        public void addPackage(PackageInfo pkg) {
+            packages.put(pkg.getName(), pkg);
+            owned.add(pkg);
+        }
+
+        /**
+         * Returns the package with given name, replaced by a copy if it was not created by this builder.
+         *
+         * @since 2023.1
+         */
+        public PackageInfoImpl getMutablePackage(String name) {
+            PackageInfo pkg = packages.get(name);
+            if (!(pkg instanceof PackageInfoImpl)) {
+                return null;
+            }
+            if (!owned.contains(pkg)) {
+                pkg = ((PackageInfoImpl) pkg).copy();
+                addPackage(pkg);
+            }
+            return (PackageInfoImpl) pkg;
+        }
+
+        /**
+         * Builds the index.
+         * <p>
+         * Since 2023.1, the artifacts held by bundles and components created or copied by this builder are made to
+         * reference them first, as copies share their unchanged artifacts with the originals.
+         */
+        public RuntimeSnapshotIndex build() {
+            for (Object artifact : owned) {
+                if (artifact instanceof BundleInfoImpl) {
+                    BundleInfoImpl bundle = (BundleInfoImpl) artifact;
+                    for (ComponentInfo component : bundle.getComponents()) {
+                        if (component instanceof ComponentInfoImpl) {
+                            ((ComponentInfoImpl) component).reparent(bundle);
+                        }
+                    }
+                } else if (artifact instanceof ComponentInfoImpl) {
+                    ((ComponentInfoImpl) artifact).reparentChildren();
+                }
+            }
+            return new RuntimeSnapshotIndex(this);
+        }
+
+    }
+
+}
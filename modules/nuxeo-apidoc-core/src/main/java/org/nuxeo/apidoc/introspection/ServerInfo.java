@@ -32,18 +32,21 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
-import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.PropertyResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.jar.Attributes;
 import java.util.jar.Manifest;
 import java.util.stream.Collectors;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -81,6 +84,7 @@ import org.nuxeo.runtime.model.ComponentName;
 import org.nuxeo.runtime.model.Extension;
 import org.nuxeo.runtime.model.ExtensionPoint;
 import org.nuxeo.runtime.model.RegistrationInfo;
+import org.nuxeo.runtime.services.config.ConfigurationService;
 import org.osgi.framework.Bundle;
 import org.w3c.dom.Document;
 import org.xml.sax.SAXException;
@@ -145,6 +149,77 @@ public class ServerInfo {
 
     protected static final XPathFactory xpathFactory = XPathFactory.newInstance();
 
+    /**
+     * Property controlling the number of threads used to extract bundles metadata from jars when building the server
+     * information, defaulting to the number of available processors if lower than 1. Metadata is extracted in the
+     * calling thread if equal to 1.
+     *
+     * @since 2023.1
+     */
+    public static final String PROPERTY_INTROSPECTION_THREADS = "org.nuxeo.apidoc.introspection.threads";
+
+    /** @since 2023.1 */
+    public static final int DEFAULT_INTROSPECTION_THREADS = 0;
+
+    /**
+     * Extracts the bundle manifest and requirements.
+     *
+     * @since 2023.1
+     */
+    protected static final JarScanner.EntryExtractor MANIFEST_EXTRACTOR = new JarScanner.EntryExtractor() {
+
+        @Override
+        public boolean accept(ZipEntry entry, BundleInfoImpl binfo) {
+            return META_INF_MANIFEST_MF.equals(entry.getName());
+        }
+
+        @Override
+        public void extract(ZipEntry entry, InputStream is, BundleInfoImpl binfo) throws IOException {
+            String mf = IOUtils.toString(is, StandardCharsets.UTF_8);
+            binfo.setManifest(mf);
+            binfo.setRequirements(getBundleRequires(mf));
+        }
+
+        @Override
+        public boolean isDone(BundleInfoImpl binfo) {
+            return binfo.getManifest() != null;
+        }
+    };
+
+    /**
+     * Extracts the bundle maven coordinates from the first pom.properties entry.
+     *
+     * @since 2023.1
+     */
+    protected static final JarScanner.EntryExtractor POM_PROPERTIES_EXTRACTOR = new JarScanner.EntryExtractor() {
+
+        @Override
+        public boolean accept(ZipEntry entry, BundleInfoImpl binfo) {
+            return !isDone(binfo) && entry.getName().endsWith(POM_PROPERTIES);
+        }
+
+        @Override
+        public void extract(ZipEntry entry, InputStream is, BundleInfoImpl binfo) throws IOException {
+            PropertyResourceBundle prb = new PropertyResourceBundle(is);
+            binfo.setArtifactId(prb.getString("artifactId"));
+            binfo.setGroupId(prb.getString("groupId"));
+            binfo.setArtifactVersion(prb.getString("version"));
+        }
+
+        @Override
+        public boolean isDone(BundleInfoImpl binfo) {
+            return binfo.getArtifactId() != null;
+        }
+    };
+
+    /**
+     * Reads manifest, maven coordinates and readmes in a single pass over jar entries.
+     *
+     * @since 2023.1
+     */
+    protected static final JarScanner JAR_SCANNER = new JarScanner(
+            List.of(MANIFEST_EXTRACTOR, POM_PROPERTIES_EXTRACTOR, EmbeddedDocExtractor.README_EXTRACTOR));
+
     protected final String name;
 
     protected final String version;
@@ -247,11 +322,45 @@ public class ServerInfo {
                 computeDependencies(pkg.getOptionalDependencies()), computeDependencies(pkg.getConflicts()));
     }
 
+    /**
+     * Computes information of installed packages, filling given map with the packages holding each bundle.
+     *
+     * @since 2023.1
+     */
+    protected static List<PackageInfoImpl> computePackageInfos(Map<String, List<LocalPackage>> pkgByBundle) {
+        List<PackageInfoImpl> res = new ArrayList<>();
+        PackageManager pman = Framework.getService(PackageManager.class);
+        PackageUpdateService pus = Framework.getService(PackageUpdateService.class);
+        if (pman != null) {
+            List<DownloadablePackage> installedPackages = pman.listInstalledPackages();
+            installedPackages.stream().map(DownloadablePackage::getId).map(packId -> {
+                try {
+                    return pus.getPackage(packId);
+                } catch (PackageException e) {
+                    return null;
+                }
+            }).filter(Objects::nonNull).forEach(pkg -> {
+                res.add(computePackageInfo(pkg, pkgByBundle));
+            });
+        }
+        return res;
+    }
+
     protected static List<String> computeDependencies(PackageDependency[] deps) {
         return Arrays.stream(deps).map(PackageDependency::toString).collect(Collectors.toList());
     }
 
     protected static BundleInfoImpl computeBundleInfo(Bundle bundle, Map<String, List<LocalPackage>> pkgByBundle) {
+        return computeBundleInfo(bundle, pkgByBundle, null);
+    }
+
+    /**
+     * Computes information of given bundle, reading jar metadata from given cache when not null.
+     *
+     * @since 2023.1
+     */
+    protected static BundleInfoImpl computeBundleInfo(Bundle bundle, Map<String, List<LocalPackage>> pkgByBundle,
+            BundleInfoCache cache) {
         RuntimeService runtime = Framework.getRuntime();
         BundleInfoImpl binfo = new BundleInfoImpl(bundle.getSymbolicName());
         binfo.setFileName(runtime.getBundleFile(bundle).getName());
@@ -281,9 +390,16 @@ public class ServerInfo {
                 // find and parse pom.xml
                 File pom = EmbeddedDocExtractor.findFile(jarFile, POM_XML);
                 if (pom != null) {
-                    DocumentBuilder b = documentBuilderFactory.newDocumentBuilder();
+                    DocumentBuilder b;
+                    XPath xpath;
+                    // factories are not thread-safe, and bundles may be computed in parallel
+                    synchronized (documentBuilderFactory) {
+                        b = documentBuilderFactory.newDocumentBuilder();
+                    }
+                    synchronized (xpathFactory) {
+                        xpath = xpathFactory.newXPath();
+                    }
                     Document doc = b.parse(new FileInputStream(pom));
-                    XPath xpath = xpathFactory.newXPath();
                     String groupId = (String) xpath.evaluate("//project/groupId", doc, XPathConstants.STRING);
                     if ("".equals(groupId)) {
                         groupId = (String) xpath.evaluate("//project/parent/groupId", doc, XPathConstants.STRING);
@@ -302,36 +418,10 @@ public class ServerInfo {
                 }
                 // find READMEs to mimick maven behavior in eclipse tests
                 EmbeddedDocExtractor.extractEmbeddedDoc(jarFile, binfo);
-            } else {
-                try (ZipFile zFile = new ZipFile(jarFile)) {
-                    ZipEntry mfEntry = zFile.getEntry(META_INF_MANIFEST_MF);
-                    if (mfEntry != null) {
-                        try (InputStream mfStream = zFile.getInputStream(mfEntry)) {
-                            String mf = IOUtils.toString(mfStream, StandardCharsets.UTF_8);
-                            binfo.setManifest(mf);
-                            binfo.setRequirements(getBundleRequires(mf));
-                        }
-
-                    }
-                    Enumeration<? extends ZipEntry> entries = zFile.entries();
-                    while (entries.hasMoreElements()) {
-                        ZipEntry entry = entries.nextElement();
-                        if (entry.getName().endsWith(POM_PROPERTIES)) {
-                            try (InputStream is = zFile.getInputStream(entry)) {
-                                PropertyResourceBundle prb = new PropertyResourceBundle(is);
-                                String groupId = prb.getString("groupId");
-                                String artifactId = prb.getString("artifactId");
-                                String version = prb.getString("version");
-                                binfo.setArtifactId(artifactId);
-                                binfo.setGroupId(groupId);
-                                binfo.setArtifactVersion(version);
-                            }
-                            break;
-                        }
-                    }
-                }
-                try (ZipFile zFile = new ZipFile(jarFile)) {
-                    EmbeddedDocExtractor.extractEmbeddedDoc(zFile, binfo);
+            } else if (cache == null || !cache.fill(jarFile, binfo)) {
+                JAR_SCANNER.scan(jarFile, binfo);
+                if (cache != null) {
+                    cache.put(jarFile, binfo);
                 }
             }
         } catch (IOException | ParserConfigurationException | SAXException | XPathException | NuxeoException e) {
@@ -348,6 +438,48 @@ public class ServerInfo {
         return binfo;
     }
 
+    /**
+     * Computes information of given bundles in parallel, according to {@link #PROPERTY_INTROSPECTION_THREADS}, and
+     * returns it by bundle symbolic name.
+     * <p>
+     * Bundles without symbolic name are ignored, and only the first bundle is computed for a given symbolic name.
+     *
+     * @since 2023.1
+     */
+    protected static Map<String, BundleInfoImpl> computeBundleInfos(Bundle[] bundles,
+            Map<String, List<LocalPackage>> pkgByBundle, BundleInfoCache cache) {
+        Map<String, Bundle> bundlesByName = new LinkedHashMap<>();
+        for (Bundle bundle : bundles) {
+            if (bundle.getSymbolicName() != null) {
+                bundlesByName.putIfAbsent(bundle.getSymbolicName(), bundle);
+            }
+        }
+        int nbThreads = Framework.getService(ConfigurationService.class)
+                                 .getInteger(PROPERTY_INTROSPECTION_THREADS, DEFAULT_INTROSPECTION_THREADS);
+        if (nbThreads < 1) {
+            nbThreads = Runtime.getRuntime().availableProcessors();
+        }
+        Map<String, BundleInfoImpl> res = new ConcurrentHashMap<>();
+        Consumer<Bundle> compute = bundle -> res.put(bundle.getSymbolicName(),
+                computeBundleInfo(bundle, pkgByBundle, cache));
+        if (nbThreads == 1) {
+            bundlesByName.values().forEach(compute);
+            return res;
+        }
+        ForkJoinPool pool = new ForkJoinPool(nbThreads);
+        try {
+            pool.submit(() -> bundlesByName.values().parallelStream().forEach(compute)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new NuxeoException(e);
+        } catch (ExecutionException e) {
+            throw new NuxeoException("Failed to compute bundles information", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        return res;
+    }
+
     /**
      * Retrieve bundle name from manifest.
      *
@@ -424,20 +556,12 @@ public class ServerInfo {
 
         // get package link with bundles
         Map<String, List<LocalPackage>> pkgByBundle = new HashMap<>();
-        PackageManager pman = Framework.getService(PackageManager.class);
-        PackageUpdateService pus = Framework.getService(PackageUpdateService.class);
-        if (pman != null) {
-            List<DownloadablePackage> installedPackages = pman.listInstalledPackages();
-            installedPackages.stream().map(DownloadablePackage::getId).map(packId -> {
-                try {
-                    return pus.getPackage(packId);
-                } catch (PackageException e) {
-                    return null;
-                }
-            }).filter(Objects::nonNull).forEach(pkg -> {
-                server.addPackage(computePackageInfo(pkg, pkgByBundle));
-            });
-        }
+        computePackageInfos(pkgByBundle).forEach(server::addPackage);
+
+        // jar metadata is extracted upfront, in parallel, unless cached from a previous build
+        BundleInfoCache cache = BundleInfoCache.load();
+        Bundle[] allbundles = runtime.getContext().getBundle().getBundleContext().getBundles();
+        Map<String, BundleInfoImpl> bundleInfos = computeBundleInfos(allbundles, pkgByBundle, cache);
 
         Map<String, ExtensionPointInfoImpl> xpRegistry = new HashMap<>();
         List<ExtensionInfoImpl> contribRegistry = new ArrayList<>();
@@ -464,76 +588,15 @@ public class ServerInfo {
                 // avoids duplicating/overriding the bundles
                 if (server.bundles.containsKey(bundle.getSymbolicName())) {
                     binfo = (BundleInfoImpl) server.bundles.get(bundle.getSymbolicName());
+                } else if (bundleInfos.containsKey(symName)) {
+                    binfo = bundleInfos.get(symName);
                 } else {
-                    binfo = computeBundleInfo(bundle, pkgByBundle);
-                }
-            }
-
-            ComponentInfoImpl component = new ComponentInfoImpl(binfo, cname.getName());
-            component.setResolutionOrder(resolutionOrder++);
-            // set additional orders from snapshot listener
-            component.setDeclaredStartOrder(snapshotListener.getDeclaredStartOrder(cname.getName()));
-            component.setStartOrder(snapshotListener.getStartOrder(cname.getName()));
-            component.setAliases(ri.getAliases().stream().map(ComponentName::getName).collect(Collectors.toList()));
-
-            if (ri.getExtensionPoints() != null) {
-                for (ExtensionPoint xp : ri.getExtensionPoints()) {
-                    ExtensionPointInfoImpl xpinfo = new ExtensionPointInfoImpl(component, xp.getName());
-                    Class<?>[] ctypes = xp.getContributions();
-                    String[] descriptors = new String[ctypes.length];
-
-                    for (int i = 0; i < ctypes.length; i++) {
-                        descriptors[i] = ctypes[i].getCanonicalName();
-                        List<Class<?>> spi = getSPI(ctypes[i]);
-                        xpinfo.addSpi(spi);
-                        server.allSpi.addAll(spi);
-                    }
-                    xpinfo.setDescriptors(descriptors);
-                    xpinfo.setDocumentation(xp.getDocumentation());
-                    xpinfo.setAliases(ri.getAliases()
-                                        .stream()
-                                        .map(ComponentName::getName)
-                                        .map(a -> ExtensionPointInfo.computeId(a, xp.getName()))
-                                        .collect(Collectors.toList()));
-                    xpRegistry.put(xpinfo.getId(), xpinfo);
-                    xpinfo.getAliases().forEach(a -> xpRegistry.put(a, xpinfo));
-                    component.addExtensionPoint(xpinfo);
+                    binfo = computeBundleInfo(bundle, pkgByBundle, cache);
                 }
             }
 
-            component.setXmlFileUrl(ri.getXmlFileUrl());
-
-            if (ri.getProvidedServiceNames() != null) {
-                for (String serviceName : ri.getProvidedServiceNames()) {
-                    component.addService(serviceName, isServiceOverriden(ri, serviceName));
-                }
-            }
-
-            if (ri.getExtensions() != null) {
-                Map<String, AtomicLong> comps = new HashMap<>();
-                for (Extension xt : ri.getExtensions()) {
-                    // handle multiple contributions to the same extension point
-                    String id = xt.getExtensionPoint();
-                    comps.computeIfAbsent(id, k -> new AtomicLong(-1)).incrementAndGet();
-                    ExtensionInfoImpl xtinfo = new ExtensionInfoImpl(component, xt.getExtensionPoint(),
-                            comps.get(id).get());
-                    xtinfo.setTargetComponentName(xt.getTargetComponent());
-                    xtinfo.setDocumentation(xt.getDocumentation());
-                    xtinfo.setXml(SecureXMLHelper.secure(xt.toXML()));
-                    // set additional order from snapshot listener
-                    xtinfo.setRegistrationOrder(snapshotListener.getExtensionRegistrationOrder(xtinfo.getId()));
-
-                    contribRegistry.add(xtinfo);
-
-                    component.addExtension(xtinfo);
-                }
-            }
-
-            component.setComponentClass(ri.getImplementation());
-            component.setDocumentation(ri.getDocumentation());
-
-            ri.getRequiredComponents().forEach(req -> component.addRequirement(req.getName()));
-
+            ComponentInfoImpl component = computeComponentInfo(ri, binfo, resolutionOrder++, snapshotListener,
+                    xpRegistry, contribRegistry, server.allSpi);
             binfo.addComponent(component);
             server.addBundle(binfo);
         }
@@ -542,11 +605,11 @@ public class ServerInfo {
         // - register bundles that contain no components
         // - set the bundle min and max resolution orders as held by the runtime context
         // - try to match the bundle to a package
-        Bundle[] allbundles = runtime.getContext().getBundle().getBundleContext().getBundles();
         for (Bundle bundle : allbundles) {
             BundleInfo bi;
             if (!server.bundles.containsKey(bundle.getSymbolicName())) {
-                bi = computeBundleInfo(bundle, pkgByBundle);
+                bi = bundleInfos.containsKey(bundle.getSymbolicName()) ? bundleInfos.get(bundle.getSymbolicName())
+                        : computeBundleInfo(bundle, pkgByBundle, cache);
                 server.addBundle(bi);
             } else {
                 bi = server.bundles.get(bundle.getSymbolicName());
@@ -574,9 +637,93 @@ public class ServerInfo {
             }
         }
 
+        if (cache != null) {
+            cache.save();
+        }
+
         return server;
     }
 
+    /**
+     * Computes information of given resolved registration, held by given bundle.
+     * <p>
+     * Extension points and contributions of the component are added to given registries, so that contributions can be
+     * associated to their target extension point once all components are computed.
+     *
+     * @since 2023.1
+     */
+    protected static ComponentInfoImpl computeComponentInfo(RegistrationInfo ri, BundleInfoImpl binfo,
+            long resolutionOrder, SnapshotListener snapshotListener, Map<String, ExtensionPointInfoImpl> xpRegistry,
+            List<ExtensionInfoImpl> contribRegistry, List<Class<?>> allSpi) {
+        String name = ri.getName().getName();
+        ComponentInfoImpl component = new ComponentInfoImpl(binfo, name);
+        component.setResolutionOrder(resolutionOrder);
+        // set additional orders from snapshot listener
+        component.setDeclaredStartOrder(snapshotListener.getDeclaredStartOrder(name));
+        component.setStartOrder(snapshotListener.getStartOrder(name));
+        component.setAliases(ri.getAliases().stream().map(ComponentName::getName).collect(Collectors.toList()));
+
+        if (ri.getExtensionPoints() != null) {
+            for (ExtensionPoint xp : ri.getExtensionPoints()) {
+                ExtensionPointInfoImpl xpinfo = new ExtensionPointInfoImpl(component, xp.getName());
+                Class<?>[] ctypes = xp.getContributions();
+                String[] descriptors = new String[ctypes.length];
+
+                for (int i = 0; i < ctypes.length; i++) {
+                    descriptors[i] = ctypes[i].getCanonicalName();
+                    List<Class<?>> spi = getSPI(ctypes[i]);
+                    xpinfo.addSpi(spi);
+                    allSpi.addAll(spi);
+                }
+                xpinfo.setDescriptors(descriptors);
+                xpinfo.setDocumentation(xp.getDocumentation());
+                xpinfo.setAliases(ri.getAliases()
+                                    .stream()
+                                    .map(ComponentName::getName)
+                                    .map(a -> ExtensionPointInfo.computeId(a, xp.getName()))
+                                    .collect(Collectors.toList()));
+                xpRegistry.put(xpinfo.getId(), xpinfo);
+                xpinfo.getAliases().forEach(a -> xpRegistry.put(a, xpinfo));
+                component.addExtensionPoint(xpinfo);
+            }
+        }
+
+        component.setXmlFileUrl(ri.getXmlFileUrl());
+
+        if (ri.getProvidedServiceNames() != null) {
+            for (String serviceName : ri.getProvidedServiceNames()) {
+                component.addService(serviceName, isServiceOverriden(ri, serviceName));
+            }
+        }
+
+        if (ri.getExtensions() != null) {
+            Map<String, AtomicLong> comps = new HashMap<>();
+            for (Extension xt : ri.getExtensions()) {
+                // handle multiple contributions to the same extension point
+                String id = xt.getExtensionPoint();
+                comps.computeIfAbsent(id, k -> new AtomicLong(-1)).incrementAndGet();
+                ExtensionInfoImpl xtinfo = new ExtensionInfoImpl(component, xt.getExtensionPoint(),
+                        comps.get(id).get());
+                xtinfo.setTargetComponentName(xt.getTargetComponent());
+                xtinfo.setDocumentation(xt.getDocumentation());
+                xtinfo.setXml(SecureXMLHelper.secure(xt.toXML()));
+                // set additional order from snapshot listener
+                xtinfo.setRegistrationOrder(snapshotListener.getExtensionRegistrationOrder(xtinfo.getId()));
+
+                contribRegistry.add(xtinfo);
+
+                component.addExtension(xtinfo);
+            }
+        }
+
+        component.setComponentClass(ri.getImplementation());
+        component.setDocumentation(ri.getDocumentation());
+
+        ri.getRequiredComponents().forEach(req -> component.addRequirement(req.getName()));
+
+        return component;
+    }
+
     protected static boolean isServiceOverriden(RegistrationInfo ri, String serviceName) {
         try {
             Class<?> typeof = Class.forName(serviceName);
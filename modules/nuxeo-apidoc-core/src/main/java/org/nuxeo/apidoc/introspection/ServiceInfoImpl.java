@@ -31,7 +31,7 @@ public class ServiceInfoImpl extends BaseNuxeoArtifact implements ServiceInfo {
     @JsonProperty("id")
     protected final String serviceClassName;
 
-    protected final ComponentInfo component;
+    protected ComponentInfo component;
 
     protected final boolean overriden;
 
@@ -58,6 +58,15 @@ public class ServiceInfoImpl extends BaseNuxeoArtifact implements ServiceInfo {
         return TYPE_NAME;
     }
 
+    /**
+     * Makes this service reference given component, see {@link RuntimeSnapshotIndex.Builder#build()}.
+     *
+     * @since 2023.1
+     */
+    protected void reparent(ComponentInfo component) {
+        this.component = component;
+    }
+
     @Override
     public ComponentInfo getComponent() {
         return component;
@@ -21,44 +21,55 @@ package org.nuxeo.apidoc.listener;
 
 import static org.nuxeo.apidoc.listener.AttributesExtractorStater.DOC_TYPES;
 
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 import org.nuxeo.apidoc.worker.ExtractXmlAttributesWorker;
 import org.nuxeo.ecm.core.api.DocumentModel;
 import org.nuxeo.ecm.core.event.Event;
-import org.nuxeo.ecm.core.event.EventListener;
+import org.nuxeo.ecm.core.event.EventBundle;
+import org.nuxeo.ecm.core.event.PostCommitEventListener;
 import org.nuxeo.ecm.core.event.impl.DocumentEventContext;
-import org.nuxeo.ecm.core.work.api.Work;
-import org.nuxeo.ecm.core.work.api.WorkManager;
-import org.nuxeo.runtime.api.Framework;
 
 /**
  * Listener that trigger a Worker to extract XML Attributes and store them in a property that will be indexed.
+ * <p>
+ * Since 2023.1, documents of a committed event bundle are batched in as few works as possible: importing a
+ * distribution does not schedule a work per artifact anymore.
  *
  * @author <a href="mailto:ak@nuxeo.com">Arnaud Kervern</a>
  * @since 8.3
  */
-public class AttributesExtractorScheduler implements EventListener {
+public class AttributesExtractorScheduler implements PostCommitEventListener {
 
     public static final String EXTRACT_XML_ATTRIBUTES_NEEDED = "extractXmlAttributesNeeded";
 
     @Override
-    public void handleEvent(Event event) {
-        if (!(event.getContext() instanceof DocumentEventContext)) {
-            return;
-        }
+    public void handleEvent(EventBundle events) {
+        // documents by repository and user
+        Map<List<String>, Set<String>> batches = new LinkedHashMap<>();
+        for (Event event : events) {
+            if (!(event.getContext() instanceof DocumentEventContext)) {
+                continue;
+            }
 
-        DocumentEventContext ctx = (DocumentEventContext) event.getContext();
-        DocumentModel doc = ctx.getSourceDocument();
-        if (!DOC_TYPES.contains(doc.getType())) {
-            return;
-        }
+            DocumentEventContext ctx = (DocumentEventContext) event.getContext();
+            DocumentModel doc = ctx.getSourceDocument();
+            if (doc == null || !DOC_TYPES.contains(doc.getType())) {
+                continue;
+            }
 
-        Boolean flag = (Boolean) ctx.getProperty(EXTRACT_XML_ATTRIBUTES_NEEDED);
-        if (!Boolean.TRUE.equals(flag)) {
-            return;
-        }
+            Boolean flag = (Boolean) ctx.getProperty(EXTRACT_XML_ATTRIBUTES_NEEDED);
+            if (!Boolean.TRUE.equals(flag)) {
+                continue;
+            }
 
-        Work worker = new ExtractXmlAttributesWorker(ctx.getRepositoryName(), ctx.getPrincipal().getName(),
-                doc.getId());
-        Framework.getService(WorkManager.class).schedule(worker, true);
+            batches.computeIfAbsent(List.of(ctx.getRepositoryName(), ctx.getPrincipal().getName()),
+                    k -> new LinkedHashSet<>()).add(doc.getId());
+        }
+        batches.forEach((key, docIds) -> ExtractXmlAttributesWorker.schedule(key.get(0), key.get(1), docIds));
     }
 }
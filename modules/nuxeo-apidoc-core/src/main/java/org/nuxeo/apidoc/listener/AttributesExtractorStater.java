@@ -38,6 +38,9 @@ import org.nuxeo.ecm.core.event.impl.DocumentEventContext;
 /**
  * Listener triggered on "aboutTo*" events to let the other listener {@link AttributesExtractorScheduler} to trigger a
  * work when the blob is ready to be extracted.
+ * <p>
+ * Since 2023.1, attributes are extracted inline when persisting a distribution, so that this work is only needed for
+ * documents holding a blob without attributes, like the ones imported from a previous version.
  *
  * @author <a href="mailto:ak@nuxeo.com">Arnaud Kervern</a>
  * @since 8.3
@@ -61,9 +64,10 @@ public class AttributesExtractorStater implements EventListener {
         }
 
         Property fileProperty = doc.getProperty(NuxeoArtifact.CONTENT_PROPERTY_PATH);
+        Property attributesProperty = doc.getProperty(ATTRIBUTES_PROPERTY);
         // Handling "migration case", when a blob is present but without any
         // attributes.
-        boolean force = fileProperty.getValue() != null && doc.getPropertyValue(ATTRIBUTES_PROPERTY) == null;
+        boolean force = fileProperty.getValue() != null && attributesProperty.getValue() == null;
         if (!(force || fileProperty.isDirty() || ABOUT_TO_CREATE.equals(event.getName()))) {
             return;
         }
@@ -71,6 +75,9 @@ public class AttributesExtractorStater implements EventListener {
         Blob blob = (Blob) fileProperty.getValue();
         if (blob == null) {
             doc.setPropertyValue(ATTRIBUTES_PROPERTY, null);
+        } else if (attributesProperty.isDirty() && attributesProperty.getValue() != null) {
+            // attributes were extracted along with the blob, when persisting a distribution: nothing to do
+            return;
         } else {
             // Property will be read by
             // org.nuxeo.apidoc.listener.AttributeExtractorWorkerListener to
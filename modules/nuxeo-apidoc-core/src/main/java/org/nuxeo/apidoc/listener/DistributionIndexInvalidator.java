@@ -0,0 +1,59 @@
+/*
+ * (C) Copyright 2023 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nuxeo.apidoc.listener;
+
+import static org.nuxeo.apidoc.snapshot.DistributionSnapshot.TYPE_NAME;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.nuxeo.apidoc.snapshot.SnapshotManager;
+import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.event.Event;
+import org.nuxeo.ecm.core.event.EventBundle;
+import org.nuxeo.ecm.core.event.PostCommitEventListener;
+import org.nuxeo.ecm.core.event.impl.DocumentEventContext;
+import org.nuxeo.runtime.api.Framework;
+
+/**
+ * Listener dropping the index of distributions on all cluster nodes, once their creation, update or removal is
+ * committed.
+ * <p>
+ * Indexes are also checked against the distribution document change token, which handles updates that are not
+ * committed yet: this listener mostly releases memory early, and resets cached resolutions of distribution keys and
+ * aliases.
+ *
+ * @since 2023.1
+ */
+public class DistributionIndexInvalidator implements PostCommitEventListener {
+
+    @Override
+    public void handleEvent(EventBundle events) {
+        Set<String> docIds = new LinkedHashSet<>();
+        for (Event event : events) {
+            if (!(event.getContext() instanceof DocumentEventContext)) {
+                continue;
+            }
+            DocumentModel doc = ((DocumentEventContext) event.getContext()).getSourceDocument();
+            if (doc != null && doc.getId() != null && TYPE_NAME.equals(doc.getType())) {
+                docIds.add(doc.getId());
+            }
+        }
+        SnapshotManager snapshotManager = Framework.getService(SnapshotManager.class);
+        docIds.forEach(snapshotManager::invalidateDistributionIndex);
+    }
+
+}
@@ -0,0 +1,182 @@
+/*
+ * (C) Copyright 2023 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nuxeo.apidoc.repository;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.nuxeo.apidoc.api.QueryHelper;
+import org.nuxeo.common.utils.Path;
+import org.nuxeo.ecm.core.api.CoreSession;
+import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.api.DocumentRef;
+import org.nuxeo.ecm.core.api.IdRef;
+import org.nuxeo.ecm.core.api.IterableQueryResult;
+import org.nuxeo.ecm.core.io.ExportedDocument;
+import org.nuxeo.ecm.core.io.impl.ExportedDocumentImpl;
+import org.nuxeo.ecm.core.io.impl.plugins.NuxeoArchiveWriter;
+import org.nuxeo.ecm.core.query.QueryFilter;
+import org.nuxeo.ecm.core.query.sql.NXQL;
+import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.services.config.ConfigurationService;
+
+/**
+ * Exports a persisted distribution as a Nuxeo archive, written to the given stream as it is produced.
+ * <p>
+ * The document tree is walked level by level, each level being queried by pages of {@link #PROPERTY_PAGE_SIZE} parent
+ * documents, so that parents are always written before their children. If {@link #PROPERTY_PARALLEL_THREADS} is set,
+ * each page of documents is converted by {@link ParallelTasks}, and written in order by the calling thread: the current
+ * transaction is left untouched, so only committed documents are exported in this case.
+ *
+ * @since 2023.1
+ */
+public class ArchiveSnapshotExporter {
+
+    private static final Logger log = LogManager.getLogger(ArchiveSnapshotExporter.class);
+
+    /**
+     * Property controlling the number of threads converting documents, documents are converted in the calling thread
+     * if lower than 2 (default).
+     */
+    public static final String PROPERTY_PARALLEL_THREADS = "org.nuxeo.apidoc.export.parallel.threads";
+
+    /** Property controlling the number of documents queried and converted at once. */
+    public static final String PROPERTY_PAGE_SIZE = "org.nuxeo.apidoc.export.page.size";
+
+    public static final int DEFAULT_PARALLEL_THREADS = 0;
+
+    public static final int DEFAULT_PAGE_SIZE = 500;
+
+    protected static final String FAILURE_MESSAGE = "Failed to export documents";
+
+    protected final int nbThreads;
+
+    protected final int pageSize;
+
+    public ArchiveSnapshotExporter() {
+        ConfigurationService cs = Framework.getService(ConfigurationService.class);
+        this.nbThreads = cs.getInteger(PROPERTY_PARALLEL_THREADS, DEFAULT_PARALLEL_THREADS);
+        this.pageSize = Math.max(1, cs.getInteger(PROPERTY_PAGE_SIZE, DEFAULT_PAGE_SIZE));
+    }
+
+    public ArchiveSnapshotExporter(int nbThreads, int pageSize) {
+        this.nbThreads = nbThreads;
+        this.pageSize = Math.max(1, pageSize);
+    }
+
+    /**
+     * Writes the archive of given distribution document and its children to given stream, closing it.
+     */
+    public void export(CoreSession session, DocumentModel root, OutputStream out) throws IOException {
+        int segmentsToRemove = root.getPath().segmentCount() - 1;
+        NuxeoArchiveWriter writer = new NuxeoArchiveWriter(out);
+        ParallelTasks tasks = nbThreads > 1 ? new ParallelTasks("apidoc-export", nbThreads, session) : null;
+        long count = 0;
+        try {
+            writer.write(export(root, segmentsToRemove));
+            count++;
+            // pages being converted, written in order
+            Deque<Future<List<ExportedDocument>>> pending = new ArrayDeque<>();
+            List<String> parentIds = List.of(root.getId());
+            while (!parentIds.isEmpty()) {
+                List<String> childIds = new ArrayList<>();
+                for (int i = 0; i < parentIds.size(); i += pageSize) {
+                    List<String> ids = getChildIds(session,
+                            parentIds.subList(i, Math.min(i + pageSize, parentIds.size())));
+                    childIds.addAll(ids);
+                    for (int j = 0; j < ids.size(); j += pageSize) {
+                        List<String> page = List.copyOf(ids.subList(j, Math.min(j + pageSize, ids.size())));
+                        if (tasks == null) {
+                            count += write(writer, export(session, page, segmentsToRemove));
+                            continue;
+                        }
+                        pending.add(tasks.submit("Documents from " + page.get(0),
+                                taskSession -> exportUnchecked(taskSession, page, segmentsToRemove)));
+                        while (pending.size() > nbThreads * 2) {
+                            count += write(writer, tasks.get(pending.poll(), FAILURE_MESSAGE));
+                        }
+                    }
+                }
+                parentIds = childIds;
+            }
+            while (!pending.isEmpty()) {
+                count += write(writer, tasks.get(pending.poll(), FAILURE_MESSAGE));
+            }
+        } finally {
+            if (tasks != null) {
+                tasks.close();
+            }
+            writer.close();
+        }
+        log.debug(String.format("Exported %s documents for distribution '%s'", count, root.getName()));
+    }
+
+    protected List<String> getChildIds(CoreSession session, List<String> parentIds) {
+        String query = String.format("SELECT ecm:uuid FROM Document WHERE ecm:parentId IN (%s) AND %s AND %s",
+                parentIds.stream().map(NXQL::escapeString).collect(Collectors.joining(", ")),
+                QueryHelper.NOT_DELETED, QueryHelper.NOT_VERSION);
+        List<String> ids = new ArrayList<>();
+        try (IterableQueryResult it = session.queryAndFetch(query, NXQL.NXQL, QueryFilter.EMPTY)) {
+            for (Map<String, Serializable> map : it) {
+                ids.add((String) map.get(NXQL.ECM_UUID));
+            }
+        }
+        return ids;
+    }
+
+    protected List<ExportedDocument> exportUnchecked(CoreSession session, List<String> ids, int segmentsToRemove) {
+        try {
+            return export(session, ids, segmentsToRemove);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    protected List<ExportedDocument> export(CoreSession session, List<String> ids, int segmentsToRemove)
+            throws IOException {
+        DocumentRef[] refs = ids.stream().map(IdRef::new).toArray(DocumentRef[]::new);
+        List<ExportedDocument> res = new ArrayList<>(ids.size());
+        for (DocumentModel doc : session.getDocuments(refs)) {
+            res.add(export(doc, segmentsToRemove));
+        }
+        return res;
+    }
+
+    protected ExportedDocument export(DocumentModel doc, int segmentsToRemove) throws IOException {
+        Path path = doc.getPath();
+        return new ExportedDocumentImpl(doc, segmentsToRemove > 0 ? path.removeFirstSegments(segmentsToRemove) : path,
+                false);
+    }
+
+    protected int write(NuxeoArchiveWriter writer, List<ExportedDocument> docs) throws IOException {
+        for (ExportedDocument doc : docs) {
+            writer.write(doc);
+        }
+        return docs.size();
+    }
+
+}
@@ -0,0 +1,265 @@
+/*
+ * (C) Copyright 2023 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nuxeo.apidoc.repository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.nuxeo.apidoc.adapters.BaseNuxeoArtifactDocAdapter;
+import org.nuxeo.apidoc.snapshot.DistributionSnapshot;
+import org.nuxeo.common.utils.Path;
+import org.nuxeo.ecm.core.api.CoreInstance;
+import org.nuxeo.ecm.core.api.CoreSession;
+import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.api.DocumentRef;
+import org.nuxeo.ecm.core.api.NuxeoException;
+import org.nuxeo.ecm.core.api.NuxeoPrincipal;
+import org.nuxeo.ecm.core.api.PathRef;
+import org.nuxeo.ecm.core.io.ExportedDocument;
+import org.nuxeo.ecm.core.io.impl.plugins.DocumentModelWriter;
+import org.nuxeo.ecm.core.io.impl.plugins.NuxeoArchiveReader;
+import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.services.config.ConfigurationService;
+import org.nuxeo.runtime.transaction.TransactionHelper;
+
+/**
+ * Imports a Nuxeo archive of a distribution on a bounded pool of threads.
+ * <p>
+ * The distribution is created hidden, directly in the distributions container, renamed if a document with the same
+ * name already exists. The archive is streamed: its documents are created by batches of {@link #SAVE_INTERVAL}, each
+ * batch by a {@link ParallelTasks} task using its own session and transaction, and at most a few batches are held in
+ * memory. Archives list parents before their children: a document whose parent is in a batch still being created waits
+ * for that batch to be committed.
+ * <p>
+ * The transaction of the calling thread is left untouched, so the container must be committed before the import.
+ * Documents already committed are removed if the import fails. The number of documents created so far by imports in
+ * progress on this node is available from {@link #getImportsInProgress()}.
+ *
+ * @since 2023.1
+ */
+public class ArchiveSnapshotImporter {
+
+    private static final Logger log = LogManager.getLogger(ArchiveSnapshotImporter.class);
+
+    /**
+     * Property controlling the number of threads creating documents when importing a distribution archive. The archive
+     * is imported in a temporary folder, then moved, if lower than 2 (default).
+     */
+    public static final String PROPERTY_PARALLEL_THREADS = "org.nuxeo.apidoc.import.parallel.threads";
+
+    public static final int DEFAULT_PARALLEL_THREADS = 0;
+
+    /** Number of documents created by a task, before its session is saved. */
+    protected static final int SAVE_INTERVAL = 500;
+
+    public static final Duration PARALLEL_TIMEOUT = Duration.ofHours(1);
+
+    /** Number of documents created so far, by name of the distribution being imported. */
+    protected static final Map<String, AtomicLong> IMPORTS = new ConcurrentHashMap<>();
+
+    protected final int nbThreads;
+
+    public ArchiveSnapshotImporter(int nbThreads) {
+        this.nbThreads = nbThreads;
+    }
+
+    /**
+     * Returns the number of threads configured through {@link #PROPERTY_PARALLEL_THREADS}.
+     */
+    public static int getConfiguredThreads() {
+        return Framework.getService(ConfigurationService.class)
+                        .getInteger(PROPERTY_PARALLEL_THREADS, DEFAULT_PARALLEL_THREADS);
+    }
+
+    /**
+     * Returns the number of documents created so far by the imports in progress on this node, by name of the imported
+     * distribution document.
+     */
+    public static Map<String, Long> getImportsInProgress() {
+        Map<String, Long> res = new TreeMap<>();
+        IMPORTS.forEach((name, count) -> res.put(name, count.get()));
+        return res;
+    }
+
+    /**
+     * Imports given archive in given committed container, returning the hidden distribution document.
+     *
+     * @throws NuxeoException if the import failed, after removing the documents already created
+     */
+    public DocumentModel importArchive(CoreSession session, DocumentModel container, InputStream is)
+            throws IOException {
+        String containerPath = container.getPathAsString();
+        NuxeoArchiveReader reader = new NuxeoArchiveReader(is);
+        String name = null;
+        long total = 0;
+        try (ParallelTasks tasks = new ParallelTasks("apidoc-import", nbThreads, session)) {
+            ExportedDocument root = reader.read();
+            if (root == null || !DistributionSnapshot.TYPE_NAME.equals(root.getType())) {
+                throw new NuxeoException("Archive does not start with a distribution");
+            }
+            // create the distribution with a free name, and fix paths accordingly
+            String exportedName = root.getPath().lastSegment();
+            name = session.exists(new PathRef(containerPath, exportedName))
+                    ? exportedName + "." + System.currentTimeMillis()
+                    : exportedName;
+            AtomicLong count = new AtomicLong();
+            IMPORTS.put(name, count);
+            String message = String.format("Failed to import distribution '%s'", name);
+
+            Deque<Batch> pending = new ArrayDeque<>();
+            Batch batch = new Batch();
+            for (ExportedDocument xdoc = root; xdoc != null; xdoc = reader.read()) {
+                tasks.checkFailures(message);
+                rename(xdoc, name);
+                awaitParent(tasks, pending, xdoc.getPath().removeLastSegments(1), message);
+                batch.add(xdoc);
+                total++;
+                if (batch.docs.size() >= SAVE_INTERVAL) {
+                    pending.add(submit(tasks, containerPath, batch, count));
+                    batch = new Batch();
+                }
+            }
+            if (!batch.docs.isEmpty()) {
+                pending.add(submit(tasks, containerPath, batch, count));
+            }
+            tasks.await(PARALLEL_TIMEOUT, message);
+        } catch (IOException | RuntimeException e) {
+            if (name != null) {
+                removeDistribution(session, new PathRef(containerPath, name));
+            }
+            throw e;
+        } finally {
+            reader.close();
+            if (name != null) {
+                IMPORTS.remove(name);
+            }
+        }
+        log.info(String.format("Imported %s documents for distribution '%s' using %s threads", total, name,
+                nbThreads));
+        return session.getDocument(new PathRef(containerPath, name));
+    }
+
+    /**
+     * Waits for the batch holding given parent path to be committed, if still pending.
+     */
+    protected void awaitParent(ParallelTasks tasks, Deque<Batch> pending, Path parent, String message) {
+        pending.removeIf(batch -> batch.future.isDone());
+        for (Batch batch : pending) {
+            if (batch.paths.contains(parent)) {
+                tasks.get(batch.future, message);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Submits the creation of the documents of given batch, whose documents are then only referenced by the task.
+     */
+    protected Batch submit(ParallelTasks tasks, String containerPath, Batch batch, AtomicLong count) {
+        List<ExportedDocument> docs = batch.docs;
+        batch.docs = null;
+        batch.future = tasks.submit("Documents from " + docs.get(0).getPath(), taskSession -> {
+            DocumentModelWriter writer = getWriter(taskSession, containerPath);
+            try {
+                for (ExportedDocument xdoc : docs) {
+                    writer.write(xdoc);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                writer.close();
+            }
+            taskSession.save();
+            log.debug(String.format("Imported %s documents", count.addAndGet(docs.size())));
+            return null;
+        });
+        return batch;
+    }
+
+    protected void rename(ExportedDocument xdoc, String rootName) {
+        xdoc.setPath(new Path(rootName).append(xdoc.getPath().removeFirstSegments(1)));
+    }
+
+    protected DocumentModelWriter getWriter(CoreSession session, String containerPath) {
+        return new DocumentModelWriter(session, containerPath, SAVE_INTERVAL) {
+            @Override
+            protected void beforeCreateDocument(DocumentModel doc) {
+                ArchiveSnapshotImporter.this.beforeCreateDocument(doc);
+            }
+        };
+    }
+
+    /**
+     * Prepares given document before its creation.
+     */
+    protected void beforeCreateDocument(DocumentModel doc) {
+        if (DistributionSnapshot.TYPE_NAME.equals(doc.getType())) {
+            // hidden until validation
+            doc.setPropertyValue(DistributionSnapshot.PROP_HIDE, true);
+        }
+        BaseNuxeoArtifactDocAdapter.fillContextData(doc);
+    }
+
+    /**
+     * Removes given distribution in a separate transaction, when its import failed after some of its documents were
+     * committed.
+     */
+    protected void removeDistribution(CoreSession session, DocumentRef ref) {
+        String repositoryName = session.getRepositoryName();
+        NuxeoPrincipal principal = session.getPrincipal();
+        TransactionHelper.runInNewTransaction(() -> {
+            CoreSession removeSession = CoreInstance.getCoreSession(repositoryName, principal);
+            if (removeSession.exists(ref)) {
+                removeSession.removeDocument(ref);
+                removeSession.save();
+            }
+        });
+    }
+
+    /**
+     * Documents created by a task, and their paths once submitted.
+     */
+    protected static class Batch {
+
+        protected List<ExportedDocument> docs = new ArrayList<>();
+
+        protected final Set<Path> paths = new HashSet<>();
+
+        protected Future<?> future;
+
+        protected void add(ExportedDocument xdoc) {
+            docs.add(xdoc);
+            paths.add(xdoc.getPath());
+        }
+
+    }
+
+}
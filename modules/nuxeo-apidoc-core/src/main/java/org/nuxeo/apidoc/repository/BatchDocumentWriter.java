@@ -0,0 +1,187 @@
+/*
+ * (C) Copyright 2023 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nuxeo.apidoc.repository;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.nuxeo.apidoc.api.NuxeoArtifact;
+import org.nuxeo.ecm.core.api.CoreSession;
+import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.api.PathRef;
+import org.nuxeo.runtime.transaction.TransactionHelper;
+
+/**
+ * Writes document models built in memory by the {@link SnapshotPersister}.
+ * <p>
+ * When a batch size is set, documents are created by chunks, saving the session after each chunk and committing the
+ * transaction every given number of chunks. Otherwise, each document is created (or updated) on the fly.
+ * <p>
+ * Intermediate commits apply to the transaction of the calling thread, which is restarted right away: whatever the
+ * caller changed before in the same transaction is committed too, and cannot be rolled back anymore.
+ * <p>
+ * Documents should be added parents first: in batch mode, a document that was added is not persisted yet, only its
+ * path can be relied upon.
+ *
+ * @since 2023.1
+ */
+public class BatchDocumentWriter {
+
+    private static final Logger log = LogManager.getLogger(BatchDocumentWriter.class);
+
+    protected static final String DUBLINCORE_SCHEMA = "dublincore";
+
+    protected final CoreSession session;
+
+    protected final int batchSize;
+
+    protected final int commitInterval;
+
+    protected final String label;
+
+    protected final Map<String, DocumentModel> pending = new LinkedHashMap<>();
+
+    protected final Set<String> written = new HashSet<>();
+
+    protected final long start = System.currentTimeMillis();
+
+    protected long count;
+
+    protected long batches;
+
+    /**
+     * @param batchSize the number of documents created at once, documents are created one by one if lower than 1
+     * @param commitInterval the number of batches after which the transaction is committed, transaction is never
+     *            committed if lower than 1
+     * @param label the label used for progress logging
+     */
+    public BatchDocumentWriter(CoreSession session, int batchSize, int commitInterval, String label) {
+        this.session = session;
+        this.batchSize = batchSize;
+        this.commitInterval = commitInterval;
+        this.label = label;
+    }
+
+    public CoreSession getSession() {
+        return session;
+    }
+
+    public boolean isBatched() {
+        return batchSize > 0;
+    }
+
+    /**
+     * Returns true if the transaction may be committed before all documents are written.
+     */
+    public boolean isCommitting() {
+        return isBatched() && commitInterval > 0;
+    }
+
+    /**
+     * Adds the given document model, returning the persisted document when not in batch mode, and the given model
+     * otherwise.
+     */
+    public DocumentModel add(DocumentModel doc) {
+        String path = doc.getPathAsString();
+        if (!isBatched()) {
+            count++;
+            return createOrUpdate(doc);
+        }
+        if (written.contains(path)) {
+            // same artifact persisted twice: update existing document, as done when not batching
+            flush();
+            count++;
+            return createOrUpdate(doc);
+        }
+        // replace any pending document with same path, keeping its original position
+        pending.put(path, doc);
+        if (pending.size() >= batchSize) {
+            flush();
+        }
+        return doc;
+    }
+
+    /**
+     * Creates pending documents and saves the session, committing the transaction if the commit interval is reached.
+     */
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        DocumentModel[] docs = pending.values().toArray(new DocumentModel[0]);
+        session.createDocument(docs);
+        session.save();
+        written.addAll(pending.keySet());
+        pending.clear();
+        count += docs.length;
+        batches++;
+        if (commitInterval > 0 && batches % commitInterval == 0 && TransactionHelper.isTransactionActive()) {
+            TransactionHelper.commitOrRollbackTransaction();
+            TransactionHelper.startTransaction();
+            logProgress();
+        } else if (log.isDebugEnabled()) {
+            log.debug(getProgress());
+        }
+    }
+
+    /**
+     * Flushes pending documents and logs final progress.
+     */
+    public void close() {
+        flush();
+        session.save();
+        logProgress();
+    }
+
+    /**
+     * Returns the number of documents written so far.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    protected String getProgress() {
+        long elapsed = Math.max(1, System.currentTimeMillis() - start);
+        return String.format("Persisted %s documents for distribution '%s' in %sms (%s docs/s)", count, label,
+                elapsed, count * 1000 / elapsed);
+    }
+
+    protected void logProgress() {
+        log.info(getProgress());
+    }
+
+    protected DocumentModel createOrUpdate(DocumentModel doc) {
+        PathRef ref = new PathRef(doc.getPathAsString());
+        if (!session.exists(ref)) {
+            return session.createDocument(doc);
+        }
+        DocumentModel existing = session.getDocument(ref);
+        for (String schema : doc.getSchemas()) {
+            if (!DUBLINCORE_SCHEMA.equals(schema)) {
+                existing.setProperties(schema, doc.getProperties(schema));
+            }
+        }
+        existing.setPropertyValue(NuxeoArtifact.TITLE_PROPERTY_PATH,
+                doc.getPropertyValue(NuxeoArtifact.TITLE_PROPERTY_PATH));
+        doc.getContextData().forEach(existing::putContextData);
+        return session.saveDocument(existing);
+    }
+
+}
@@ -0,0 +1,162 @@
+/*
+ * (C) Copyright 2023 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nuxeo.apidoc.repository;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+import org.nuxeo.ecm.core.api.DocumentModel;
+
+/**
+ * Node-local index of the artifacts of a persisted distribution, holding sorted id lists, maps from artifact ids (or
+ * aliases) to document ids, and other immutable views such as artifact summaries.
+ * <p>
+ * The index is only valid for a given change token of the distribution document: it is built lazily, each entry being
+ * computed on first access, and is dropped as soon as the distribution document changes.
+ * <p>
+ * Values loaded from queries depend on the permissions of the user running them, so callers name such entries after
+ * the user, see {@link RepositoryDistributionSnapshot#getUserEntryName}, and the least recently used entries are
+ * evicted. Artifacts are still retrieved through the user session by document id, so that security checks apply.
+ * <p>
+ * Indexes of updated distributions are dropped on all cluster nodes, see
+ * {@link org.nuxeo.apidoc.snapshot.SnapshotManager#invalidateDistributionIndex}.
+ *
+ * @since 2023.1
+ */
+public class DistributionIndex {
+
+    protected final String docId;
+
+    protected final String changeToken;
+
+    /** Default maximum number of entries of each kind, see {@link #DistributionIndex(DocumentModel, int)}. */
+    public static final int DEFAULT_MAX_ENTRIES = 1000;
+
+    protected final int maxEntries;
+
+    protected final Map<String, List<String>> ids;
+
+    protected final Map<String, Map<String, String>> lookups;
+
+    protected final Map<String, List<?>> views;
+
+    protected final Map<String, Object> attachments;
+
+    public DistributionIndex(DocumentModel distributionDoc) {
+        this(distributionDoc, DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * @param maxEntries the maximum number of entries of each kind (ids, lookups, views, attachments), the least
+     *            recently used ones being evicted, so that entries named after users do not grow without bound
+     */
+    public DistributionIndex(DocumentModel distributionDoc, int maxEntries) {
+        this.docId = distributionDoc.getId();
+        this.changeToken = distributionDoc.getChangeToken();
+        this.maxEntries = maxEntries;
+        ids = newEntries();
+        lookups = newEntries();
+        views = newEntries();
+        attachments = newEntries();
+    }
+
+    public String getDocId() {
+        return docId;
+    }
+
+    /**
+     * Returns true if this index is valid for given distribution document.
+     */
+    public boolean matches(DocumentModel distributionDoc) {
+        return docId.equals(distributionDoc.getId()) && Objects.equals(changeToken, distributionDoc.getChangeToken());
+    }
+
+    /**
+     * Returns the unmodifiable list of ids with given name, loading it if needed.
+     */
+    public List<String> getIds(String name, Supplier<List<String>> loader) {
+        return get(ids, name, () -> Collections.unmodifiableList(loader.get()));
+    }
+
+    /**
+     * Returns the unmodifiable list of immutable values with given name, loading it if needed.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> List<T> getView(String name, Supplier<List<T>> loader) {
+        return (List<T>) get(views, name, () -> Collections.unmodifiableList(loader.get()));
+    }
+
+    /**
+     * Returns the map with given name, loading it if needed.
+     * <p>
+     * The loaded map is returned as is: it may be modifiable to record lookups on the fly, in which case it should be
+     * thread-safe.
+     */
+    public Map<String, String> getLookup(String name, Supplier<Map<String, String>> loader) {
+        return get(lookups, name, loader);
+    }
+
+    /**
+     * Returns the object attached to this index with given name, computing it if needed.
+     * <p>
+     * Useful to keep any other structure that is derived from the distribution content, and that should be dropped
+     * when the distribution changes.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getAttachment(String name, Supplier<T> loader) {
+        return (T) get(attachments, name, loader::get);
+    }
+
+    /**
+     * Loads values outside of any lock, so that loaders can use this index too: concurrent loads of the same value
+     * may happen, only the first stored value is kept.
+     */
+    protected <T> T get(Map<String, T> map, String name, Supplier<T> loader) {
+        T value;
+        synchronized (map) {
+            value = map.get(name);
+        }
+        if (value == null) {
+            value = loader.get();
+            synchronized (map) {
+                T previous = map.putIfAbsent(name, value);
+                if (previous != null) {
+                    value = previous;
+                }
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Returns a map evicting its least recently used entries, to be accessed while synchronized on it.
+     */
+    protected <T> Map<String, T> newEntries() {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, T> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+}
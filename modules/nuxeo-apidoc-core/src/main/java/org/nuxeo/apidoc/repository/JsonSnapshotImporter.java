@@ -0,0 +1,220 @@
+/*
+ * (C) Copyright 2023 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nuxeo.apidoc.repository;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.nuxeo.apidoc.adapters.BaseNuxeoArtifactDocAdapter;
+import org.nuxeo.apidoc.api.BundleInfo;
+import org.nuxeo.apidoc.api.OperationInfo;
+import org.nuxeo.apidoc.api.PackageInfo;
+import org.nuxeo.apidoc.introspection.BundleInfoImpl;
+import org.nuxeo.apidoc.introspection.RuntimeSnapshot;
+import org.nuxeo.apidoc.plugin.Plugin;
+import org.nuxeo.apidoc.plugin.PluginSnapshot;
+import org.nuxeo.apidoc.snapshot.DistributionSnapshot;
+import org.nuxeo.apidoc.snapshot.JsonMapper;
+import org.nuxeo.ecm.core.api.CoreSession;
+import org.nuxeo.ecm.core.api.NuxeoException;
+import org.nuxeo.ecm.core.api.validation.DocumentValidationException;
+import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.services.config.ConfigurationService;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+/**
+ * Imports a json export of a distribution into the repository, reading bundles one at a time.
+ * <p>
+ * The export is spooled to a temporary file and read twice: a first pass persists the distribution with bundles
+ * stripped of their components, a second pass persists the content of each bundle under its document. Only one bundle
+ * content is held in memory at once, documents being created in batches by the {@link SnapshotPersister} writer. As
+ * these batches may be committed, the distribution is removed if any pass fails.
+ * <p>
+ * When distributions are stored as a single blob, the whole export is read in memory instead.
+ *
+ * @since 2023.1
+ */
+public class JsonSnapshotImporter {
+
+    private static final Logger log = LogManager.getLogger(JsonSnapshotImporter.class);
+
+    protected static final String FIELD_BUNDLES = "bundles";
+
+    /** Types of the distribution properties needed to build the snapshot, besides bundles. */
+    protected static final Map<String, TypeReference<?>> FIELD_TYPES = Map.of( //
+            "name", new TypeReference<String>() {
+            }, //
+            "version", new TypeReference<String>() {
+            }, //
+            "creationDate", new TypeReference<Date>() {
+            }, //
+            "releaseDate", new TypeReference<Date>() {
+            }, //
+            "operations", new TypeReference<List<OperationInfo>>() {
+            }, //
+            "packages", new TypeReference<List<PackageInfo>>() {
+            }, //
+            "pluginSnapshots", new TypeReference<Map<String, PluginSnapshot<?>>>() {
+            });
+
+    protected final SnapshotPersister persister;
+
+    protected final List<Plugin<?>> plugins;
+
+    public JsonSnapshotImporter(SnapshotPersister persister, List<Plugin<?>> plugins) {
+        this.persister = persister;
+        this.plugins = plugins;
+    }
+
+    /**
+     * Imports given json export as a hidden distribution, and returns it.
+     */
+    public RepositoryDistributionSnapshot importJson(CoreSession session, InputStream in)
+            throws IOException, DocumentValidationException {
+        File file = Framework.createTempFile("apidoc-import", ".json");
+        try {
+            Files.copy(in, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            return importJson(session, file);
+        } finally {
+            Files.deleteIfExists(file.toPath());
+        }
+    }
+
+    protected RepositoryDistributionSnapshot importJson(CoreSession session, File file)
+            throws IOException, DocumentValidationException {
+        ObjectMapper mapper = getJsonMapper();
+        Map<String, Serializable> properties = new HashMap<>();
+        properties.put(DistributionSnapshot.PROP_HIDE, true);
+
+        String storage = Framework.getService(ConfigurationService.class)
+                                  .getString(SnapshotPersister.PROPERTY_STORAGE, SnapshotPersister.STORAGE_DOCUMENTS);
+        if (SnapshotPersister.STORAGE_BLOB.equals(storage)) {
+            RuntimeSnapshot snapshot = readSnapshot(mapper, file, UnaryOperator.identity());
+            return (RepositoryDistributionSnapshot) persister.persist(snapshot, session, null, null, properties,
+                    null, plugins);
+        }
+
+        // first pass: persist distribution with bundles metadata only
+        RuntimeSnapshot skeleton = readSnapshot(mapper, file,
+                bundle -> bundle instanceof BundleInfoImpl ? ((BundleInfoImpl) bundle).withoutComponents() : bundle);
+        RepositoryDistributionSnapshot distrib = (RepositoryDistributionSnapshot) persister.persist(skeleton,
+                session, null, null, properties, null, plugins);
+
+        // second pass: persist bundles content
+        String label = distrib.getKey();
+        BatchDocumentWriter writer = persister.getWriter(session, label);
+        try {
+            readBundles(mapper, file, bundle -> {
+                BundleInfo bundleDoc = distrib.getBundle(bundle.getId());
+                if (bundleDoc == null) {
+                    throw new NuxeoException(String.format("Bundle '%s' not found on distribution '%s'",
+                            bundle.getId(), label));
+                }
+                persister.persistBundleContent(skeleton, null, bundle, writer, label,
+                        ((BaseNuxeoArtifactDocAdapter) bundleDoc).getDoc());
+            }, null);
+            writer.close();
+        } catch (IOException | RuntimeException e) {
+            // documents committed so far are not rolled back with the current transaction
+            persister.removeDistribution(session, distrib.getDoc().getRef());
+            throw e;
+        }
+        session.save();
+        log.info(String.format("Imported %s bundles for distribution '%s'", skeleton.getBundleIds().size(), label));
+
+        return distrib;
+    }
+
+    protected ObjectMapper getJsonMapper() {
+        ObjectMapper mapper = JsonMapper.basic(null, null);
+        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        mapper.configure(DeserializationFeature.ACCEPT_EMPTY_ARRAY_AS_NULL_OBJECT, true);
+        for (Plugin<?> plugin : plugins) {
+            mapper = plugin.enrishJsonMapper(mapper);
+        }
+        return mapper;
+    }
+
+    /**
+     * Reads given json export, keeping bundles as returned by given function, or skipping them if it returns null.
+     */
+    @SuppressWarnings("unchecked")
+    protected RuntimeSnapshot readSnapshot(ObjectMapper mapper, File file, UnaryOperator<BundleInfo> bundleMapper)
+            throws IOException {
+        List<BundleInfo> bundles = new ArrayList<>();
+        Map<String, Object> fields = new HashMap<>();
+        readBundles(mapper, file, bundle -> {
+            BundleInfo kept = bundleMapper.apply(bundle);
+            if (kept != null) {
+                bundles.add(kept);
+            }
+        }, fields);
+        return new RuntimeSnapshot((String) fields.get("name"), (String) fields.get("version"),
+                (Date) fields.get("creationDate"), (Date) fields.get("releaseDate"), bundles,
+                (List<OperationInfo>) fields.get("operations"), (List<PackageInfo>) fields.get("packages"),
+                (Map<String, PluginSnapshot<?>>) fields.get("pluginSnapshots"));
+    }
+
+    /**
+     * Streams given json export, passing each bundle to given consumer before reading the next one.
+     * <p>
+     * Other distribution properties are read into given map if not null, and skipped otherwise.
+     */
+    protected void readBundles(ObjectMapper mapper, File file, Consumer<BundleInfo> bundleConsumer,
+            Map<String, Object> fields) throws IOException {
+        ObjectReader bundleReader = mapper.readerFor(BundleInfo.class);
+        try (JsonParser parser = mapper.getFactory().createParser(file)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new NuxeoException("Invalid distribution json export: object expected");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                if (FIELD_BUNDLES.equals(field)) {
+                    if (token == JsonToken.START_ARRAY) {
+                        while (parser.nextToken() == JsonToken.START_OBJECT) {
+                            bundleConsumer.accept(bundleReader.readValue(parser));
+                        }
+                    }
+                } else if (fields != null && FIELD_TYPES.containsKey(field)) {
+                    fields.put(field, mapper.readValue(parser, FIELD_TYPES.get(field)));
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+    }
+
+}
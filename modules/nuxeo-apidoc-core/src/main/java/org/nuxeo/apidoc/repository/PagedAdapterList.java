@@ -0,0 +1,145 @@
+/*
+ * (C) Copyright 2023 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nuxeo.apidoc.repository;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+
+import org.nuxeo.ecm.core.api.CoreSession;
+import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.api.DocumentNotFoundException;
+import org.nuxeo.ecm.core.api.DocumentRef;
+import org.nuxeo.ecm.core.api.DocumentSecurityException;
+import org.nuxeo.ecm.core.api.IdRef;
+
+/**
+ * Read-only list of document adapters, backed by a list of document ids and fetching documents by pages while being
+ * iterated.
+ * <p>
+ * Only the page currently iterated is kept in memory, so that iterating over a large number of artifacts (typically
+ * for exports) does not require to hold all of them at once.
+ * <p>
+ * Documents that cannot be fetched or adapted anymore are skipped when iterating: {@link #size()} is the number of
+ * document ids, an upper bound of the number of iterated elements, and {@link #get(int)} returns null for them.
+ * <p>
+ * This list holds no mutable state, each iterator holds its own page: it can be iterated concurrently as long as the
+ * session can be.
+ *
+ * @since 2023.1
+ */
+public class PagedAdapterList<T> extends AbstractList<T> {
+
+    public static final int DEFAULT_PAGE_SIZE = 100;
+
+    protected final CoreSession session;
+
+    protected final List<String> ids;
+
+    protected final Class<T> adapter;
+
+    protected final int pageSize;
+
+    public PagedAdapterList(CoreSession session, List<String> ids, Class<T> adapter) {
+        this(session, ids, adapter, DEFAULT_PAGE_SIZE);
+    }
+
+    public PagedAdapterList(CoreSession session, List<String> ids, Class<T> adapter, int pageSize) {
+        this.session = session;
+        this.ids = List.copyOf(ids);
+        this.adapter = adapter;
+        this.pageSize = pageSize;
+    }
+
+    @Override
+    public int size() {
+        return ids.size();
+    }
+
+    @Override
+    public T get(int index) {
+        String id = ids.get(index);
+        try {
+            return session.getDocument(new IdRef(id)).getAdapter(adapter);
+        } catch (DocumentNotFoundException | DocumentSecurityException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new PageIterator();
+    }
+
+    @Override
+    public Spliterator<T> spliterator() {
+        // size is only an upper bound
+        return Spliterators.spliteratorUnknownSize(iterator(), Spliterator.ORDERED | Spliterator.NONNULL);
+    }
+
+    protected List<T> fetchPage(int index) {
+        List<String> pageIds = ids.subList(index * pageSize, Math.min((index + 1) * pageSize, ids.size()));
+        DocumentRef[] refs = pageIds.stream().map(IdRef::new).toArray(DocumentRef[]::new);
+        Map<String, DocumentModel> docs = new HashMap<>();
+        for (DocumentModel doc : session.getDocuments(refs)) {
+            docs.put(doc.getId(), doc);
+        }
+        List<T> res = new ArrayList<>(pageIds.size());
+        for (String id : pageIds) {
+            DocumentModel doc = docs.get(id);
+            T item = doc == null ? null : doc.getAdapter(adapter);
+            if (item != null) {
+                res.add(item);
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Iterates over pages, skipping documents that cannot be fetched or adapted.
+     */
+    protected class PageIterator implements Iterator<T> {
+
+        protected int nextPage;
+
+        protected Iterator<T> page = Collections.emptyIterator();
+
+        @Override
+        public boolean hasNext() {
+            while (!page.hasNext() && nextPage * pageSize < ids.size()) {
+                page = fetchPage(nextPage++).iterator();
+            }
+            return page.hasNext();
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return page.next();
+        }
+
+    }
+
+}
@@ -0,0 +1,215 @@
+/*
+ * (C) Copyright 2023 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nuxeo.apidoc.repository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.nuxeo.ecm.core.api.CoreInstance;
+import org.nuxeo.ecm.core.api.CoreSession;
+import org.nuxeo.ecm.core.api.NuxeoException;
+import org.nuxeo.ecm.core.api.NuxeoPrincipal;
+import org.nuxeo.runtime.transaction.TransactionHelper;
+
+/**
+ * Runs tasks on a bounded pool of threads, each task using its own session and transaction, opened for the repository
+ * and principal of the session given at creation. The transaction of the calling thread is never touched.
+ * <p>
+ * At most twice as many tasks as threads are pending at once: submitting a task blocks until a slot is available, so
+ * that callers reading a large input do not hold it all in memory. Once a task failed, tasks submitted later are
+ * skipped, and {@link #await} throws a {@link NuxeoException} listing all failures.
+ * <p>
+ * Instances must be closed, which interrupts remaining tasks and waits for the threads to stop.
+ *
+ * @since 2023.1
+ */
+public class ParallelTasks implements AutoCloseable {
+
+    private static final Logger log = LogManager.getLogger(ParallelTasks.class);
+
+    /** Maximum time waited for interrupted tasks when closing. */
+    protected static final Duration SHUTDOWN_TIMEOUT = Duration.ofMinutes(1);
+
+    protected final String repositoryName;
+
+    protected final NuxeoPrincipal principal;
+
+    protected final ExecutorService executor;
+
+    protected final Semaphore slots;
+
+    protected final List<String> failures = Collections.synchronizedList(new ArrayList<>());
+
+    protected final List<Throwable> causes = Collections.synchronizedList(new ArrayList<>());
+
+    /**
+     * @param name the prefix of the threads names
+     * @param nbThreads the number of threads
+     * @param session the session whose repository and principal are used by tasks
+     */
+    public ParallelTasks(String name, int nbThreads, CoreSession session) {
+        repositoryName = session.getRepositoryName();
+        principal = session.getPrincipal();
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(nbThreads,
+                r -> new Thread(r, name + "-" + threadCount.incrementAndGet()));
+        slots = new Semaphore(nbThreads * 2);
+    }
+
+    /**
+     * Submits a task returning a result, to be retrieved with {@link #get}.
+     *
+     * @param label the label of the task, used in failure messages
+     */
+    public <T> Future<T> submit(String label, Function<CoreSession, T> task) {
+        acquire();
+        try {
+            return executor.submit(() -> {
+                try {
+                    if (isFailed()) {
+                        return null;
+                    }
+                    return TransactionHelper.runInTransaction(
+                            () -> task.apply(CoreInstance.getCoreSession(repositoryName, principal)));
+                } catch (Throwable t) { // errors must fail the tasks too
+                    fail(label, t);
+                    throw t;
+                } finally {
+                    slots.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            slots.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Submits a task without result, whose failure is reported by {@link #await}.
+     *
+     * @param label the label of the task, used in failure messages
+     */
+    public void execute(String label, Consumer<CoreSession> task) {
+        submit(label, session -> {
+            task.accept(session);
+            return null;
+        });
+    }
+
+    /**
+     * Returns whether a task failed.
+     */
+    public boolean isFailed() {
+        return !failures.isEmpty();
+    }
+
+    /**
+     * Waits for all submitted tasks to be done, no other task can be submitted afterwards.
+     *
+     * @param message the message of the exception thrown if a task failed
+     * @throws NuxeoException if a task failed or on timeout
+     */
+    public void await(Duration timeout, String message) {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new NuxeoException(message + ": timeout");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new NuxeoException(e);
+        }
+        checkFailures(message);
+    }
+
+    /**
+     * Throws a {@link NuxeoException} with given message if a task failed.
+     */
+    public void checkFailures(String message) {
+        if (!isFailed()) {
+            return;
+        }
+        NuxeoException error = new NuxeoException(message);
+        synchronized (failures) {
+            failures.forEach(error::addInfo);
+        }
+        synchronized (causes) {
+            causes.forEach(error::addSuppressed);
+        }
+        throw error;
+    }
+
+    /**
+     * Returns the result of given task, waiting for it if needed.
+     *
+     * @param message the message of the exception thrown if the task failed
+     */
+    public <T> T get(Future<T> future, String message) {
+        try {
+            T result = future.get();
+            checkFailures(message);
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new NuxeoException(e);
+        } catch (ExecutionException e) {
+            throw new NuxeoException(message, e.getCause());
+        }
+    }
+
+    /**
+     * Interrupts remaining tasks and waits for the threads to stop.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("Some tasks are still running after shutdown");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    protected void acquire() {
+        try {
+            slots.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new NuxeoException(e);
+        }
+    }
+
+    protected void fail(String label, Throwable t) {
+        failures.add(label + ": " + t);
+        causes.add(t);
+    }
+
+}
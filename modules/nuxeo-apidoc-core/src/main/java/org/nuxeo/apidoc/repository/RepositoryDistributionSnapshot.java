@@ -19,6 +19,7 @@
  */
 package org.nuxeo.apidoc.repository;
 
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -31,48 +32,70 @@ import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
 
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.nuxeo.apidoc.adapters.BaseNuxeoArtifactDocAdapter;
 import org.nuxeo.apidoc.api.BundleGroup;
 import org.nuxeo.apidoc.api.BundleInfo;
 import org.nuxeo.apidoc.api.ComponentInfo;
+import org.nuxeo.apidoc.api.ComponentSummary;
+import org.nuxeo.apidoc.api.ContributionSummary;
 import org.nuxeo.apidoc.api.ExtensionInfo;
 import org.nuxeo.apidoc.api.ExtensionPointInfo;
 import org.nuxeo.apidoc.api.NuxeoArtifact;
 import org.nuxeo.apidoc.api.OperationInfo;
+import org.nuxeo.apidoc.api.OperationSummary;
 import org.nuxeo.apidoc.api.PackageInfo;
 import org.nuxeo.apidoc.api.QueryHelper;
 import org.nuxeo.apidoc.api.ServiceInfo;
 import org.nuxeo.apidoc.documentation.JavaDocHelper;
+import org.nuxeo.apidoc.introspection.BundleGroupImpl;
+import org.nuxeo.apidoc.introspection.RuntimeSnapshot;
 import org.nuxeo.apidoc.plugin.Plugin;
 import org.nuxeo.apidoc.plugin.PluginSnapshot;
 import org.nuxeo.apidoc.snapshot.DistributionSnapshot;
 import org.nuxeo.apidoc.snapshot.JsonMapper;
 import org.nuxeo.apidoc.snapshot.SnapshotFilter;
 import org.nuxeo.apidoc.snapshot.SnapshotManager;
+import org.nuxeo.ecm.core.api.Blob;
+import org.nuxeo.ecm.core.api.Blobs;
 import org.nuxeo.ecm.core.api.CoreSession;
 import org.nuxeo.ecm.core.api.DocumentModel;
 import org.nuxeo.ecm.core.api.DocumentModelList;
+import org.nuxeo.ecm.core.api.DocumentNotFoundException;
 import org.nuxeo.ecm.core.api.DocumentRef;
+import org.nuxeo.ecm.core.api.DocumentSecurityException;
+import org.nuxeo.ecm.core.api.IdRef;
+import org.nuxeo.ecm.core.api.NuxeoException;
+import org.nuxeo.ecm.core.api.PartialList;
 import org.nuxeo.ecm.core.api.PathRef;
 import org.nuxeo.ecm.core.api.validation.DocumentValidationException;
 import org.nuxeo.ecm.core.query.sql.NXQL;
 import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.model.ComponentName;
 
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.PrettyPrinter;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectReader;
@@ -82,8 +105,90 @@ public class RepositoryDistributionSnapshot extends BaseNuxeoArtifactDocAdapter
 
     private static final Logger log = LogManager.getLogger(RepositoryDistributionSnapshot.class);
 
+    /**
+     * Prefix of the file name of the blob holding the whole distribution, when using the blob storage.
+     * <p>
+     * This blob is a zip archive holding the json export of the distribution, and the layout of its bundle groups, as
+     * persisted with the documents storage.
+     *
+     * @since 2023.1
+     */
+    public static final String BLOB_FILENAME_PREFIX = "distribution-v";
+
+    /** @since 2023.1 */
+    public static final String BLOB_FILENAME_SUFFIX = ".zip";
+
+    /**
+     * Name of the entry holding the json export of the distribution, in the blob holding the whole distribution.
+     *
+     * @since 2023.1
+     */
+    public static final String BLOB_SNAPSHOT_ENTRY = "distribution.json";
+
+    /**
+     * Name of the entry holding the tree of bundle groups, in the blob holding the whole distribution.
+     *
+     * @since 2023.1
+     */
+    public static final String BLOB_BUNDLE_GROUPS_ENTRY = "bundlegroups.json";
+
+    /**
+     * Version of the format of the blob holding the whole distribution, to be incremented on incompatible changes.
+     *
+     * @since 2023.1
+     */
+    public static final int BLOB_FORMAT_VERSION = 1;
+
+    /** @since 2023.1 */
+    public static final String BLOB_MIME_TYPE = "application/zip";
+
+    protected static final String BUNDLE_GROUP_ID = "id";
+
+    protected static final String BUNDLE_GROUP_VERSION = "version";
+
+    protected static final String BUNDLE_GROUP_BUNDLES = "bundles";
+
+    protected static final String BUNDLE_GROUP_READMES = "readmes";
+
+    protected static final String BUNDLE_GROUP_SUBGROUPS = "subGroups";
+
+    /** Mapper of the bundle groups entry, leaving the zip streams open. */
+    protected static final ObjectMapper BUNDLE_GROUPS_MAPPER = new ObjectMapper().disable(
+            JsonGenerator.Feature.AUTO_CLOSE_TARGET).disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+
+    /**
+     * Name of the {@link DistributionIndex} attachment holding the snapshot read from the blob.
+     *
+     * @since 2023.1
+     */
+    protected static final String BLOB_SNAPSHOT_ATTACHMENT = "blobSnapshot";
+
     protected JavaDocHelper jdocHelper = null;
 
+    /** @since 2023.1 */
+    protected volatile DistributionSnapshot blobSnapshot;
+
+    /**
+     * Artifacts resolved by document id through this instance, see {@link #getDocumentAdapter}.
+     *
+     * @since 2023.1
+     */
+    protected final Map<String, Object> artifacts = new ConcurrentHashMap<>();
+
+    /**
+     * Format version of the blob holding this distribution, computed on first call to {@link #isBlobStored()}.
+     *
+     * @since 2023.1
+     */
+    protected volatile Integer blobFormatVersion;
+
+    /**
+     * Whether children listings are fetched by pages while being iterated, see {@link #getChildren}.
+     *
+     * @since 2023.1
+     */
+    protected final boolean pagedChildren;
+
     public static RepositoryDistributionSnapshot create(DistributionSnapshot distrib, CoreSession session,
             String containerPath, String label, Map<String, Serializable> properties, List<String> reservedKeys)
             throws DocumentValidationException {
@@ -157,17 +262,94 @@ public class RepositoryDistributionSnapshot extends BaseNuxeoArtifactDocAdapter
     }
 
     public RepositoryDistributionSnapshot(DocumentModel doc) {
+        this(doc, false);
+    }
+
+    /**
+     * @param pagedChildren whether children listings are fetched by pages while being iterated, for exports
+     * @since 2023.1
+     */
+    protected RepositoryDistributionSnapshot(DocumentModel doc, boolean pagedChildren) {
         super(doc);
+        this.pagedChildren = pagedChildren;
     }
 
+    /**
+     * Returns the children with given type, sorted.
+     * <p>
+     * Since 2023.1, if this instance was created for an export, returned list only resolves document ids, documents
+     * are fetched by pages when iterating over it.
+     */
     protected <T> List<T> getChildren(Class<T> adapter, String docType, String sort) {
+        if (pagedChildren) {
+            List<String> ids = queryAndFetchIds(getCoreSession(), NXQL.ECM_UUID, docType, doc, sort);
+            return new PagedAdapterList<>(getCoreSession(), ids, adapter);
+        }
         String query = QueryHelper.select(docType, doc, sort);
         DocumentModelList docs = query(getCoreSession(), query);
         return docs.stream().map(doc -> doc.getAdapter(adapter)).filter(Objects::nonNull).collect(Collectors.toList());
     }
 
     protected <T> T getChild(Class<T> adapter, String docType, String idField, String id) {
+        return getChild(adapter, docType, idField, id, null);
+    }
+
+    /**
+     * Returns the child with given id, restricting the query with given clause if not null.
+     * <p>
+     * When the distribution is indexed, all ids for given doc type are fetched at once on first call.
+     *
+     * @since 2023.1
+     */
+    protected <T> T getChild(Class<T> adapter, String docType, String idField, String id, String clause) {
+        DistributionIndex index = getIndex();
+        if (index == null) {
+            return queryChild(adapter, docType, idField, id, clause);
+        }
+        Map<String, String> uuids = index.getLookup(
+                getUserEntryName(docType + "/" + idField + (clause == null ? "" : "/" + clause)),
+                () -> queryUuids(docType, idField, clause));
+        String uuid = uuids.get(id);
+        if (uuid == null) {
+            if (log.isDebugEnabled()) {
+                log.debug(String.format("Unable to find %s with id '%s'", docType, id));
+            }
+            return null;
+        }
+        return getDocumentAdapter(adapter, uuid);
+    }
+
+    /**
+     * Returns the child with given alias, for multi-valued alias fields.
+     * <p>
+     * When the distribution is indexed, only successful lookups are recorded.
+     *
+     * @since 2023.1
+     */
+    protected <T> T getChildByAlias(Class<T> adapter, String docType, String aliasField, String alias) {
+        DistributionIndex index = getIndex();
+        if (index == null) {
+            return queryChild(adapter, docType, aliasField, alias, null);
+        }
+        Map<String, String> uuids = index.getLookup(getUserEntryName(docType + "/" + aliasField),
+                ConcurrentHashMap::new);
+        String uuid = uuids.get(alias);
+        if (uuid != null) {
+            return getDocumentAdapter(adapter, uuid);
+        }
+        T child = queryChild(adapter, docType, aliasField, alias, null);
+        if (child instanceof BaseNuxeoArtifactDocAdapter) {
+            uuids.put(alias, ((BaseNuxeoArtifactDocAdapter) child).getDoc().getId());
+        }
+        return child;
+    }
+
+    /** @since 2023.1 */
+    protected <T> T queryChild(Class<T> adapter, String docType, String idField, String id, String clause) {
         String query = QueryHelper.select(docType, doc, idField, id);
+        if (clause != null) {
+            query += " AND " + clause;
+        }
         DocumentModelList docs = query(getCoreSession(), query);
         if (docs.isEmpty()) {
             log.debug(String.format("Unable to find %s with id '%s'", docType, id));
@@ -180,8 +362,114 @@ public class RepositoryDistributionSnapshot extends BaseNuxeoArtifactDocAdapter
         }
     }
 
+    /**
+     * Returns the node-local index for this distribution, or null if not available.
+     * <p>
+     * Entries loaded through the session of the current user are named after it, see {@link #getUserEntryName}.
+     *
+     * @since 2023.1
+     */
+    protected DistributionIndex getIndex() {
+        return Framework.getService(SnapshotManager.class).getDistributionIndex(doc);
+    }
+
+    /**
+     * Returns the name of an index entry holding data loaded through the session of the current user: as queries only
+     * return documents readable by the user, such entries are not shared with other users.
+     *
+     * @since 2023.1
+     */
+    protected String getUserEntryName(String name) {
+        return getCoreSession().getPrincipal().getName() + "/" + name;
+    }
+
+    /**
+     * Returns the ids fetched by given loader, caching them in the index when available.
+     *
+     * @since 2023.1
+     */
+    protected List<String> getIds(String name, Supplier<List<String>> loader) {
+        DistributionIndex index = getIndex();
+        if (index == null) {
+            return loader.get();
+        }
+        return index.getIds(getUserEntryName(name), loader);
+    }
+
+    /**
+     * Returns the summaries computed by given loader, caching them in the index when available.
+     *
+     * @since 2023.1
+     */
+    protected <T> List<T> getSummaries(String name, Supplier<List<T>> loader) {
+        DistributionIndex index = getIndex();
+        if (index == null) {
+            return loader.get();
+        }
+        return index.getView(getUserEntryName(name), loader);
+    }
+
+    /**
+     * Maps the value of given id field to the document id, for all children with given type.
+     *
+     * @since 2023.1
+     */
+    protected Map<String, String> queryUuids(String docType, String idField, String clause) {
+        String query = String.format("SELECT %s, %s FROM %s WHERE %s STARTSWITH %s AND %s", NXQL.ECM_UUID, idField,
+                docType, NXQL.ECM_PATH, NXQL.escapeString(doc.getPathAsString()), QueryHelper.NOT_DELETED);
+        if (clause != null) {
+            query += " AND " + clause;
+        }
+        Map<String, String> uuids = new HashMap<>();
+        PartialList<Map<String, Serializable>> res = getCoreSession().queryProjection(query, 0, 0);
+        for (Map<String, Serializable> row : res) {
+            String id = (String) row.get(idField);
+            if (id != null && uuids.putIfAbsent(id, (String) row.get(NXQL.ECM_UUID)) != null) {
+                log.error(String.format("Multiple match for %s with id '%s'", docType, id));
+            }
+        }
+        return Collections.unmodifiableMap(uuids);
+    }
+
+    /**
+     * Returns projection rows holding given properties, for all children with given type.
+     *
+     * @since 2023.1
+     */
+    public PartialList<Map<String, Serializable>> queryProjection(String docType, String order,
+            String... properties) {
+        String query = QueryHelper.select(String.join(", ", properties), docType, doc, order);
+        return getCoreSession().queryProjection(query, 0, 0);
+    }
+
+    /**
+     * Returns the artifact held by the document with given id, fetching the document only once for this instance.
+     *
+     * @since 2023.1
+     */
+    protected <T> T getDocumentAdapter(Class<T> adapter, String uuid) {
+        Object artifact = artifacts.get(uuid);
+        if (adapter.isInstance(artifact)) {
+            return adapter.cast(artifact);
+        }
+        T result;
+        try {
+            result = getCoreSession().getDocument(new IdRef(uuid)).getAdapter(adapter);
+        } catch (DocumentNotFoundException | DocumentSecurityException e) {
+            log.debug(String.format("Unable to fetch document '%s'", uuid), e);
+            return null;
+        }
+        if (result != null) {
+            artifacts.put(uuid, result);
+        }
+        return result;
+    }
+
     @Override
     public BundleInfo getBundle(String id) {
+        if (isBlobStored()) {
+            return getBlobSnapshot().getBundle(id);
+        }
         return getChild(BundleInfo.class, BundleInfo.TYPE_NAME, BundleInfo.PROP_BUNDLE_ID, id);
     }
 
@@ -190,6 +478,9 @@ public class RepositoryDistributionSnapshot extends BaseNuxeoArtifactDocAdapter
         if (groupId == null) {
             return null;
         }
+        if (isBlobStored()) {
+            return getBlobSnapshot().getBundleGroup(groupId);
+        }
         if (groupId.startsWith(BundleGroup.PREFIX)) {
             return getChild(BundleGroup.class, BundleGroup.TYPE_NAME, BundleGroup.PROP_KEY, groupId);
         } else {
@@ -209,6 +500,9 @@ public class RepositoryDistributionSnapshot extends BaseNuxeoArtifactDocAdapter
 
     @Override
     public List<BundleGroup> getBundleGroups() {
+        if (isBlobStored()) {
+            return getBlobSnapshot().getBundleGroups();
+        }
         String query = QueryHelper.select(BundleGroup.TYPE_NAME, doc, NXQL.ECM_PARENTID, getBundleContainer().getId());
         DocumentModelList docs = query(getCoreSession(), query);
         return docs.stream()
@@ -220,79 +514,168 @@ public class RepositoryDistributionSnapshot extends BaseNuxeoArtifactDocAdapter
 
     @Override
     public List<BundleInfo> getBundles() {
+        if (isBlobStored()) {
+            return getBlobSnapshot().getBundles();
+        }
         return getChildren(BundleInfo.class, BundleInfo.TYPE_NAME, NXQL.ECM_POS);
     }
 
     @Override
     public List<String> getBundleIds() {
-        return queryAndFetchIds(getCoreSession(), BundleInfo.PROP_BUNDLE_ID, BundleInfo.TYPE_NAME, doc,
-                BundleInfo.PROP_BUNDLE_ID);
+        if (isBlobStored()) {
+            return getBlobSnapshot().getBundleIds();
+        }
+        return getIds(BundleInfo.TYPE_NAME + "/" + BundleInfo.PROP_BUNDLE_ID,
+                () -> queryAndFetchIds(getCoreSession(), BundleInfo.PROP_BUNDLE_ID, BundleInfo.TYPE_NAME, doc,
+                        BundleInfo.PROP_BUNDLE_ID));
     }
 
     @Override
     public ComponentInfo getComponent(String id) {
+        if (isBlobStored()) {
+            return getBlobSnapshot().getComponent(id);
+        }
         ComponentInfo c = getChild(ComponentInfo.class, ComponentInfo.TYPE_NAME, ComponentInfo.PROP_COMPONENT_ID, id);
         if (c == null) {
             // try with an alias
-            c = getChild(ComponentInfo.class, ComponentInfo.TYPE_NAME, ComponentInfo.PROP_ALIASES, id);
+            c = getChildByAlias(ComponentInfo.class, ComponentInfo.TYPE_NAME, ComponentInfo.PROP_ALIASES, id);
         }
         return c;
     }
 
     @Override
     public List<String> getComponentIds() {
-        return queryAndFetchIds(getCoreSession(), ComponentInfo.PROP_COMPONENT_ID, ComponentInfo.TYPE_NAME, doc,
-                ComponentInfo.PROP_COMPONENT_ID);
+        if (isBlobStored()) {
+            return getBlobSnapshot().getComponentIds();
+        }
+        return getIds(ComponentInfo.TYPE_NAME + "/" + ComponentInfo.PROP_COMPONENT_ID,
+                () -> queryAndFetchIds(getCoreSession(), ComponentInfo.PROP_COMPONENT_ID, ComponentInfo.TYPE_NAME, doc,
+                        ComponentInfo.PROP_COMPONENT_ID));
     }
 
     @Override
     public List<ComponentInfo> getComponents() {
+        if (isBlobStored()) {
+            return getBlobSnapshot().getComponents();
+        }
         return getChildren(ComponentInfo.class, ComponentInfo.TYPE_NAME, ComponentInfo.PROP_COMPONENT_ID);
     }
 
+    @Override
+    public List<ComponentSummary> getComponentSummaries() {
+        if (isBlobStored()) {
+            return getBlobSnapshot().getComponentSummaries();
+        }
+        return getSummaries(ComponentSummary.class.getSimpleName(), this::queryComponentSummaries);
+    }
+
+    /** @since 2023.1 */
+    protected List<ComponentSummary> queryComponentSummaries() {
+        List<ComponentSummary> res = new ArrayList<>();
+        for (Map<String, Serializable> row : queryProjection(ComponentInfo.TYPE_NAME, ComponentInfo.PROP_COMPONENT_ID,
+                ComponentInfo.PROP_COMPONENT_ID, ComponentInfo.PROP_RESOLUTION_ORDER,
+                ComponentInfo.PROP_DECLARED_START_ORDER, ComponentInfo.PROP_IS_XML)) {
+            res.add(new ComponentSummary((String) row.get(ComponentInfo.PROP_COMPONENT_ID),
+                    (Long) row.get(ComponentInfo.PROP_RESOLUTION_ORDER),
+                    (Long) row.get(ComponentInfo.PROP_DECLARED_START_ORDER),
+                    Boolean.TRUE.equals(row.get(ComponentInfo.PROP_IS_XML))));
+        }
+        return res;
+    }
+
     @Override
     public ExtensionInfo getContribution(String id) {
+        if (isBlobStored()) {
+            return getBlobSnapshot().getContribution(id);
+        }
         return getChild(ExtensionInfo.class, ExtensionInfo.TYPE_NAME, ExtensionInfo.PROP_CONTRIB_ID, id);
     }
 
     @Override
     public List<String> getContributionIds() {
-        return queryAndFetchIds(getCoreSession(), ExtensionInfo.PROP_CONTRIB_ID, ExtensionInfo.TYPE_NAME, doc,
-                ExtensionInfo.PROP_CONTRIB_ID);
+        if (isBlobStored()) {
+            return getBlobSnapshot().getContributionIds();
+        }
+        return getIds(ExtensionInfo.TYPE_NAME + "/" + ExtensionInfo.PROP_CONTRIB_ID,
+                () -> queryAndFetchIds(getCoreSession(), ExtensionInfo.PROP_CONTRIB_ID, ExtensionInfo.TYPE_NAME, doc,
+                        ExtensionInfo.PROP_CONTRIB_ID));
     }
 
     @Override
     public List<ExtensionInfo> getContributions() {
+        if (isBlobStored()) {
+            return getBlobSnapshot().getContributions();
+        }
         return getChildren(ExtensionInfo.class, ExtensionInfo.TYPE_NAME, NXQL.ECM_POS);
     }
 
+    @Override
+    public List<ContributionSummary> getContributionSummaries() {
+        if (isBlobStored()) {
+            return getBlobSnapshot().getContributionSummaries();
+        }
+        return getSummaries(ContributionSummary.class.getSimpleName(), this::queryContributionSummaries);
+    }
+
+    /** @since 2023.1 */
+    protected List<ContributionSummary> queryContributionSummaries() {
+        List<ContributionSummary> res = new ArrayList<>();
+        for (Map<String, Serializable> row : queryProjection(ExtensionInfo.TYPE_NAME, ExtensionInfo.PROP_CONTRIB_ID,
+                ExtensionInfo.PROP_CONTRIB_ID, ExtensionInfo.PROP_EXTENSION_POINT,
+                ExtensionInfo.PROP_TARGET_COMPONENT_NAME)) {
+            res.add(new ContributionSummary((String) row.get(ExtensionInfo.PROP_CONTRIB_ID),
+                    (String) row.get(ExtensionInfo.PROP_EXTENSION_POINT),
+                    new ComponentName((String) row.get(ExtensionInfo.PROP_TARGET_COMPONENT_NAME))));
+        }
+        return res;
+    }
+
     @Override
     public ExtensionPointInfo getExtensionPoint(String id) {
+        if (isBlobStored()) {
+            return getBlobSnapshot().getExtensionPoint(id);
+        }
         ExtensionPointInfo xp = getChild(ExtensionPointInfo.class, ExtensionPointInfo.TYPE_NAME,
                 ExtensionPointInfo.PROP_EP_ID, id);
         if (xp == null) {
             // try with an alias
-            xp = getChild(ExtensionPointInfo.class, ExtensionPointInfo.TYPE_NAME, ExtensionPointInfo.PROP_EP_ALIASES,
-                    id);
+            xp = getChildByAlias(ExtensionPointInfo.class, ExtensionPointInfo.TYPE_NAME,
+                    ExtensionPointInfo.PROP_EP_ALIASES, id);
         }
         return xp;
     }
 
     @Override
     public List<String> getExtensionPointIds() {
-        return queryAndFetchIds(getCoreSession(), ExtensionPointInfo.PROP_EP_ID, ExtensionPointInfo.TYPE_NAME, doc,
-                ExtensionPointInfo.PROP_EP_ID);
+        if (isBlobStored()) {
+            return getBlobSnapshot().getExtensionPointIds();
+        }
+        return getIds(ExtensionPointInfo.TYPE_NAME + "/" + ExtensionPointInfo.PROP_EP_ID,
+                () -> queryAndFetchIds(getCoreSession(), ExtensionPointInfo.PROP_EP_ID, ExtensionPointInfo.TYPE_NAME,
+                        doc, ExtensionPointInfo.PROP_EP_ID));
     }
 
     public List<String> getBundleGroupIds() {
-        return queryAndFetchIds(getCoreSession(), BundleGroup.PROP_KEY, BundleGroup.TYPE_NAME, doc,
-                BundleGroup.PROP_KEY);
+        if (isBlobStored()) {
+            return getBlobSnapshot().getBundleGroups()
+                                    .stream()
+                                    .map(BundleGroup::getId)
+                                    .sorted()
+                                    .collect(Collectors.toList());
+        }
+        return getIds(BundleGroup.TYPE_NAME + "/" + BundleGroup.PROP_KEY,
+                () -> queryAndFetchIds(getCoreSession(), BundleGroup.PROP_KEY, BundleGroup.TYPE_NAME, doc,
+                        BundleGroup.PROP_KEY));
     }
 
     @Override
     public List<String> getServiceIds() {
-        return queryAndFetchIds(getCoreSession(), ServiceInfo.PROP_CLASS_NAME, ServiceInfo.TYPE_NAME, doc,
-                ServiceInfo.PROP_CLASS_NAME);
+        if (isBlobStored()) {
+            return getBlobSnapshot().getServiceIds();
+        }
+        return getIds(ServiceInfo.TYPE_NAME + "/" + ServiceInfo.PROP_CLASS_NAME,
+                () -> queryAndFetchIds(getCoreSession(), ServiceInfo.PROP_CLASS_NAME, ServiceInfo.TYPE_NAME, doc,
+                        ServiceInfo.PROP_CLASS_NAME));
     }
 
     @Override
@@ -322,10 +705,17 @@ public class RepositoryDistributionSnapshot extends BaseNuxeoArtifactDocAdapter
 
     @Override
     public ServiceInfo getService(String id) {
+        if (isBlobStored()) {
+            return getBlobSnapshot().getService(id);
+        }
         // Select only not overridden ticket and old imported NXService without overridden value
-        String query = String.format("%s AND (%s = 0 OR %s is NULL)",
-                QueryHelper.select(ServiceInfo.TYPE_NAME, getDoc(), ServiceInfo.PROP_CLASS_NAME, id),
-                ServiceInfo.PROP_OVERRIDEN, ServiceInfo.PROP_OVERRIDEN);
+        String clause = String.format("(%s = 0 OR %s is NULL)", ServiceInfo.PROP_OVERRIDEN,
+                ServiceInfo.PROP_OVERRIDEN);
+        if (getIndex() != null) {
+            return getChild(ServiceInfo.class, ServiceInfo.TYPE_NAME, ServiceInfo.PROP_CLASS_NAME, id, clause);
+        }
+        String query = String.format("%s AND %s",
+                QueryHelper.select(ServiceInfo.TYPE_NAME, getDoc(), ServiceInfo.PROP_CLASS_NAME, id), clause);
         DocumentModelList docs = query(getCoreSession(), query);
         if (docs.size() == 0) {
             return null;
@@ -337,14 +727,25 @@ public class RepositoryDistributionSnapshot extends BaseNuxeoArtifactDocAdapter
     }
 
     protected List<String> getComponentIds(boolean isXML) {
-        String query = String.format("%s AND %s = %s ORDER BY %s", QueryHelper.select(ComponentInfo.TYPE_NAME, doc),
-                ComponentInfo.PROP_IS_XML, isXML ? 1 : 0, ComponentInfo.PROP_COMPONENT_NAME);
-        DocumentModelList docs = query(getCoreSession(), query);
-        return docs.stream()
-                   .map(doc -> doc.getAdapter(ComponentInfo.class))
-                   .filter(Objects::nonNull)
-                   .map(NuxeoArtifact::getId)
-                   .collect(Collectors.toList());
+        if (isBlobStored()) {
+            return getBlobSnapshot().getComponents()
+                                    .stream()
+                                    .filter(c -> c.isXmlPureComponent() == isXML)
+                                    .sorted(Comparator.comparing(ComponentInfo::getName))
+                                    .map(NuxeoArtifact::getId)
+                                    .collect(Collectors.toList());
+        }
+        return getIds(ComponentInfo.TYPE_NAME + "/" + ComponentInfo.PROP_IS_XML + "/" + isXML, () -> {
+            String query = String.format("%s AND %s = %s ORDER BY %s",
+                    QueryHelper.select(ComponentInfo.TYPE_NAME, doc), ComponentInfo.PROP_IS_XML, isXML ? 1 : 0,
+                    ComponentInfo.PROP_COMPONENT_NAME);
+            DocumentModelList docs = query(getCoreSession(), query);
+            return docs.stream()
+                       .map(doc -> doc.getAdapter(ComponentInfo.class))
+                       .filter(Objects::nonNull)
+                       .map(NuxeoArtifact::getId)
+                       .collect(Collectors.toList());
+        });
     }
 
     @Override
@@ -366,9 +767,19 @@ public class RepositoryDistributionSnapshot extends BaseNuxeoArtifactDocAdapter
 
     @Override
     public OperationInfo getOperation(String id) {
+        if (isBlobStored()) {
+            return getBlobSnapshot().getOperation(id);
+        }
         if (id.startsWith(OperationInfo.ARTIFACT_PREFIX)) {
             id = id.substring(OperationInfo.ARTIFACT_PREFIX.length());
         }
+        if (getIndex() != null) {
+            OperationInfo op = getChild(OperationInfo.class, OperationInfo.TYPE_NAME, OperationInfo.PROP_NAME, id);
+            if (op == null) {
+                op = getChildByAlias(OperationInfo.class, OperationInfo.TYPE_NAME, OperationInfo.PROP_ALIASES, id);
+            }
+            return op;
+        }
         String query = String.format("%s OR %s = %s",
                 QueryHelper.select(OperationInfo.TYPE_NAME, getDoc(), OperationInfo.PROP_NAME, id),
                 OperationInfo.PROP_ALIASES, NXQL.escapeString(id));
@@ -378,16 +789,52 @@ public class RepositoryDistributionSnapshot extends BaseNuxeoArtifactDocAdapter
 
     @Override
     public List<OperationInfo> getOperations() {
-        String query = QueryHelper.select(OperationInfo.TYPE_NAME, getDoc(), NXQL.ECM_POS);
-        DocumentModelList docs = query(getCoreSession(), query);
-        return docs.stream()
-                   .map(doc -> doc.getAdapter(OperationInfo.class))
-                   .filter(Objects::nonNull)
-                   .collect(Collectors.toList());
+        if (isBlobStored()) {
+            return getBlobSnapshot().getOperations();
+        }
+        return getChildren(OperationInfo.class, OperationInfo.TYPE_NAME, NXQL.ECM_POS);
+    }
+
+    @Override
+    public List<OperationSummary> getOperationSummaries() {
+        if (isBlobStored()) {
+            return getBlobSnapshot().getOperationSummaries();
+        }
+        return getSummaries(OperationSummary.class.getSimpleName(), this::queryOperationSummaries);
+    }
+
+    /** @since 2023.1 */
+    protected List<OperationSummary> queryOperationSummaries() {
+        // list properties cannot be projected along with other properties: aliases are fetched separately
+        String aliasProp = OperationInfo.PROP_ALIASES + "/*1";
+        String aliasQuery = String.format("SELECT %s, %s FROM %s WHERE %s STARTSWITH %s AND %s AND %s IS NOT NULL",
+                NXQL.ECM_UUID, aliasProp, OperationInfo.TYPE_NAME, NXQL.ECM_PATH,
+                NXQL.escapeString(doc.getPathAsString()), QueryHelper.NOT_DELETED, aliasProp);
+        Map<String, List<String>> aliases = new HashMap<>();
+        for (Map<String, Serializable> row : getCoreSession().queryProjection(aliasQuery, 0, 0)) {
+            aliases.computeIfAbsent((String) row.get(NXQL.ECM_UUID), k -> new ArrayList<>())
+                   .add((String) row.get(aliasProp));
+        }
+        List<OperationSummary> res = new ArrayList<>();
+        for (Map<String, Serializable> row : queryProjection(OperationInfo.TYPE_NAME, NXQL.ECM_POS, NXQL.ECM_UUID,
+                OperationInfo.PROP_NAME, OperationInfo.PROP_LABEL, OperationInfo.PROP_CATEGORY,
+                OperationInfo.PROP_REQUIRES, OperationInfo.PROP_SINCE)) {
+            res.add(new OperationSummary((String) row.get(OperationInfo.PROP_NAME),
+                    (String) row.get(OperationInfo.PROP_LABEL), (String) row.get(OperationInfo.PROP_CATEGORY),
+                    aliases.get(row.get(NXQL.ECM_UUID)), (String) row.get(OperationInfo.PROP_REQUIRES),
+                    (String) row.get(OperationInfo.PROP_SINCE)));
+        }
+        return res;
     }
 
     @Override
     public PackageInfo getPackage(String name) {
+        if (isBlobStored()) {
+            return getBlobSnapshot().getPackage(name);
+        }
+        if (getIndex() != null) {
+            return getChild(PackageInfo.class, PackageInfo.TYPE_NAME, PackageInfo.PROP_PACKAGE_NAME, name);
+        }
         String query = QueryHelper.select(PackageInfo.TYPE_NAME, getDoc(), PackageInfo.PROP_PACKAGE_NAME, name);
         DocumentModelList docs = query(getCoreSession(), query);
         return docs.isEmpty() ? null : docs.get(0).getAdapter(PackageInfo.class);
@@ -395,12 +842,10 @@ public class RepositoryDistributionSnapshot extends BaseNuxeoArtifactDocAdapter
 
     @Override
     public List<PackageInfo> getPackages() {
-        String query = QueryHelper.select(PackageInfo.TYPE_NAME, getDoc(), PackageInfo.PROP_PACKAGE_ID);
-        DocumentModelList docs = query(getCoreSession(), query);
-        return docs.stream()
-                   .map(doc -> doc.getAdapter(PackageInfo.class))
-                   .filter(Objects::nonNull)
-                   .collect(Collectors.toList());
+        if (isBlobStored()) {
+            return getBlobSnapshot().getPackages();
+        }
+        return getChildren(PackageInfo.class, PackageInfo.TYPE_NAME, PackageInfo.PROP_PACKAGE_ID);
     }
 
     public JavaDocHelper getJavaDocHelper() {
@@ -472,6 +917,19 @@ public class RepositoryDistributionSnapshot extends BaseNuxeoArtifactDocAdapter
         return mapper;
     }
 
+    /**
+     * Returns the instance to serialize for an export: a new instance, confined to the exporting thread, whose
+     * children listings are fetched by pages.
+     *
+     * @since 2023.1
+     */
+    protected DistributionSnapshot getExportedSnapshot() {
+        if (isBlobStored()) {
+            return this;
+        }
+        return new RepositoryDistributionSnapshot(doc, true);
+    }
+
     @Override
     public void writeJson(OutputStream out, SnapshotFilter filter, PrettyPrinter printer) {
         ObjectWriter writer = getJsonMapper(false, filter).writerFor(DistributionSnapshot.class)
@@ -482,7 +940,7 @@ public class RepositoryDistributionSnapshot extends BaseNuxeoArtifactDocAdapter
             writer = writer.with(printer);
         }
         try {
-            writer.writeValue(out, this);
+            writer.writeValue(out, getExportedSnapshot());
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -502,12 +960,204 @@ public class RepositoryDistributionSnapshot extends BaseNuxeoArtifactDocAdapter
 
     @Override
     public Map<String, PluginSnapshot<?>> getPluginSnapshots() {
+        if (isBlobStored()) {
+            return getBlobSnapshot().getPluginSnapshots();
+        }
         return Framework.getService(SnapshotManager.class)
                         .getPlugins()
                         .stream()
                         .collect(Collectors.toMap(Plugin::getId, p -> p.getRepositorySnapshot(getDoc())));
     }
 
+    /**
+     * Attaches given object to the node-local index of this distribution, when available, for the current user.
+     *
+     * @since 2023.1
+     */
+    @Override
+    public <T> T getAttachment(String name, Supplier<T> loader) {
+        DistributionIndex index = getIndex();
+        if (index == null) {
+            return loader.get();
+        }
+        return index.getAttachment(getUserEntryName(name), loader);
+    }
+
+    /**
+     * Stores the given snapshot as a single compressed blob on this distribution document, instead of one document per
+     * artifact.
+     * <p>
+     * The given bundle groups are stored along with the snapshot, so that reading the blob restores the same bundle
+     * groups, and hierarchy paths, as the documents storage.
+     *
+     * @param bundleGroups the root bundle groups, as persisted with the documents storage
+     * @since 2023.1
+     */
+    public void writeBlob(DistributionSnapshot snapshot, SnapshotFilter filter, List<BundleGroup> bundleGroups) {
+        Blob blob;
+        try {
+            blob = Blobs.createBlobWithExtension(BLOB_FILENAME_SUFFIX);
+            try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(blob.getFile()))) {
+                out.putNextEntry(new ZipEntry(BLOB_SNAPSHOT_ENTRY));
+                snapshot.writeJson(out, filter, null);
+                out.closeEntry();
+                out.putNextEntry(new ZipEntry(BLOB_BUNDLE_GROUPS_ENTRY));
+                BUNDLE_GROUPS_MAPPER.writeValue(out,
+                        bundleGroups.stream().map(this::writeBundleGroup).collect(Collectors.toList()));
+                out.closeEntry();
+            }
+        } catch (IOException e) {
+            throw new NuxeoException(e);
+        }
+        blob.setMimeType(BLOB_MIME_TYPE);
+        blob.setFilename(BLOB_FILENAME_PREFIX + BLOB_FORMAT_VERSION + BLOB_FILENAME_SUFFIX);
+        doc.setPropertyValue(CONTENT_PROPERTY_PATH, (Serializable) blob);
+        fillContextData(doc);
+        doc = getCoreSession().saveDocument(doc);
+        blobFormatVersion = BLOB_FORMAT_VERSION;
+        blobSnapshot = null;
+    }
+
+    protected Map<String, Object> writeBundleGroup(BundleGroup bundleGroup) {
+        Map<String, Object> node = new LinkedHashMap<>();
+        node.put(BUNDLE_GROUP_ID, bundleGroup.getId());
+        node.put(BUNDLE_GROUP_VERSION, bundleGroup.getVersion());
+        node.put(BUNDLE_GROUP_BUNDLES, bundleGroup.getBundleIds());
+        node.put(BUNDLE_GROUP_READMES, !bundleGroup.getReadmes().isEmpty());
+        node.put(BUNDLE_GROUP_SUBGROUPS,
+                bundleGroup.getSubGroups().stream().map(this::writeBundleGroup).collect(Collectors.toList()));
+        return node;
+    }
+
+    /**
+     * Returns true if this distribution is stored as a single blob, see {@link #writeBlob}.
+     *
+     * @since 2023.1
+     */
+    public boolean isBlobStored() {
+        Integer version = blobFormatVersion;
+        if (version == null) {
+            version = getBlobFormatVersion();
+            blobFormatVersion = version;
+        }
+        return version > 0;
+    }
+
+    /**
+     * Returns the format version of the blob holding this distribution, or 0 if not stored as a blob.
+     *
+     * @since 2023.1
+     */
+    protected int getBlobFormatVersion() {
+        Blob blob = safeGet(CONTENT_PROPERTY_PATH);
+        String filename = blob == null ? null : blob.getFilename();
+        if (filename == null || !filename.startsWith(BLOB_FILENAME_PREFIX)
+                || !filename.endsWith(BLOB_FILENAME_SUFFIX)) {
+            return 0;
+        }
+        String version = filename.substring(BLOB_FILENAME_PREFIX.length(),
+                filename.length() - BLOB_FILENAME_SUFFIX.length());
+        return NumberUtils.toInt(version, 0);
+    }
+
+    /**
+     * Returns the in-memory snapshot deserialized from the blob holding this distribution, reading it on first call.
+     *
+     * @since 2023.1
+     */
+    public DistributionSnapshot getBlobSnapshot() {
+        DistributionIndex index = getIndex();
+        if (index != null) {
+            // shared by all users on this node: only depends on the distribution document, readable by current user
+            return index.getAttachment(BLOB_SNAPSHOT_ATTACHMENT, this::readBlob);
+        }
+        DistributionSnapshot result = blobSnapshot;
+        if (result == null) {
+            synchronized (this) {
+                result = blobSnapshot;
+                if (result == null) {
+                    result = readBlob();
+                    blobSnapshot = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    protected DistributionSnapshot readBlob() {
+        int version = getBlobFormatVersion();
+        if (version > BLOB_FORMAT_VERSION) {
+            throw new NuxeoException(
+                    String.format("Unsupported format version %s for distribution '%s'", version, getKey()));
+        }
+        Blob blob = safeGet(CONTENT_PROPERTY_PATH);
+        long start = System.currentTimeMillis();
+        RuntimeSnapshot snapshot = null;
+        List<Map<String, Object>> bundleGroups = null;
+        try (ZipInputStream in = new ZipInputStream(blob.getStream())) {
+            ZipEntry entry;
+            while ((entry = in.getNextEntry()) != null) {
+                if (BLOB_SNAPSHOT_ENTRY.equals(entry.getName())) {
+                    snapshot = (RuntimeSnapshot) readJson(in);
+                } else if (BLOB_BUNDLE_GROUPS_ENTRY.equals(entry.getName())) {
+                    bundleGroups = BUNDLE_GROUPS_MAPPER.readValue(in, new TypeReference<>() {
+                    });
+                }
+            }
+        } catch (IOException e) {
+            throw new NuxeoException(e);
+        }
+        if (snapshot == null || bundleGroups == null) {
+            throw new NuxeoException(String.format("Invalid blob for distribution '%s'", getKey()));
+        }
+        List<BundleGroup> roots = new ArrayList<>();
+        for (Map<String, Object> node : bundleGroups) {
+            roots.add(readBundleGroup(snapshot, node, List.of()));
+        }
+        snapshot.setBundleGroups(roots);
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("Read distribution '%s' from blob in %sms", getKey(),
+                    System.currentTimeMillis() - start));
+        }
+        return snapshot;
+    }
+
+    /**
+     * Restores a bundle group written by {@link #writeBundleGroup}, with all its ancestors as parents, as with the
+     * documents storage.
+     */
+    @SuppressWarnings("unchecked")
+    protected BundleGroupImpl readBundleGroup(DistributionSnapshot snapshot, Map<String, Object> node,
+            List<String> parentIds) {
+        BundleGroupImpl bundleGroup = new BundleGroupImpl((String) node.get(BUNDLE_GROUP_ID));
+        bundleGroup.setVersion((String) node.get(BUNDLE_GROUP_VERSION));
+        parentIds.forEach(bundleGroup::addParent);
+        boolean readmes = Boolean.TRUE.equals(node.get(BUNDLE_GROUP_READMES));
+        for (String bundleId : (List<String>) node.get(BUNDLE_GROUP_BUNDLES)) {
+            bundleGroup.add(bundleId);
+            BundleInfo bundle = snapshot.getBundle(bundleId);
+            if (bundle == null) {
+                continue;
+            }
+            bundle.setBundleGroup(bundleGroup);
+            if (readmes) {
+                try {
+                    bundleGroup.addReadme(bundle.getParentReadme());
+                } catch (IOException e) {
+                    log.error("Error setting readme on bundle group", e);
+                }
+            }
+        }
+        List<String> subParentIds = new ArrayList<>(parentIds);
+        subParentIds.add(bundleGroup.getId());
+        for (Map<String, Object> subNode : (List<Map<String, Object>>) node.get(BUNDLE_GROUP_SUBGROUPS)) {
+            BundleGroupImpl subGroup = readBundleGroup(snapshot, subNode, subParentIds);
+            subGroup.setParentGroup(bundleGroup);
+            bundleGroup.add(subGroup);
+        }
+        return bundleGroup;
+    }
+
     /**
      * Returns a key/value map of properties for update.
      *
@@ -21,12 +21,16 @@ package org.nuxeo.apidoc.repository;
 
 import java.io.Serializable;
 import java.lang.reflect.Constructor;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.nuxeo.apidoc.adapters.BaseNuxeoArtifactDocAdapter;
 import org.nuxeo.apidoc.adapters.BundleGroupDocAdapter;
 import org.nuxeo.apidoc.adapters.BundleInfoDocAdapter;
 import org.nuxeo.apidoc.adapters.ComponentInfoDocAdapter;
@@ -53,6 +57,8 @@ import org.nuxeo.ecm.core.api.CoreInstance;
 import org.nuxeo.ecm.core.api.CoreSession;
 import org.nuxeo.ecm.core.api.DocumentModel;
 import org.nuxeo.ecm.core.api.DocumentRef;
+import org.nuxeo.ecm.core.api.NuxeoException;
+import org.nuxeo.ecm.core.api.NuxeoPrincipal;
 import org.nuxeo.ecm.core.api.PathRef;
 import org.nuxeo.ecm.core.api.security.ACE;
 import org.nuxeo.ecm.core.api.security.ACL;
@@ -60,6 +66,9 @@ import org.nuxeo.ecm.core.api.security.ACP;
 import org.nuxeo.ecm.core.api.security.SecurityConstants;
 import org.nuxeo.ecm.core.api.security.impl.ACLImpl;
 import org.nuxeo.ecm.core.api.validation.DocumentValidationException;
+import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.services.config.ConfigurationService;
+import org.nuxeo.runtime.transaction.TransactionHelper;
 
 public class SnapshotPersister {
 
@@ -76,6 +85,69 @@ public class SnapshotPersister {
     /** @since 11.1 */
     public static final String PACKAGE_ROOT_NAME = "Packages";
 
+    /**
+     * Property controlling the number of documents created at once when persisting a distribution, documents are
+     * created one by one if lower than 1.
+     *
+     * @since 2023.1
+     */
+    public static final String PROPERTY_BATCH_SIZE = "org.nuxeo.apidoc.persist.batch.size";
+
+    /**
+     * Property controlling the number of batches after which the transaction is committed when persisting a
+     * distribution, transaction is never committed before the end of persistence if lower than 1.
+     * <p>
+     * Intermediate commits apply to the transaction of the calling thread: callers enabling them must not rely on
+     * rolling back their own transaction, changes made before persistence are committed with the first batches. The
+     * distribution stays hidden until persistence is complete.
+     *
+     * @since 2023.1
+     */
+    public static final String PROPERTY_BATCH_COMMIT_INTERVAL = "org.nuxeo.apidoc.persist.batch.commitInterval";
+
+    /** @since 2023.1 */
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    /** @since 2023.1 */
+    public static final int DEFAULT_BATCH_COMMIT_INTERVAL = 0;
+
+    /**
+     * Property controlling the number of threads used to persist bundles content in parallel, each thread using its
+     * own session and transactions. Bundles content is persisted in the calling thread if lower than 2.
+     * <p>
+     * Bundle documents are committed in the transaction of the calling thread before their content is persisted, so
+     * that other sessions see them. If persistence fails afterwards, the partial distribution is removed in a separate
+     * transaction, and the current transaction is marked for rollback.
+     *
+     * @since 2023.1
+     */
+    public static final String PROPERTY_PARALLEL_THREADS = "org.nuxeo.apidoc.persist.parallel.threads";
+
+    /** @since 2023.1 */
+    public static final int DEFAULT_PARALLEL_THREADS = 0;
+
+    /** @since 2023.1 */
+    public static final Duration PARALLEL_TIMEOUT = Duration.ofHours(1);
+
+    /**
+     * Property controlling how distributions are stored: as one document per artifact ({@link #STORAGE_DOCUMENTS}),
+     * or as a single compressed blob on the distribution document ({@link #STORAGE_BLOB}). Distributions stored as a
+     * blob are read back in memory on demand, and are not indexed for search.
+     * <p>
+     * Both storages expose the same artifacts, bundle groups and hierarchy paths, but artifacts of a distribution
+     * stored as a blob are not document adapters: they cannot be resolved to a document, and ids of documents are not
+     * available for them.
+     *
+     * @since 2023.1
+     */
+    public static final String PROPERTY_STORAGE = "org.nuxeo.apidoc.persist.storage";
+
+    /** @since 2023.1 */
+    public static final String STORAGE_DOCUMENTS = "documents";
+
+    /** @since 2023.1 */
+    public static final String STORAGE_BLOB = "blob";
+
     public DocumentModel getSubRoot(CoreSession session, DocumentModel root, String name) {
         DocumentRef rootRef = new PathRef(root.getPathAsString() + name);
         if (session.exists(rootRef)) {
@@ -118,6 +190,18 @@ public class SnapshotPersister {
         return session.getDocument(root.getRef());
     }
 
+    /**
+     * Returns a writer for distribution documents, configured according to {@link #PROPERTY_BATCH_SIZE} and
+     * {@link #PROPERTY_BATCH_COMMIT_INTERVAL}.
+     *
+     * @since 2023.1
+     */
+    public BatchDocumentWriter getWriter(CoreSession session, String label) {
+        ConfigurationService cs = Framework.getService(ConfigurationService.class);
+        return new BatchDocumentWriter(session, cs.getInteger(PROPERTY_BATCH_SIZE, DEFAULT_BATCH_SIZE),
+                cs.getInteger(PROPERTY_BATCH_COMMIT_INTERVAL, DEFAULT_BATCH_COMMIT_INTERVAL), label);
+    }
+
     public DistributionSnapshot persist(DistributionSnapshot snapshot, CoreSession session, String label,
             SnapshotFilter filter, Map<String, Serializable> properties, List<String> reservedKeys,
             List<Plugin<?>> plugins) throws DocumentValidationException {
@@ -127,59 +211,66 @@ public class SnapshotPersister {
 
         distribContainer.cleanPreviousArtifacts();
 
-        DocumentModel bundleContainer = getSubRoot(session, distribContainer.getDoc(), Bundle_Root_NAME);
-
-        if (filter != null) {
-            // create VGroup that contains only the target bundles
-            BundleGroupImpl vGroup = new BundleGroupImpl(filter.getName());
-            vGroup.setVersion(snapshot.getVersion());
-            var selectedBundles = new ArrayList<NuxeoArtifact>();
-            for (BundleInfo bundle : snapshot.getBundles()) {
-                if (filter.accept(bundle)) {
-                    selectedBundles.add(bundle);
-                    vGroup.add(bundle.getId());
-                }
-            }
+        Map<BundleGroup, SnapshotFilter> bundleGroups = getPersistedBundleGroups(snapshot, filter);
+        if (STORAGE_BLOB.equals(getStorage())) {
+            // plugin snapshots are serialized within the blob
+            distribContainer.writeBlob(snapshot, filter, List.copyOf(bundleGroups.keySet()));
+            session.save();
+            return distribContainer;
+        }
+
+        BatchDocumentWriter writer = getWriter(session, distribContainer.getKey());
+        int nbThreads = Framework.getService(ConfigurationService.class)
+                                 .getInteger(PROPERTY_PARALLEL_THREADS, DEFAULT_PARALLEL_THREADS);
+        // bundles content is persisted in parallel once all bundle documents are committed
+        List<BundleTask> bundleTasks = nbThreads > 1 ? new ArrayList<>() : null;
+        boolean committing = writer.isCommitting() || bundleTasks != null;
+
+        DocumentModel distribDoc = distribContainer.getDoc();
+        boolean hidden = Boolean.TRUE.equals(distribDoc.getPropertyValue(DistributionSnapshot.PROP_HIDE));
+        if (committing && !hidden) {
+            // keep the distribution hidden while persistence is not complete
+            setHidden(session, distribDoc, true);
+        }
+
+        try {
+            DocumentModel bundleContainer = getSubRoot(session, distribDoc, Bundle_Root_NAME);
 
-            persistBundleGroup(snapshot, filter, vGroup, session, label + "-bundles", bundleContainer);
-
-            Class<? extends SnapshotFilter> refClass = filter.getReferenceClass();
-            if (refClass != null) {
-                try {
-                    String refFilterName = filter.getName() + SnapshotFilter.REFERENCE_FILTER_NAME_SUFFIX;
-                    Constructor<? extends SnapshotFilter> constructor = refClass.getConstructor(String.class,
-                            List.class);
-                    SnapshotFilter refFilter = constructor.newInstance(refFilterName, selectedBundles);
-                    // create VGroup that contains only the reference bundles
-                    BundleGroupImpl reference = new BundleGroupImpl(refFilterName);
-                    reference.setVersion(snapshot.getVersion());
-                    snapshot.getBundles()
-                            .stream()
-                            .filter(refFilter::accept)
-                            .map(BundleInfo::getId)
-                            .forEach(reference::add);
-                    persistBundleGroup(snapshot, refFilter, reference, session, refFilterName, bundleContainer);
-                } catch (ReflectiveOperationException e) {
-                    throw new RuntimeException(e);
-                }
+            for (Map.Entry<BundleGroup, SnapshotFilter> entry : bundleGroups.entrySet()) {
+                persistBundleGroup(snapshot, entry.getValue(), entry.getKey(), writer, label, bundleContainer,
+                        bundleTasks);
             }
 
-        } else {
-            List<BundleGroup> bundleGroups = snapshot.getBundleGroups();
-            for (BundleGroup bundleGroup : bundleGroups) {
-                persistBundleGroup(snapshot, null, bundleGroup, session, label, bundleContainer);
+            if (bundleTasks != null) {
+                writer.close();
+                // make bundle documents visible to the sessions of the tasks
+                TransactionHelper.commitOrRollbackTransaction();
+                TransactionHelper.startTransaction();
+                persistBundleTasks(bundleTasks, session, distribContainer.getKey(), nbThreads);
             }
-        }
 
-        DocumentModel opContainer = getSubRoot(session, distribContainer.getDoc(), Operation_Root_NAME);
-        persistOperations(snapshot, snapshot.getOperations(), session, label, opContainer, filter);
+            DocumentModel opContainer = getSubRoot(session, distribDoc, Operation_Root_NAME);
+            persistOperations(snapshot, snapshot.getOperations(), writer, label, opContainer, filter);
+
+            DocumentModel packagesContainer = getSubRoot(session, distribDoc, PACKAGE_ROOT_NAME);
+            persistPackages(snapshot, snapshot.getPackages(), writer, label, packagesContainer, filter);
 
-        DocumentModel packagesContainer = getSubRoot(session, distribContainer.getDoc(), PACKAGE_ROOT_NAME);
-        persistPackages(snapshot, snapshot.getPackages(), session, label, packagesContainer, filter);
+            writer.close();
 
-        // handle plugins persistence
-        for (Plugin<?> plugin : plugins) {
-            plugin.persist(snapshot, session, distribContainer.getDoc(), filter);
+            // handle plugins persistence
+            for (Plugin<?> plugin : plugins) {
+                plugin.persist(snapshot, session, distribDoc, filter);
+            }
+        } catch (RuntimeException e) {
+            if (committing) {
+                // documents committed so far are not rolled back with the current transaction
+                removeDistribution(session, distribDoc.getRef());
+            }
+            throw e;
+        }
+
+        if (committing && !hidden) {
+            setHidden(session, distribDoc, false);
         }
 
         // needed for tests
@@ -188,76 +279,250 @@ public class SnapshotPersister {
         return distribContainer;
     }
 
+    /**
+     * Returns the storage of distributions, see {@link #PROPERTY_STORAGE}.
+     *
+     * @since 2023.1
+     */
+    protected String getStorage() {
+        return Framework.getService(ConfigurationService.class).getString(PROPERTY_STORAGE, STORAGE_DOCUMENTS);
+    }
+
+    /**
+     * Returns the root bundle groups persisted for given snapshot, associated to the filter applied to their content.
+     * <p>
+     * When filtering, a virtual group holds the bundles selected by the filter, and another one the bundles selected
+     * by its reference filter, if any. Otherwise, the bundle groups of the snapshot are persisted.
+     *
+     * @since 2023.1
+     */
+    protected Map<BundleGroup, SnapshotFilter> getPersistedBundleGroups(DistributionSnapshot snapshot,
+            SnapshotFilter filter) {
+        Map<BundleGroup, SnapshotFilter> bundleGroups = new LinkedHashMap<>();
+        if (filter == null) {
+            snapshot.getBundleGroups().forEach(bundleGroup -> bundleGroups.put(bundleGroup, null));
+            return bundleGroups;
+        }
+        // create VGroup that contains only the target bundles
+        BundleGroupImpl vGroup = new BundleGroupImpl(filter.getName());
+        vGroup.setVersion(snapshot.getVersion());
+        var selectedBundles = new ArrayList<NuxeoArtifact>();
+        for (BundleInfo bundle : snapshot.getBundles()) {
+            if (filter.accept(bundle)) {
+                selectedBundles.add(bundle);
+                vGroup.add(bundle.getId());
+            }
+        }
+        bundleGroups.put(vGroup, filter);
+
+        Class<? extends SnapshotFilter> refClass = filter.getReferenceClass();
+        if (refClass != null) {
+            try {
+                String refFilterName = filter.getName() + SnapshotFilter.REFERENCE_FILTER_NAME_SUFFIX;
+                Constructor<? extends SnapshotFilter> constructor = refClass.getConstructor(String.class, List.class);
+                SnapshotFilter refFilter = constructor.newInstance(refFilterName, selectedBundles);
+                // create VGroup that contains only the reference bundles
+                BundleGroupImpl reference = new BundleGroupImpl(refFilterName);
+                reference.setVersion(snapshot.getVersion());
+                snapshot.getBundles()
+                        .stream()
+                        .filter(refFilter::accept)
+                        .map(BundleInfo::getId)
+                        .forEach(reference::add);
+                bundleGroups.put(reference, refFilter);
+            } catch (ReflectiveOperationException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        return bundleGroups;
+    }
+
+    /** @since 2023.1 */
+    protected void setHidden(CoreSession session, DocumentModel distribDoc, boolean hidden) {
+        distribDoc.setPropertyValue(DistributionSnapshot.PROP_HIDE, hidden);
+        BaseNuxeoArtifactDocAdapter.fillContextData(distribDoc);
+        session.saveDocument(distribDoc);
+        session.save();
+    }
+
+    /**
+     * Persists given bundle group and its content.
+     * <p>
+     * If given list of tasks is not null, bundles content is not persisted and tasks are added to this list instead.
+     */
     protected void persistBundleGroup(DistributionSnapshot snapshot, SnapshotFilter filter, BundleGroup bundleGroup,
-            CoreSession session, String label, DocumentModel parent) {
+            BatchDocumentWriter writer, String label, DocumentModel parent, List<BundleTask> bundleTasks) {
         if (log.isTraceEnabled()) {
             log.trace("Persist bundle group " + bundleGroup.getId());
         }
-        DocumentModel bundleGroupDoc = BundleGroupDocAdapter.create(bundleGroup, session, parent.getPathAsString())
-                                                            .getDoc();
+        DocumentModel bundleGroupDoc = writer.add(withParentData(
+                BundleGroupDocAdapter.createDocumentModel(bundleGroup, writer.getSession(), parent.getPathAsString()),
+                parent));
 
         for (String bundleId : bundleGroup.getBundleIds()) {
-            persistBundle(snapshot, filter, snapshot.getBundle(bundleId), session, label, bundleGroupDoc);
+            persistBundle(snapshot, filter, snapshot.getBundle(bundleId), writer, label, bundleGroupDoc, bundleTasks);
         }
 
         for (BundleGroup subGroup : bundleGroup.getSubGroups()) {
-            persistBundleGroup(snapshot, filter, subGroup, session, label, bundleGroupDoc);
+            persistBundleGroup(snapshot, filter, subGroup, writer, label, bundleGroupDoc, bundleTasks);
         }
     }
 
     protected void persistBundle(DistributionSnapshot snapshot, SnapshotFilter filter, BundleInfo bundleInfo,
-            CoreSession session, String label, DocumentModel parent) {
+            BatchDocumentWriter writer, String label, DocumentModel parent, List<BundleTask> bundleTasks) {
         if (log.isTraceEnabled()) {
             log.trace("Persist bundle " + bundleInfo.getId());
         }
-        DocumentModel bundleDoc = BundleInfoDocAdapter.create(bundleInfo, session, parent.getPathAsString()).getDoc();
+        DocumentModel bundleDoc = writer.add(withParentData(
+                BundleInfoDocAdapter.createDocumentModel(bundleInfo, writer.getSession(), parent.getPathAsString()),
+                parent));
 
+        if (bundleTasks != null) {
+            bundleTasks.add(new BundleTask(snapshot, filter, bundleInfo, bundleDoc));
+        } else {
+            persistBundleContent(snapshot, filter, bundleInfo, writer, label, bundleDoc);
+        }
+    }
+
+    /** @since 2023.1 */
+    protected void persistBundleContent(DistributionSnapshot snapshot, SnapshotFilter filter, BundleInfo bundleInfo,
+            BatchDocumentWriter writer, String label, DocumentModel bundleDoc) {
         for (ComponentInfo ci : bundleInfo.getComponents()) {
             if (filter == null || filter.accept(ci)) {
-                persistComponent(snapshot, filter, ci, session, label, bundleDoc);
+                persistComponent(snapshot, filter, ci, writer, label, bundleDoc);
+            }
+        }
+    }
+
+    /**
+     * Persists bundles content on a bounded pool of threads, each task using its own session and transaction.
+     * <p>
+     * Throws a {@link NuxeoException} if any task failed, tasks not started yet being skipped.
+     *
+     * @since 2023.1
+     */
+    protected void persistBundleTasks(List<BundleTask> tasks, CoreSession session, String label, int nbThreads) {
+        AtomicLong count = new AtomicLong();
+        try (ParallelTasks parallelTasks = new ParallelTasks("apidoc-persist", nbThreads, session)) {
+            for (BundleTask task : tasks) {
+                parallelTasks.execute("Bundle " + task.bundle.getId(), taskSession -> {
+                    BatchDocumentWriter writer = getWriter(taskSession, label);
+                    persistBundleContent(task.snapshot, task.filter, task.bundle, writer, label, task.bundleDoc);
+                    writer.flush();
+                    taskSession.save();
+                    count.addAndGet(writer.getCount());
+                });
             }
+            parallelTasks.await(PARALLEL_TIMEOUT,
+                    String.format("Failed to persist bundles of distribution '%s'", label));
         }
+        log.info(String.format("Persisted %s documents for bundles of distribution '%s' using %s threads",
+                count.get(), label, nbThreads));
+    }
+
+    /**
+     * Removes given distribution in a separate transaction, when its persistence failed after some of its documents
+     * were committed, and marks the current transaction for rollback.
+     *
+     * @since 2023.1
+     */
+    protected void removeDistribution(CoreSession session, DocumentRef ref) {
+        TransactionHelper.setTransactionRollbackOnly();
+        String repositoryName = session.getRepositoryName();
+        NuxeoPrincipal principal = session.getPrincipal();
+        TransactionHelper.runInNewTransaction(() -> {
+            CoreSession removeSession = CoreInstance.getCoreSession(repositoryName, principal);
+            if (removeSession.exists(ref)) {
+                removeSession.removeDocument(ref);
+                removeSession.save();
+            }
+        });
+    }
+
+    /**
+     * Content of a bundle to be persisted in a separate session.
+     *
+     * @since 2023.1
+     */
+    protected static class BundleTask {
+
+        protected final DistributionSnapshot snapshot;
+
+        protected final SnapshotFilter filter;
+
+        protected final BundleInfo bundle;
+
+        protected final DocumentModel bundleDoc;
+
+        protected BundleTask(DistributionSnapshot snapshot, SnapshotFilter filter, BundleInfo bundle,
+                DocumentModel bundleDoc) {
+            this.snapshot = snapshot;
+            this.filter = filter;
+            this.bundle = bundle;
+            this.bundleDoc = bundleDoc;
+        }
+
     }
 
     protected void persistComponent(DistributionSnapshot snapshot, SnapshotFilter filter, ComponentInfo ci,
-            CoreSession session, String label, DocumentModel parent) {
+            BatchDocumentWriter writer, String label, DocumentModel parent) {
+        CoreSession session = writer.getSession();
 
-        DocumentModel componentDoc = ComponentInfoDocAdapter.create(ci, session, parent.getPathAsString()).getDoc();
+        DocumentModel componentDoc = writer.add(
+                withParentData(ComponentInfoDocAdapter.createDocumentModel(ci, session, parent.getPathAsString()),
+                        parent));
         String componentDocPath = componentDoc.getPathAsString();
 
         for (ExtensionPointInfo epi : ci.getExtensionPoints()) {
             if (filter == null || filter.accept(epi)) {
-                ExtensionPointInfoDocAdapter.create(epi, session, componentDocPath);
+                writer.add(withParentData(
+                        ExtensionPointInfoDocAdapter.createDocumentModel(epi, session, componentDocPath),
+                        componentDoc));
             }
         }
 
         for (ServiceInfo si : ci.getServices()) {
             if (filter == null || filter.accept(si)) {
-                ServiceInfoDocAdapter.create(si, session, componentDocPath);
+                writer.add(withParentData(ServiceInfoDocAdapter.createDocumentModel(si, session, componentDocPath),
+                        componentDoc));
             }
         }
 
         for (ExtensionInfo ei : ci.getExtensions()) {
             if (filter == null || filter.accept(ei)) {
-                ExtensionInfoDocAdapter.create(ei, 0, session, componentDocPath);
+                writer.add(withParentData(
+                        ExtensionInfoDocAdapter.createDocumentModel(ei, 0, session, componentDocPath), componentDoc));
             }
         }
     }
 
-    protected void persistOperations(DistributionSnapshot snapshot, List<OperationInfo> operations, CoreSession session,
-            String label, DocumentModel parent, SnapshotFilter filter) {
+    /**
+     * Fills denormalized parent information on given document model, so that adapters do not need to resolve parent
+     * documents to compute versions and hierarchy paths.
+     *
+     * @since 2023.1
+     */
+    protected DocumentModel withParentData(DocumentModel doc, DocumentModel parent) {
+        BaseNuxeoArtifactDocAdapter.fillParentData(doc, parent);
+        return doc;
+    }
+
+    protected void persistOperations(DistributionSnapshot snapshot, List<OperationInfo> operations,
+            BatchDocumentWriter writer, String label, DocumentModel parent, SnapshotFilter filter) {
         for (OperationInfo op : operations) {
             if (filter == null || filter.accept(op)) {
-                OperationInfoDocAdapter.create(op, session, parent.getPathAsString());
+                writer.add(OperationInfoDocAdapter.createDocumentModel(op, writer.getSession(),
+                        parent.getPathAsString()));
             }
         }
     }
 
-    protected void persistPackages(DistributionSnapshot snapshot, List<PackageInfo> packages, CoreSession session,
-            String label, DocumentModel parent, SnapshotFilter filter) {
+    protected void persistPackages(DistributionSnapshot snapshot, List<PackageInfo> packages,
+            BatchDocumentWriter writer, String label, DocumentModel parent, SnapshotFilter filter) {
         for (PackageInfo pkg : packages) {
             if (filter == null || filter.accept(pkg)) {
-                PackageInfoDocAdapter.create(pkg, session, parent.getPathAsString());
+                writer.add(PackageInfoDocAdapter.createDocumentModel(pkg, writer.getSession(),
+                        parent.getPathAsString()));
             }
         }
     }
@@ -0,0 +1,498 @@
+/*
+ * (C) Copyright 2023 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nuxeo.apidoc.search;
+
+import static org.nuxeo.apidoc.adapters.BaseNuxeoArtifactDocAdapter.PROP_PARENT_BUNDLE_ID;
+import static org.nuxeo.apidoc.adapters.BaseNuxeoArtifactDocAdapter.PROP_PARENT_COMPONENT_ID;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.nuxeo.apidoc.api.BundleGroup;
+import org.nuxeo.apidoc.api.BundleInfo;
+import org.nuxeo.apidoc.api.ComponentInfo;
+import org.nuxeo.apidoc.api.ExtensionInfo;
+import org.nuxeo.apidoc.api.ExtensionPointInfo;
+import org.nuxeo.apidoc.api.ServiceInfo;
+import org.nuxeo.apidoc.listener.AttributesExtractorStater;
+import org.nuxeo.apidoc.repository.RepositoryDistributionSnapshot;
+import org.nuxeo.apidoc.snapshot.DistributionSnapshot;
+import org.nuxeo.ecm.core.query.sql.NXQL;
+
+/**
+ * Compact in-memory inverted index of the artifacts of a distribution, allowing to search it without Elasticsearch.
+ * <p>
+ * Artifacts are indexed by the terms of their ids, names, documentation and XML contributions, each field having its
+ * own weight, and matches on ids being weighted according to the artifact type. Queries match artifacts holding all
+ * their terms, and support prefix ({@code term*}) and fuzzy ({@code term~}, {@code term~2}) terms.
+ * <p>
+ * The index only holds artifact ids and types: matching artifacts are retrieved from the distribution, so that security
+ * checks apply.
+ *
+ * @since 2023.1
+ */
+public class ArtifactIndex {
+
+    protected static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    /** Weights of matches on artifact ids, by artifact type. */
+    protected static final Map<String, Float> ID_WEIGHTS = Map.of( //
+            ComponentInfo.TYPE_NAME, 8f, //
+            ExtensionPointInfo.TYPE_NAME, 6f, //
+            ServiceInfo.TYPE_NAME, 6f, //
+            BundleInfo.TYPE_NAME, 5f, //
+            ExtensionInfo.TYPE_NAME, 4f, //
+            BundleGroup.TYPE_NAME, 3f);
+
+    protected static final float NAME_WEIGHT = 2f;
+
+    protected static final float TEXT_WEIGHT = 1f;
+
+    /** Boost of artifacts whose id is exactly the query. */
+    protected static final float EXACT_ID_BOOST = 10f;
+
+    /** Factor applied to fuzzy matches. */
+    protected static final float FUZZY_FACTOR = 0.5f;
+
+    protected static final int MAX_EDITS = 2;
+
+    /**
+     * Indexed artifact, with the ids of the artifacts holding it.
+     */
+    public static class Entry {
+
+        protected final String type;
+
+        protected final String id;
+
+        protected final String groupId;
+
+        protected final String bundleId;
+
+        protected final String componentId;
+
+        public Entry(String type, String id, String groupId, String bundleId, String componentId) {
+            this.type = type;
+            this.id = id;
+            this.groupId = groupId;
+            this.bundleId = bundleId;
+            this.componentId = componentId;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        /**
+         * Returns the id of this artifact if it is of given type, or of the closest artifact of given type holding it,
+         * or null if none.
+         */
+        public String getParentId(String parentType) {
+            if (parentType.equals(type)) {
+                return id;
+            }
+            switch (parentType) {
+            case ComponentInfo.TYPE_NAME:
+                return componentId;
+            case BundleInfo.TYPE_NAME:
+                return bundleId;
+            case BundleGroup.TYPE_NAME:
+                return groupId;
+            default:
+                return null;
+            }
+        }
+
+    }
+
+    protected final Entry[] entries;
+
+    /** Sorted terms. */
+    protected final String[] terms;
+
+    /** Indexes of the entries holding each term, sorted. */
+    protected final int[][] postings;
+
+    /** Scores of the entries holding each term, in the same order as postings. */
+    protected final float[][] scores;
+
+    protected ArtifactIndex(Builder builder) {
+        entries = builder.entries.toArray(new Entry[0]);
+        terms = builder.postings.keySet().toArray(new String[0]);
+        Arrays.sort(terms);
+        postings = new int[terms.length][];
+        scores = new float[terms.length][];
+        for (int i = 0; i < terms.length; i++) {
+            Map<Integer, Float> termPostings = builder.postings.get(terms[i]);
+            int[] docs = termPostings.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+            float[] docScores = new float[docs.length];
+            for (int j = 0; j < docs.length; j++) {
+                docScores[j] = termPostings.get(docs[j]);
+            }
+            postings[i] = docs;
+            scores[i] = docScores;
+        }
+    }
+
+    /**
+     * Builds the index of given distribution.
+     * <p>
+     * Distributions persisted as documents are indexed from projection queries, see
+     * {@link #build(RepositoryDistributionSnapshot)}.
+     */
+    public static ArtifactIndex build(DistributionSnapshot snapshot) {
+        if (snapshot instanceof RepositoryDistributionSnapshot
+                && !((RepositoryDistributionSnapshot) snapshot).isBlobStored()) {
+            return build((RepositoryDistributionSnapshot) snapshot);
+        }
+        Builder builder = new Builder();
+        for (BundleGroup group : snapshot.getBundleGroups()) {
+            builder.addGroup(group);
+        }
+        for (BundleInfo bundle : snapshot.getBundles()) {
+            BundleGroup group = bundle.getBundleGroup();
+            String groupId = group == null ? null : group.getId();
+            String bid = bundle.getId();
+            builder.add(new Entry(BundleInfo.TYPE_NAME, bid, groupId, null, null), bid, bundle.getArtifactId());
+            for (ComponentInfo component : bundle.getComponents()) {
+                String cid = component.getId();
+                int entry = builder.add(new Entry(ComponentInfo.TYPE_NAME, cid, groupId, bid, null), cid,
+                        component.getName());
+                builder.index(entry, component.getDocumentation(), TEXT_WEIGHT);
+                for (ServiceInfo service : component.getServices()) {
+                    builder.add(new Entry(ServiceInfo.TYPE_NAME, service.getId(), groupId, bid, cid), service.getId(),
+                            null);
+                }
+                for (ExtensionPointInfo xp : component.getExtensionPoints()) {
+                    entry = builder.add(new Entry(ExtensionPointInfo.TYPE_NAME, xp.getId(), groupId, bid, cid),
+                            xp.getId(), xp.getName());
+                    builder.index(entry, xp.getDocumentation(), TEXT_WEIGHT);
+                }
+                for (ExtensionInfo contrib : component.getExtensions()) {
+                    entry = builder.add(new Entry(ExtensionInfo.TYPE_NAME, contrib.getId(), groupId, bid, cid),
+                            contrib.getId(), contrib.getExtensionPoint());
+                    builder.index(entry, contrib.getDocumentation(), TEXT_WEIGHT);
+                    builder.index(entry, contrib.getXml(), TEXT_WEIGHT);
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Builds the index of given persisted distribution with one projection query per artifact type, relying on the
+     * denormalized parent ids of artifact documents instead of fetching them.
+     * <p>
+     * Contribution XML being stored in a blob, contributions are indexed by their extracted attributes instead.
+     */
+    protected static ArtifactIndex build(RepositoryDistributionSnapshot snapshot) {
+        Builder builder = new Builder();
+        Map<String, String> groupIdsByUuid = new HashMap<>();
+        for (Map<String, Serializable> row : snapshot.queryProjection(BundleGroup.TYPE_NAME, NXQL.ECM_PATH,
+                NXQL.ECM_UUID, BundleGroup.PROP_KEY, BundleGroup.PROP_GROUP_NAME)) {
+            String groupId = (String) row.get(BundleGroup.PROP_KEY);
+            groupIdsByUuid.put((String) row.get(NXQL.ECM_UUID), groupId);
+            builder.add(new Entry(BundleGroup.TYPE_NAME, groupId, null, null, null), groupId,
+                    (String) row.get(BundleGroup.PROP_GROUP_NAME));
+        }
+        Map<String, String> groupIdsByBundle = new HashMap<>();
+        for (Map<String, Serializable> row : snapshot.queryProjection(BundleInfo.TYPE_NAME, BundleInfo.PROP_BUNDLE_ID,
+                BundleInfo.PROP_BUNDLE_ID, BundleInfo.PROP_ARTIFACT_ID, NXQL.ECM_PARENTID)) {
+            String bid = (String) row.get(BundleInfo.PROP_BUNDLE_ID);
+            String groupId = groupIdsByUuid.get(row.get(NXQL.ECM_PARENTID));
+            groupIdsByBundle.put(bid, groupId);
+            builder.add(new Entry(BundleInfo.TYPE_NAME, bid, groupId, null, null), bid,
+                    (String) row.get(BundleInfo.PROP_ARTIFACT_ID));
+        }
+        for (Map<String, Serializable> row : snapshot.queryProjection(ComponentInfo.TYPE_NAME,
+                ComponentInfo.PROP_COMPONENT_ID, ComponentInfo.PROP_COMPONENT_ID, ComponentInfo.PROP_COMPONENT_NAME,
+                ComponentInfo.PROP_BUILT_IN_DOC, PROP_PARENT_BUNDLE_ID)) {
+            String cid = (String) row.get(ComponentInfo.PROP_COMPONENT_ID);
+            String bid = (String) row.get(PROP_PARENT_BUNDLE_ID);
+            int entry = builder.add(new Entry(ComponentInfo.TYPE_NAME, cid, groupIdsByBundle.get(bid), bid, null), cid,
+                    (String) row.get(ComponentInfo.PROP_COMPONENT_NAME));
+            builder.index(entry, (String) row.get(ComponentInfo.PROP_BUILT_IN_DOC), TEXT_WEIGHT);
+        }
+        for (Map<String, Serializable> row : snapshot.queryProjection(ServiceInfo.TYPE_NAME,
+                ServiceInfo.PROP_CLASS_NAME, ServiceInfo.PROP_CLASS_NAME, PROP_PARENT_BUNDLE_ID,
+                PROP_PARENT_COMPONENT_ID)) {
+            builder.add(newChildEntry(ServiceInfo.TYPE_NAME, ServiceInfo.PROP_CLASS_NAME, row, groupIdsByBundle),
+                    (String) row.get(ServiceInfo.PROP_CLASS_NAME), null);
+        }
+        for (Map<String, Serializable> row : snapshot.queryProjection(ExtensionPointInfo.TYPE_NAME,
+                ExtensionPointInfo.PROP_EP_ID, ExtensionPointInfo.PROP_EP_ID, ExtensionPointInfo.PROP_NAME,
+                ExtensionPointInfo.PROP_DOC, PROP_PARENT_BUNDLE_ID, PROP_PARENT_COMPONENT_ID)) {
+            int entry = builder.add(
+                    newChildEntry(ExtensionPointInfo.TYPE_NAME, ExtensionPointInfo.PROP_EP_ID, row, groupIdsByBundle),
+                    (String) row.get(ExtensionPointInfo.PROP_EP_ID), (String) row.get(ExtensionPointInfo.PROP_NAME));
+            builder.index(entry, (String) row.get(ExtensionPointInfo.PROP_DOC), TEXT_WEIGHT);
+        }
+        for (Map<String, Serializable> row : snapshot.queryProjection(ExtensionInfo.TYPE_NAME,
+                ExtensionInfo.PROP_CONTRIB_ID, ExtensionInfo.PROP_CONTRIB_ID, ExtensionInfo.PROP_EXTENSION_POINT,
+                ExtensionInfo.PROP_DOC, AttributesExtractorStater.ATTRIBUTES_PROPERTY, PROP_PARENT_BUNDLE_ID,
+                PROP_PARENT_COMPONENT_ID)) {
+            int entry = builder.add(
+                    newChildEntry(ExtensionInfo.TYPE_NAME, ExtensionInfo.PROP_CONTRIB_ID, row, groupIdsByBundle),
+                    (String) row.get(ExtensionInfo.PROP_CONTRIB_ID),
+                    (String) row.get(ExtensionInfo.PROP_EXTENSION_POINT));
+            builder.index(entry, (String) row.get(ExtensionInfo.PROP_DOC), TEXT_WEIGHT);
+            builder.index(entry, (String) row.get(AttributesExtractorStater.ATTRIBUTES_PROPERTY), TEXT_WEIGHT);
+        }
+        return builder.build();
+    }
+
+    protected static Entry newChildEntry(String type, String idProp, Map<String, Serializable> row,
+            Map<String, String> groupIdsByBundle) {
+        String bid = (String) row.get(PROP_PARENT_BUNDLE_ID);
+        return new Entry(type, (String) row.get(idProp), groupIdsByBundle.get(bid), bid,
+                (String) row.get(PROP_PARENT_COMPONENT_ID));
+    }
+
+    public int size() {
+        return entries.length;
+    }
+
+    /**
+     * Returns all entries matching given query, best matches first.
+     *
+     * @param types the artifact types to search, or null to search all types
+     */
+    public List<Entry> search(String query, Collection<String> types) {
+        return search(query, types, 0, entries.length);
+    }
+
+    /**
+     * Returns a page of entries matching given query, best matches first.
+     * <p>
+     * A blank query matches all entries, in indexing order.
+     *
+     * @param types the artifact types to search, or null to search all types
+     */
+    public List<Entry> search(String query, Collection<String> types, int offset, int limit) {
+        List<Entry> res = new ArrayList<>();
+        if (StringUtils.isBlank(query)) {
+            Arrays.stream(entries)
+                  .filter(entry -> types == null || types.isEmpty() || types.contains(entry.type))
+                  .skip(Math.max(offset, 0))
+                  .limit(Math.max(limit, 0))
+                  .forEach(res::add);
+            return res;
+        }
+        float[] total = null;
+        for (String token : StringUtils.split(query)) {
+            float[] tokenScores = match(token);
+            if (tokenScores == null) {
+                // token without any indexable term
+                continue;
+            }
+            if (total == null) {
+                total = tokenScores;
+            } else {
+                for (int i = 0; i < total.length; i++) {
+                    // all tokens must match
+                    total[i] = tokenScores[i] == 0 ? 0 : total[i] + tokenScores[i];
+                }
+            }
+        }
+        if (total == null) {
+            return res;
+        }
+        String exactId = query.trim();
+        List<Integer> matches = new ArrayList<>();
+        for (int i = 0; i < total.length; i++) {
+            if (total[i] > 0 && (types == null || types.isEmpty() || types.contains(entries[i].type))) {
+                if (entries[i].id.equalsIgnoreCase(exactId)) {
+                    total[i] += EXACT_ID_BOOST;
+                }
+                matches.add(i);
+            }
+        }
+        float[] finalScores = total;
+        matches.sort(Comparator.<Integer, Float> comparing(i -> finalScores[i])
+                               .reversed()
+                               .thenComparing(i -> entries[i].id));
+        matches.stream().skip(Math.max(offset, 0)).limit(Math.max(limit, 0)).forEach(i -> res.add(entries[i]));
+        return res;
+    }
+
+    /**
+     * Returns the scores of all entries for given query token, or null if it holds no term.
+     * <p>
+     * A token may hold several terms (e.g. dotted ids), all of them having to match.
+     */
+    protected float[] match(String token) {
+        boolean prefix = false;
+        int edits = 0;
+        int tilde = token.lastIndexOf('~');
+        if (tilde > 0) {
+            edits = Math.min(MAX_EDITS, Math.max(1, NumberUtils.toInt(token.substring(tilde + 1), 1)));
+            token = token.substring(0, tilde);
+        } else if (token.endsWith("*")) {
+            prefix = true;
+            token = StringUtils.stripEnd(token, "*");
+        }
+        List<String> tokenTerms = tokenize(token);
+        if (tokenTerms.isEmpty()) {
+            return null;
+        }
+        float[] res = null;
+        for (int t = 0; t < tokenTerms.size(); t++) {
+            boolean last = t == tokenTerms.size() - 1;
+            float[] termScores = matchTerm(tokenTerms.get(t), prefix && last, edits);
+            if (res == null) {
+                res = termScores;
+            } else {
+                for (int i = 0; i < res.length; i++) {
+                    res[i] = termScores[i] == 0 ? 0 : res[i] + termScores[i];
+                }
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Returns the scores of all entries for given term, keeping the best score among expanded terms.
+     */
+    protected float[] matchTerm(String term, boolean prefix, int edits) {
+        float[] res = new float[entries.length];
+        int pos = Arrays.binarySearch(terms, term);
+        if (pos >= 0) {
+            collect(pos, 1f, res);
+        }
+        if (prefix) {
+            int start = pos >= 0 ? pos + 1 : -pos - 1;
+            for (int i = start; i < terms.length && terms[i].startsWith(term); i++) {
+                collect(i, 1f, res);
+            }
+        }
+        if (edits > 0) {
+            for (int i = 0; i < terms.length; i++) {
+                if (i != pos && Math.abs(terms[i].length() - term.length()) <= edits
+                        && isWithinDistance(term, terms[i], edits)) {
+                    collect(i, FUZZY_FACTOR, res);
+                }
+            }
+        }
+        return res;
+    }
+
+    protected void collect(int termIndex, float factor, float[] res) {
+        int[] docs = postings[termIndex];
+        float[] docScores = scores[termIndex];
+        for (int j = 0; j < docs.length; j++) {
+            res[docs[j]] = Math.max(res[docs[j]], docScores[j] * factor);
+        }
+    }
+
+    /**
+     * Returns true if the Levenshtein distance between given strings is at most the given maximum.
+     */
+    protected static boolean isWithinDistance(String a, String b, int max) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > max) {
+                return false;
+            }
+            int[] tmp = previous;
+            previous = current;
+            current = tmp;
+        }
+        return previous[b.length()] <= max;
+    }
+
+    /**
+     * Splits given text into lower case terms, on any character that is neither a letter nor a digit.
+     */
+    protected static List<String> tokenize(String text) {
+        if (StringUtils.isBlank(text)) {
+            return Collections.emptyList();
+        }
+        List<String> res = new ArrayList<>();
+        for (String term : SEPARATORS.split(text.toLowerCase(Locale.ROOT))) {
+            if (!term.isEmpty()) {
+                res.add(term);
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Collects entries and their terms before building the compact index.
+     */
+    protected static class Builder {
+
+        protected final List<Entry> entries = new ArrayList<>();
+
+        protected final Map<String, Map<Integer, Float>> postings = new HashMap<>();
+
+        protected void addGroup(BundleGroup group) {
+            add(new Entry(BundleGroup.TYPE_NAME, group.getId(), null, null, null), group.getId(), group.getName());
+            for (BundleGroup subGroup : group.getSubGroups()) {
+                addGroup(subGroup);
+            }
+        }
+
+        /**
+         * Adds given entry, indexing its id and name, and returns its index.
+         */
+        protected int add(Entry entry, String id, String name) {
+            int index = entries.size();
+            entries.add(entry);
+            index(index, id, ID_WEIGHTS.getOrDefault(entry.type, TEXT_WEIGHT));
+            index(index, name, NAME_WEIGHT);
+            return index;
+        }
+
+        protected void index(int entry, String text, float weight) {
+            for (String term : tokenize(text)) {
+                // keep the best weight of the term among the entry fields
+                postings.computeIfAbsent(term, k -> new HashMap<>()).merge(entry, weight, Math::max);
+            }
+        }
+
+        protected ArtifactIndex build() {
+            return new ArtifactIndex(this);
+        }
+
+    }
+
+}
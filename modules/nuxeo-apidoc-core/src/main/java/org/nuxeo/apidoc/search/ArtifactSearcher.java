@@ -30,6 +30,20 @@ public interface ArtifactSearcher {
 
     List<NuxeoArtifact> searchArtifact(CoreSession session, String distribId, String fulltext);
 
+    /**
+     * Returns a page of artifacts matching given fulltext, best matches first.
+     * <p>
+     * Matches on artifact ids are weighted according to the artifact type, so that searching for an id returns the
+     * corresponding artifact first.
+     *
+     * @param types the artifact types to search, or null to search all types
+     * @param offset the index of the first result to return
+     * @param limit the maximum number of results to return, capped to {@link #MAX_RESULTS}
+     * @since 2023.1
+     */
+    List<NuxeoArtifact> searchArtifact(CoreSession session, String distribId, String fulltext, List<String> types,
+            int offset, int limit);
+
     List<NuxeoArtifact> filterArtifact(CoreSession session, String distribId, String type, String fulltext);
 
 }
@@ -21,8 +21,11 @@ package org.nuxeo.apidoc.search;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.nuxeo.apidoc.adapters.BaseNuxeoArtifactDocAdapter;
 import org.nuxeo.apidoc.adapters.BundleGroupDocAdapter;
@@ -37,13 +40,18 @@ import org.nuxeo.apidoc.api.ComponentInfo;
 import org.nuxeo.apidoc.api.ExtensionInfo;
 import org.nuxeo.apidoc.api.ExtensionPointInfo;
 import org.nuxeo.apidoc.api.NuxeoArtifact;
+import org.nuxeo.apidoc.api.QueryHelper;
 import org.nuxeo.apidoc.api.ServiceInfo;
+import org.nuxeo.apidoc.listener.AttributesExtractorStater;
 import org.nuxeo.apidoc.repository.RepositoryDistributionSnapshot;
 import org.nuxeo.apidoc.snapshot.DistributionSnapshot;
 import org.nuxeo.apidoc.snapshot.SnapshotManager;
+import org.nuxeo.common.utils.Path;
 import org.nuxeo.ecm.core.api.CoreSession;
 import org.nuxeo.ecm.core.api.DocumentModel;
 import org.nuxeo.ecm.core.api.DocumentModelList;
+import org.nuxeo.ecm.core.api.DocumentRef;
+import org.nuxeo.ecm.core.api.PathRef;
 import org.nuxeo.ecm.core.query.sql.NXQL;
 import org.nuxeo.elasticsearch.api.ElasticSearchService;
 import org.nuxeo.elasticsearch.query.NxQueryBuilder;
@@ -51,6 +59,48 @@ import org.nuxeo.runtime.api.Framework;
 
 public class ArtifactSearcherImpl implements ArtifactSearcher {
 
+    /**
+     * Searcher for distributions that are not indexed by Elasticsearch, such as the live one.
+     *
+     * @since 2023.1
+     */
+    protected final InMemoryArtifactSearcher memorySearcher = new InMemoryArtifactSearcher();
+
+    /**
+     * Searchable artifact types.
+     *
+     * @since 2023.1
+     */
+    public static final List<String> ARTIFACT_TYPES = List.of(BundleGroup.TYPE_NAME, BundleInfo.TYPE_NAME,
+            ComponentInfo.TYPE_NAME, ExtensionPointInfo.TYPE_NAME, ServiceInfo.TYPE_NAME, ExtensionInfo.TYPE_NAME);
+
+    /**
+     * Elasticsearch field holding the fulltext of all indexed properties.
+     *
+     * @since 2023.1
+     */
+    protected static final String FULLTEXT_FIELD = "all_field";
+
+    /**
+     * Weighted fields searched by fulltext queries, as Elasticsearch hint indexes: exact matches on artifact ids are
+     * boosted depending on the artifact type, then on parent ids and on attributes extracted from the xml of
+     * contributions and extension points, before plain fulltext matches.
+     *
+     * @since 2023.1
+     */
+    protected static final List<String> SEARCH_FIELDS = List.of( //
+            ComponentInfo.PROP_COMPONENT_ID + "^8", //
+            ExtensionPointInfo.PROP_EP_ID + "^6", //
+            ServiceInfo.PROP_CLASS_NAME + "^6", //
+            BundleInfo.PROP_BUNDLE_ID + "^5", //
+            ExtensionInfo.PROP_CONTRIB_ID + "^4", //
+            BundleGroup.PROP_KEY + "^3", //
+            ExtensionInfo.PROP_EXTENSION_POINT + "^2", //
+            BaseNuxeoArtifactDocAdapter.PROP_PARENT_COMPONENT_ID + "^2", //
+            BaseNuxeoArtifactDocAdapter.PROP_PARENT_BUNDLE_ID + "^2", //
+            AttributesExtractorStater.ATTRIBUTES_PROPERTY + "^2", //
+            FULLTEXT_FIELD);
+
     protected NuxeoArtifact mapDoc2Artifact(DocumentModel doc) {
         NuxeoArtifact artifact = null;
 
@@ -83,21 +133,34 @@ public class ArtifactSearcherImpl implements ArtifactSearcher {
 
     @Override
     public List<NuxeoArtifact> searchArtifact(CoreSession session, String distribId, String fulltext) {
-        List<NuxeoArtifact> result = new ArrayList<>();
+        return searchArtifact(session, distribId, fulltext, null, 0, MAX_RESULTS);
+    }
 
+    @Override
+    public List<NuxeoArtifact> searchArtifact(CoreSession session, String distribId, String fulltext,
+            List<String> types, int offset, int limit) {
         DistributionSnapshot snap = Framework.getService(SnapshotManager.class).getSnapshot(distribId, session);
-        if (!(snap instanceof RepositoryDistributionSnapshot)) {
+        if (snap == null) {
             return Collections.emptyList();
         }
-
-        DocumentModel dist = ((RepositoryDistributionSnapshot) snap).getDoc();
-        String query = "SELECT * FROM Document WHERE ecm:path STARTSWITH '" + dist.getPathAsString() + "'";
-        if (fulltext != null) {
-            query += " AND " + NXQL.ECM_FULLTEXT + " = " + NXQL.escapeString(fulltext);
+        if (!(snap instanceof RepositoryDistributionSnapshot)) {
+            return memorySearcher.searchArtifact(snap, fulltext, types, offset, limit);
         }
+        return searchArtifact(session, ((RepositoryDistributionSnapshot) snap).getDoc(), fulltext, types, offset,
+                limit);
+    }
+
+    /** @since 2023.1 */
+    protected List<NuxeoArtifact> searchArtifact(CoreSession session, DocumentModel dist, String fulltext,
+            List<String> types, int offset, int limit) {
+        List<NuxeoArtifact> result = new ArrayList<>();
+        String query = buildQuery(dist, fulltext, types == null || types.isEmpty() ? ARTIFACT_TYPES : types);
 
         ElasticSearchService ess = Framework.getService(ElasticSearchService.class);
-        DocumentModelList docs = ess.query(new NxQueryBuilder(session).nxql(query).limit(MAX_RESULTS));
+        NxQueryBuilder queryBuilder = new NxQueryBuilder(session).nxql(query)
+                                                                 .offset(Math.max(offset, 0))
+                                                                 .limit(Math.min(limit, MAX_RESULTS));
+        DocumentModelList docs = ess.query(queryBuilder);
         for (DocumentModel doc : docs) {
             NuxeoArtifact artifact = mapDoc2Artifact(doc);
             if (artifact != null) {
@@ -107,30 +170,55 @@ public class ArtifactSearcherImpl implements ArtifactSearcher {
         return result;
     }
 
+    /**
+     * Builds the query on artifacts of given types held by given distribution, without ordering so that results are
+     * sorted by relevance.
+     *
+     * @since 2023.1
+     */
+    protected String buildQuery(DocumentModel dist, String fulltext, List<String> types) {
+        StringBuilder query = new StringBuilder("SELECT * FROM Document WHERE ");
+        query.append(NXQL.ECM_PATH).append(" STARTSWITH ").append(NXQL.escapeString(dist.getPathAsString()));
+        query.append(" AND ").append(NXQL.ECM_PRIMARYTYPE).append(" IN (");
+        query.append(types.stream().map(NXQL::escapeString).collect(Collectors.joining(", ")));
+        query.append(")");
+        query.append(" AND ").append(QueryHelper.NOT_DELETED);
+        if (fulltext != null) {
+            query.append(" AND /*+ES: INDEX(").append(String.join(",", SEARCH_FIELDS));
+            query.append(") OPERATOR(simple_query_string) */ ");
+            query.append(NXQL.ECM_FULLTEXT).append(" = ").append(NXQL.escapeString(fulltext));
+        }
+        return query.toString();
+    }
+
     @Override
     public List<NuxeoArtifact> filterArtifact(CoreSession session, String distribId, String type, String fulltext) {
         List<NuxeoArtifact> result = new ArrayList<>();
 
-        List<NuxeoArtifact> matchingArtifacts = searchArtifact(session, distribId, fulltext);
+        DistributionSnapshot snap = Framework.getService(SnapshotManager.class).getSnapshot(distribId, session);
+        if (snap == null) {
+            return result;
+        }
+        if (!(snap instanceof RepositoryDistributionSnapshot)) {
+            return memorySearcher.filterArtifact(snap, type, fulltext);
+        }
+        DocumentModel dist = ((RepositoryDistributionSnapshot) snap).getDoc();
+        List<NuxeoArtifact> matchingArtifacts = searchArtifact(session, dist, fulltext, null, 0, MAX_RESULTS);
+        Map<String, DocumentModel> ancestors = fetchAncestors(session, dist, matchingArtifacts, type);
 
         Map<String, ArtifactWithWeight> sortMap = new HashMap<>();
 
         for (NuxeoArtifact matchingArtifact : matchingArtifacts) {
-            ArtifactWithWeight artifactWithWeight;
-            NuxeoArtifact matchingParentArtifact = resolveInTree(session, distribId, matchingArtifact, type);
-            if (matchingParentArtifact != null) {
-                artifactWithWeight = new ArtifactWithWeight(matchingParentArtifact);
-            } else if (matchingArtifact.getArtifactType().equals(type)) {
-                artifactWithWeight = new ArtifactWithWeight(matchingArtifact);
-            } else {
+            NuxeoArtifact artifact = resolveInTree(matchingArtifact, type, ancestors);
+            if (artifact == null) {
                 continue;
             }
 
-            String id = artifactWithWeight.getArtifact().getId();
+            String id = artifact.getId();
             if (sortMap.containsKey(id)) {
                 sortMap.get(id).addHit();
             } else {
-                sortMap.put(id, new ArtifactWithWeight(matchingParentArtifact));
+                sortMap.put(id, new ArtifactWithWeight(artifact));
             }
         }
 
@@ -143,20 +231,58 @@ public class ArtifactSearcherImpl implements ArtifactSearcher {
         return result;
     }
 
-    protected NuxeoArtifact resolveInTree(CoreSession session, String distribId, NuxeoArtifact matchingArtifact,
-            String searchedType) {
+    /**
+     * Fetches in a single call the ancestors, within given distribution, of given artifacts that are not of the
+     * searched type, keyed by path.
+     *
+     * @since 2023.1
+     */
+    protected Map<String, DocumentModel> fetchAncestors(CoreSession session, DocumentModel dist,
+            List<NuxeoArtifact> artifacts, String searchedType) {
+        Path distPath = dist.getPath();
+        Set<String> paths = new HashSet<>();
+        for (NuxeoArtifact artifact : artifacts) {
+            if (searchedType.equals(artifact.getArtifactType())
+                    || !(artifact instanceof BaseNuxeoArtifactDocAdapter)) {
+                continue;
+            }
+            Path path = ((BaseNuxeoArtifactDocAdapter) artifact).getDoc().getPath().removeLastSegments(1);
+            // stop at the distribution, or at an ancestor already collected for another artifact
+            while (path.segmentCount() > distPath.segmentCount() && paths.add(path.toString())) {
+                path = path.removeLastSegments(1);
+            }
+        }
+        if (paths.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        DocumentRef[] refs = paths.stream().map(PathRef::new).toArray(DocumentRef[]::new);
+        Map<String, DocumentModel> ancestors = new HashMap<>();
+        for (DocumentModel doc : session.getDocuments(refs)) {
+            ancestors.put(doc.getPathAsString(), doc);
+        }
+        return ancestors;
+    }
+
+    /**
+     * Returns the closest artifact of the searched type holding given artifact, resolved from given ancestors, or the
+     * artifact itself if it is of the searched type.
+     */
+    protected NuxeoArtifact resolveInTree(NuxeoArtifact matchingArtifact, String searchedType,
+            Map<String, DocumentModel> ancestors) {
         String cType = matchingArtifact.getArtifactType();
         if (cType.equals(searchedType)) {
             return matchingArtifact;
         }
-        BaseNuxeoArtifactDocAdapter docAdapter = (BaseNuxeoArtifactDocAdapter) matchingArtifact;
-        DocumentModel doc = docAdapter.getDoc();
-        List<DocumentModel> parents = session.getParentDocuments(doc.getRef());
-        Collections.reverse(parents);
-        for (DocumentModel parent : parents) {
-            if (parent.getType().equals(searchedType)) {
+        if (!(matchingArtifact instanceof BaseNuxeoArtifactDocAdapter)) {
+            return null;
+        }
+        Path path = ((BaseNuxeoArtifactDocAdapter) matchingArtifact).getDoc().getPath().removeLastSegments(1);
+        while (path.segmentCount() > 0) {
+            DocumentModel parent = ancestors.get(path.toString());
+            if (parent != null && parent.getType().equals(searchedType)) {
                 return mapDoc2Artifact(parent);
             }
+            path = path.removeLastSegments(1);
         }
         return null;
     }
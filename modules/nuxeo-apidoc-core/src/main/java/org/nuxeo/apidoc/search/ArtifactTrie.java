@@ -0,0 +1,272 @@
+/*
+ * (C) Copyright 2023 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nuxeo.apidoc.search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.apache.commons.lang3.StringUtils;
+import org.nuxeo.apidoc.api.ComponentInfo;
+import org.nuxeo.apidoc.api.ExtensionInfo;
+import org.nuxeo.apidoc.api.ExtensionPointInfo;
+import org.nuxeo.apidoc.api.OperationInfo;
+import org.nuxeo.apidoc.api.OperationSummary;
+import org.nuxeo.apidoc.api.ServiceInfo;
+import org.nuxeo.apidoc.snapshot.DistributionSnapshot;
+
+/**
+ * Immutable compressed prefix trie over the ids of the artifacts of a distribution, used to suggest artifacts from a
+ * partial id.
+ * <p>
+ * Ids are indexed, case insensitively, from their start and from each segment start (after a dot, a dash, a colon...),
+ * so that "LifeCycleS" suggests "org.nuxeo.ecm.core.lifecycle.LifeCycleService". Each node holds the best suggestions
+ * of its sub-tree, so that a lookup only costs a walk along the prefix.
+ * <p>
+ * Suggestions are ranked by artifact type (components, services, extension points, operations, then contributions),
+ * then by id length.
+ *
+ * @since 2023.1
+ */
+public class ArtifactTrie {
+
+    protected static final String ATTACHMENT = "artifactTrie";
+
+    /** Maximum number of suggestions returned by a lookup. */
+    public static final int MAX_SUGGESTIONS = 10;
+
+    protected static final List<String> TYPES = List.of(ComponentInfo.TYPE_NAME, ServiceInfo.TYPE_NAME,
+            ExtensionPointInfo.TYPE_NAME, OperationInfo.TYPE_NAME, ExtensionInfo.TYPE_NAME);
+
+    /**
+     * Suggested artifact.
+     */
+    public static class Suggestion {
+
+        protected final String id;
+
+        protected final String type;
+
+        public Suggestion(String id, String type) {
+            this.id = id;
+            this.type = type;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+    }
+
+    protected static class Node {
+
+        protected final String label;
+
+        protected final Node[] children;
+
+        /** Best suggestions of the sub-tree, as indexes, best first. */
+        protected final int[] top;
+
+        protected Node(String label, Node[] children, int[] top) {
+            this.label = label;
+            this.children = children;
+            this.top = top;
+        }
+
+        protected Node getChild(char c) {
+            // few children: linear scan on sorted labels
+            for (Node child : children) {
+                char first = child.label.charAt(0);
+                if (first == c) {
+                    return child;
+                } else if (first > c) {
+                    break;
+                }
+            }
+            return null;
+        }
+
+    }
+
+    protected final Suggestion[] suggestions;
+
+    protected final Node root;
+
+    protected ArtifactTrie(Suggestion[] suggestions, Node root) {
+        this.suggestions = suggestions;
+        this.root = root;
+    }
+
+    /**
+     * Returns the trie of given distribution, building it if needed.
+     */
+    public static ArtifactTrie of(DistributionSnapshot snapshot) {
+        return snapshot.getAttachment(ATTACHMENT, () -> build(snapshot));
+    }
+
+    /**
+     * Builds the trie of given distribution.
+     */
+    public static ArtifactTrie build(DistributionSnapshot snapshot) {
+        List<Suggestion> all = new ArrayList<>();
+        snapshot.getComponentIds().forEach(id -> all.add(new Suggestion(id, ComponentInfo.TYPE_NAME)));
+        snapshot.getServiceIds().forEach(id -> all.add(new Suggestion(id, ServiceInfo.TYPE_NAME)));
+        snapshot.getExtensionPointIds().forEach(id -> all.add(new Suggestion(id, ExtensionPointInfo.TYPE_NAME)));
+        for (OperationSummary operation : snapshot.getOperationSummaries()) {
+            all.add(new Suggestion(operation.getName(), OperationInfo.TYPE_NAME));
+            if (operation.getAliases() != null) {
+                operation.getAliases().forEach(alias -> all.add(new Suggestion(alias, OperationInfo.TYPE_NAME)));
+            }
+        }
+        snapshot.getContributionIds().forEach(id -> all.add(new Suggestion(id, ExtensionInfo.TYPE_NAME)));
+        // rank once, so that suggestion indexes can be compared directly
+        all.sort(Comparator.comparing((Suggestion s) -> TYPES.indexOf(s.getType()))
+                           .thenComparing(s -> s.getId().length())
+                           .thenComparing(Suggestion::getId));
+        MutableNode mroot = new MutableNode("");
+        for (int i = 0; i < all.size(); i++) {
+            String id = all.get(i).getId();
+            if (StringUtils.isBlank(id)) {
+                continue;
+            }
+            String key = id.toLowerCase(Locale.ROOT);
+            for (int start : getSegmentStarts(key)) {
+                mroot.insert(key.substring(start), i);
+            }
+        }
+        return new ArtifactTrie(all.toArray(new Suggestion[0]), mroot.freeze());
+    }
+
+    /**
+     * Returns the start of the id and the start of each of its segments.
+     */
+    protected static List<Integer> getSegmentStarts(String key) {
+        List<Integer> res = new ArrayList<>();
+        res.add(0);
+        for (int i = 1; i < key.length(); i++) {
+            if (!Character.isLetterOrDigit(key.charAt(i - 1)) && Character.isLetterOrDigit(key.charAt(i))) {
+                res.add(i);
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Returns the best suggestions for given prefix, at most {@link #MAX_SUGGESTIONS}.
+     */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        if (StringUtils.isBlank(prefix) || limit < 1) {
+            return Collections.emptyList();
+        }
+        String key = prefix.trim().toLowerCase(Locale.ROOT);
+        Node node = root;
+        int pos = 0;
+        while (pos < key.length()) {
+            Node child = node.getChild(key.charAt(pos));
+            if (child == null) {
+                return Collections.emptyList();
+            }
+            String remaining = key.substring(pos);
+            if (remaining.length() <= child.label.length()) {
+                if (!child.label.startsWith(remaining)) {
+                    return Collections.emptyList();
+                }
+            } else if (!remaining.startsWith(child.label)) {
+                return Collections.emptyList();
+            }
+            pos += child.label.length();
+            node = child;
+        }
+        List<Suggestion> res = new ArrayList<>();
+        for (int i = 0; i < node.top.length && i < limit; i++) {
+            res.add(suggestions[node.top[i]]);
+        }
+        return res;
+    }
+
+    /**
+     * Node used while building the trie.
+     */
+    protected static class MutableNode {
+
+        protected String label;
+
+        protected final TreeMap<Character, MutableNode> children = new TreeMap<>();
+
+        protected final Set<Integer> values = new LinkedHashSet<>();
+
+        protected MutableNode(String label) {
+            this.label = label;
+        }
+
+        protected void insert(String key, int value) {
+            if (key.isEmpty()) {
+                values.add(value);
+                return;
+            }
+            MutableNode child = children.get(key.charAt(0));
+            if (child == null) {
+                child = new MutableNode(key);
+                child.values.add(value);
+                children.put(key.charAt(0), child);
+                return;
+            }
+            int common = StringUtils.indexOfDifference(child.label, key);
+            if (common == -1) {
+                // same key
+                child.values.add(value);
+                return;
+            }
+            if (common < child.label.length()) {
+                // split the child edge
+                MutableNode split = new MutableNode(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                split.children.put(child.label.charAt(0), child);
+                children.put(split.label.charAt(0), split);
+                child = split;
+            }
+            child.insert(key.substring(common), value);
+        }
+
+        protected Node freeze() {
+            Node[] frozen = new Node[children.size()];
+            int i = 0;
+            // suggestions are ranked by index: keep the lowest ones of the sub-tree
+            Set<Integer> top = new TreeSet<>(values);
+            for (MutableNode child : children.values()) {
+                Node node = child.freeze();
+                for (int value : node.top) {
+                    top.add(value);
+                }
+                frozen[i++] = node;
+            }
+            int[] best = top.stream().mapToInt(Integer::intValue).limit(MAX_SUGGESTIONS).toArray();
+            return new Node(label, frozen, best);
+        }
+
+    }
+
+}
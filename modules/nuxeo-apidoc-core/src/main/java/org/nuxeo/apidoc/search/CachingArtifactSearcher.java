@@ -0,0 +1,172 @@
+/*
+ * (C) Copyright 2023 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nuxeo.apidoc.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+
+import org.apache.commons.lang3.StringUtils;
+import org.nuxeo.apidoc.adapters.BaseNuxeoArtifactDocAdapter;
+import org.nuxeo.apidoc.api.NuxeoArtifact;
+import org.nuxeo.apidoc.repository.RepositoryDistributionSnapshot;
+import org.nuxeo.apidoc.snapshot.DistributionSnapshot;
+import org.nuxeo.apidoc.snapshot.SnapshotManager;
+import org.nuxeo.ecm.core.api.CoreSession;
+import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.api.DocumentRef;
+import org.nuxeo.ecm.core.api.IdRef;
+import org.nuxeo.ecm.core.api.NuxeoPrincipal;
+import org.nuxeo.runtime.api.Framework;
+
+/**
+ * Searcher caching the results of another searcher on persisted distributions.
+ * <p>
+ * Results are cached as document ids, in a bounded cache attached to the distribution (see
+ * {@link DistributionSnapshot#getAttachment}), so that it is dropped as soon as the distribution is updated, removed
+ * or imported again. Cache keys hold the principals of the current user, and cached documents are fetched again
+ * through the user session, so that results only hold visible artifacts.
+ * <p>
+ * Searches on the live distribution are not cached, as they are already served from memory.
+ *
+ * @since 2023.1
+ */
+public class CachingArtifactSearcher implements ArtifactSearcher {
+
+    public static final String CACHE_ATTACHMENT = "searchResults";
+
+    protected static final String ADMINISTRATORS_KEY = "-administrators-";
+
+    protected final ArtifactSearcher searcher;
+
+    protected final int cacheSize;
+
+    public CachingArtifactSearcher(ArtifactSearcher searcher, int cacheSize) {
+        this.searcher = searcher;
+        this.cacheSize = cacheSize;
+    }
+
+    public ArtifactSearcher getSearcher() {
+        return searcher;
+    }
+
+    @Override
+    public List<NuxeoArtifact> searchArtifact(CoreSession session, String distribId, String fulltext) {
+        return cached(session, distribId, Arrays.asList("search", normalize(fulltext)),
+                () -> searcher.searchArtifact(session, distribId, fulltext));
+    }
+
+    @Override
+    public List<NuxeoArtifact> searchArtifact(CoreSession session, String distribId, String fulltext,
+            List<String> types, int offset, int limit) {
+        List<Object> key = Arrays.asList("search", normalize(fulltext), types == null ? null : new TreeSet<>(types),
+                offset, limit);
+        return cached(session, distribId, key,
+                () -> searcher.searchArtifact(session, distribId, fulltext, types, offset, limit));
+    }
+
+    @Override
+    public List<NuxeoArtifact> filterArtifact(CoreSession session, String distribId, String type, String fulltext) {
+        return cached(session, distribId, Arrays.asList("filter", type, normalize(fulltext)),
+                () -> searcher.filterArtifact(session, distribId, type, fulltext));
+    }
+
+    protected List<NuxeoArtifact> cached(CoreSession session, String distribId, List<Object> query,
+            Supplier<List<NuxeoArtifact>> search) {
+        DistributionSnapshot snap = Framework.getService(SnapshotManager.class).getSnapshot(distribId, session);
+        if (!(snap instanceof RepositoryDistributionSnapshot)) {
+            return search.get();
+        }
+        Map<List<Object>, List<String>> cache = snap.getAttachment(CACHE_ATTACHMENT, this::newCache);
+        List<Object> key = new ArrayList<>(query);
+        key.add(getSecurityKey(session));
+        List<String> docIds;
+        synchronized (cache) {
+            docIds = cache.get(key);
+        }
+        if (docIds != null) {
+            return fetch(session, docIds);
+        }
+        List<NuxeoArtifact> result = search.get();
+        docIds = new ArrayList<>(result.size());
+        for (NuxeoArtifact artifact : result) {
+            if (!(artifact instanceof BaseNuxeoArtifactDocAdapter)) {
+                // cannot be fetched again
+                return result;
+            }
+            docIds.add(((BaseNuxeoArtifactDocAdapter) artifact).getDoc().getId());
+        }
+        synchronized (cache) {
+            cache.put(key, Collections.unmodifiableList(docIds));
+        }
+        return result;
+    }
+
+    protected Map<List<Object>, List<String>> newCache() {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<List<Object>, List<String>> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Fetches given documents in a single call, skipping the ones that are not visible to the session user.
+     */
+    protected List<NuxeoArtifact> fetch(CoreSession session, List<String> docIds) {
+        if (docIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        DocumentRef[] refs = docIds.stream().map(IdRef::new).toArray(DocumentRef[]::new);
+        Map<String, DocumentModel> docs = new LinkedHashMap<>();
+        session.getDocuments(refs).forEach(doc -> docs.put(doc.getId(), doc));
+        List<NuxeoArtifact> result = new ArrayList<>(docs.size());
+        for (String docId : docIds) {
+            DocumentModel doc = docs.get(docId);
+            NuxeoArtifact artifact = doc == null ? null : doc.getAdapter(NuxeoArtifact.class);
+            if (artifact != null) {
+                result.add(artifact);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns a key identifying what the session user can see: users with the same principals share cached results.
+     */
+    protected String getSecurityKey(CoreSession session) {
+        NuxeoPrincipal principal = session.getPrincipal();
+        if (principal.isAdministrator()) {
+            return ADMINISTRATORS_KEY;
+        }
+        TreeSet<String> principals = new TreeSet<>(principal.getAllGroups());
+        principals.add(principal.getName());
+        return String.join(",", principals);
+    }
+
+    protected static String normalize(String fulltext) {
+        return StringUtils.normalizeSpace(fulltext);
+    }
+
+}
@@ -0,0 +1,139 @@
+/*
+ * (C) Copyright 2023 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nuxeo.apidoc.search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.nuxeo.apidoc.api.BundleGroup;
+import org.nuxeo.apidoc.api.BundleInfo;
+import org.nuxeo.apidoc.api.ComponentInfo;
+import org.nuxeo.apidoc.api.ExtensionInfo;
+import org.nuxeo.apidoc.api.ExtensionPointInfo;
+import org.nuxeo.apidoc.api.NuxeoArtifact;
+import org.nuxeo.apidoc.api.ServiceInfo;
+import org.nuxeo.apidoc.snapshot.DistributionSnapshot;
+import org.nuxeo.apidoc.snapshot.SnapshotManager;
+import org.nuxeo.ecm.core.api.CoreSession;
+import org.nuxeo.runtime.api.Framework;
+
+/**
+ * Searcher relying on an {@link ArtifactIndex} kept in memory for each distribution, including the live one.
+ * <p>
+ * Indexes are attached to their distribution, see {@link DistributionSnapshot#getAttachment}, so that they are rebuilt
+ * when the distribution changes.
+ *
+ * @since 2023.1
+ */
+public class InMemoryArtifactSearcher implements ArtifactSearcher {
+
+    protected static final String INDEX_ATTACHMENT = "artifactIndex";
+
+    @Override
+    public List<NuxeoArtifact> searchArtifact(CoreSession session, String distribId, String fulltext) {
+        return searchArtifact(session, distribId, fulltext, null, 0, MAX_RESULTS);
+    }
+
+    @Override
+    public List<NuxeoArtifact> searchArtifact(CoreSession session, String distribId, String fulltext,
+            List<String> types, int offset, int limit) {
+        DistributionSnapshot snap = Framework.getService(SnapshotManager.class).getSnapshot(distribId, session);
+        if (snap == null) {
+            return Collections.emptyList();
+        }
+        return searchArtifact(snap, fulltext, types, offset, limit);
+    }
+
+    /**
+     * Returns a page of artifacts of given distribution matching given fulltext, best matches first.
+     */
+    public List<NuxeoArtifact> searchArtifact(DistributionSnapshot snap, String fulltext, List<String> types,
+            int offset, int limit) {
+        List<NuxeoArtifact> result = new ArrayList<>();
+        for (ArtifactIndex.Entry entry : getIndex(snap).search(fulltext, types, offset, Math.min(limit, MAX_RESULTS))) {
+            NuxeoArtifact artifact = resolve(snap, entry.getType(), entry.getId());
+            if (artifact != null) {
+                result.add(artifact);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<NuxeoArtifact> filterArtifact(CoreSession session, String distribId, String type, String fulltext) {
+        DistributionSnapshot snap = Framework.getService(SnapshotManager.class).getSnapshot(distribId, session);
+        if (snap == null) {
+            return Collections.emptyList();
+        }
+        return filterArtifact(snap, type, fulltext);
+    }
+
+    /**
+     * Returns the artifacts of given type holding artifacts of given distribution matching given fulltext, the ones
+     * holding the most matches first.
+     */
+    public List<NuxeoArtifact> filterArtifact(DistributionSnapshot snap, String type, String fulltext) {
+        Map<String, Integer> hits = new LinkedHashMap<>();
+        for (ArtifactIndex.Entry entry : getIndex(snap).search(fulltext, null, 0, MAX_RESULTS)) {
+            String id = entry.getParentId(type);
+            if (id != null) {
+                hits.merge(id, 1, Integer::sum);
+            }
+        }
+        List<String> ids = new ArrayList<>(hits.keySet());
+        // stable sort: ties keep the order of their best match
+        ids.sort(Comparator.comparing(hits::get, Comparator.reverseOrder()));
+        List<NuxeoArtifact> result = new ArrayList<>();
+        for (String id : ids) {
+            NuxeoArtifact artifact = resolve(snap, type, id);
+            if (artifact != null) {
+                result.add(artifact);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the index of given distribution, building it if needed.
+     */
+    public ArtifactIndex getIndex(DistributionSnapshot snap) {
+        return snap.getAttachment(INDEX_ATTACHMENT, () -> ArtifactIndex.build(snap));
+    }
+
+    protected NuxeoArtifact resolve(DistributionSnapshot snap, String type, String id) {
+        switch (type) {
+        case BundleGroup.TYPE_NAME:
+            return snap.getBundleGroup(id);
+        case BundleInfo.TYPE_NAME:
+            return snap.getBundle(id);
+        case ComponentInfo.TYPE_NAME:
+            return snap.getComponent(id);
+        case ExtensionPointInfo.TYPE_NAME:
+            return snap.getExtensionPoint(id);
+        case ServiceInfo.TYPE_NAME:
+            return snap.getService(id);
+        case ExtensionInfo.TYPE_NAME:
+            return snap.getContribution(id);
+        default:
+            return null;
+        }
+    }
+
+}
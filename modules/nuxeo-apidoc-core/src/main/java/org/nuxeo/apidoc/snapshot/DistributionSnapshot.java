@@ -23,13 +23,17 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 import org.nuxeo.apidoc.api.BundleGroup;
 import org.nuxeo.apidoc.api.BundleInfo;
 import org.nuxeo.apidoc.api.ComponentInfo;
+import org.nuxeo.apidoc.api.ComponentSummary;
+import org.nuxeo.apidoc.api.ContributionSummary;
 import org.nuxeo.apidoc.api.ExtensionInfo;
 import org.nuxeo.apidoc.api.ExtensionPointInfo;
 import org.nuxeo.apidoc.api.OperationInfo;
+import org.nuxeo.apidoc.api.OperationSummary;
 import org.nuxeo.apidoc.api.PackageInfo;
 import org.nuxeo.apidoc.api.ServiceInfo;
 import org.nuxeo.apidoc.plugin.PluginSnapshot;
@@ -124,6 +128,14 @@ public interface DistributionSnapshot extends DistributionSnapshotDesc {
 
     ComponentInfo getComponent(String id);
 
+    /**
+     * Returns lightweight views of all components, sorted by id, for listings.
+     *
+     * @since 2023.1
+     */
+    @JsonIgnore
+    List<ComponentSummary> getComponentSummaries();
+
     @JsonIgnore
     List<String> getServiceIds();
 
@@ -142,10 +154,26 @@ public interface DistributionSnapshot extends DistributionSnapshotDesc {
 
     ExtensionInfo getContribution(String id);
 
+    /**
+     * Returns lightweight views of all contributions, for listings.
+     *
+     * @since 2023.1
+     */
+    @JsonIgnore
+    List<ContributionSummary> getContributionSummaries();
+
     OperationInfo getOperation(String id);
 
     List<OperationInfo> getOperations();
 
+    /**
+     * Returns lightweight views of all operations, for listings.
+     *
+     * @since 2023.1
+     */
+    @JsonIgnore
+    List<OperationSummary> getOperationSummaries();
+
     /**
      * Returns the package with given name (version not included).
      * <p>
@@ -208,4 +236,16 @@ public interface DistributionSnapshot extends DistributionSnapshotDesc {
      */
     Map<String, PluginSnapshot<?>> getPluginSnapshots();
 
+    /**
+     * Returns the object attached to the current state of this distribution with given name, computing it if needed.
+     * <p>
+     * Useful to keep structures derived from the distribution content, that should be dropped when the distribution
+     * changes. Default implementation does not keep anything.
+     *
+     * @since 2023.1
+     */
+    default <T> T getAttachment(String name, Supplier<T> loader) {
+        return loader.get();
+    }
+
 }
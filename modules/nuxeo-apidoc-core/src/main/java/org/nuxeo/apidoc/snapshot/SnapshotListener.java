@@ -18,10 +18,13 @@
  */
 package org.nuxeo.apidoc.snapshot;
 
+import static org.nuxeo.runtime.ComponentEvent.COMPONENT_RESOLVED;
 import static org.nuxeo.runtime.ComponentEvent.COMPONENT_STARTED;
+import static org.nuxeo.runtime.ComponentEvent.COMPONENT_UNRESOLVED;
 import static org.nuxeo.runtime.ComponentEvent.EXTENSION_REGISTERED;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -37,6 +40,7 @@ import org.nuxeo.runtime.model.ComponentManager;
 import org.nuxeo.runtime.model.ComponentManager.Listener;
 import org.nuxeo.runtime.model.ComponentStartOrders;
 import org.nuxeo.runtime.model.Extension;
+import org.nuxeo.runtime.services.config.ConfigurationService;
 
 /**
  * Listens for component events and stores information about it at runtime startup.
@@ -44,12 +48,21 @@ import org.nuxeo.runtime.model.Extension;
  * This allows to detect resolution/registration orders on component contributions to be contributed to the live
  * snapshot {@link RuntimeSnapshot} information.
  * <p>
- * Events will stop being handled after the framework has started.
+ * Events will stop being handled after the framework has started, except for component resolutions, which are recorded
+ * so that the live snapshot can be updated incrementally (see {@link #PROPERTY_INCREMENTAL}).
  *
  * @since 20.0.0
  */
 public class SnapshotListener implements ComponentListener, Listener {
 
+    /**
+     * Property controlling whether component resolutions happening after the framework has started are applied to
+     * the live snapshot, enabled unless set to false.
+     *
+     * @since 2023.1
+     */
+    public static final String PROPERTY_INCREMENTAL = "org.nuxeo.apidoc.snapshot.incremental.enabled";
+
     // records framework startup to avoid handling later hot-reload events
     protected boolean listening = true;
 
@@ -70,12 +83,19 @@ public class SnapshotListener implements ComponentListener, Listener {
     // extension id -> extension registration counter
     protected final Map<String, Long> registrations = new HashMap<>();
 
+    // component name -> resolved state, for changes happening after framework startup
+    protected final Map<String, Boolean> changes = new LinkedHashMap<>();
+
     @Override
     public void handleEvent(ComponentEvent event) {
-        if (!listening || Framework.isBooleanPropertyTrue(SnapshotManagerComponent.PROPERTY_SITE_MODE)) {
+        if (Framework.isBooleanPropertyTrue(SnapshotManagerComponent.PROPERTY_SITE_MODE)) {
             // no information needed for live runtime snapshot in this case
             return;
         }
+        if (!listening) {
+            recordChange(event);
+            return;
+        }
 
         ComponentInstance component = event.registrationInfo.getComponent();
         if (component == null) {
@@ -106,11 +126,55 @@ public class SnapshotListener implements ComponentListener, Listener {
         }
     }
 
+    /** @since 2023.1 */
+    protected void recordChange(ComponentEvent event) {
+        if (event.id != COMPONENT_RESOLVED && event.id != COMPONENT_UNRESOLVED) {
+            return;
+        }
+        ConfigurationService cs = Framework.getService(ConfigurationService.class);
+        if (cs == null || cs.isBooleanFalse(PROPERTY_INCREMENTAL)) {
+            return;
+        }
+        String name = event.registrationInfo.getName().getName();
+        synchronized (changes) {
+            // keep the latest state, at its latest position
+            changes.remove(name);
+            changes.put(name, event.id == COMPONENT_RESOLVED);
+        }
+    }
+
     @Override
     public void afterStart(ComponentManager mgr, boolean isResume) {
         listening = false;
     }
 
+    /**
+     * Returns component resolution changes recorded since framework startup or since the previous call, and clears
+     * them.
+     *
+     * @return component names, associated to true if resolved, false if unresolved
+     * @since 2023.1
+     */
+    public Map<String, Boolean> drainChanges() {
+        synchronized (changes) {
+            Map<String, Boolean> res = new LinkedHashMap<>(changes);
+            changes.clear();
+            return res;
+        }
+    }
+
+    /**
+     * Returns true if component resolution changes were recorded since framework startup or since the previous call to
+     * {@link #drainChanges()}.
+     *
+     * @since 2023.1
+     */
+    public boolean hasChanges() {
+        synchronized (changes) {
+            return !changes.isEmpty();
+        }
+    }
+
     // API
 
     public boolean isListening() {
@@ -26,12 +26,14 @@ import java.io.Serializable;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import javax.servlet.http.HttpServletRequest;
 
 import org.nuxeo.apidoc.api.NuxeoArtifact;
 import org.nuxeo.apidoc.export.api.Exporter;
 import org.nuxeo.apidoc.plugin.Plugin;
+import org.nuxeo.apidoc.repository.DistributionIndex;
 import org.nuxeo.apidoc.security.SecurityHelper;
 import org.nuxeo.ecm.core.api.CoreSession;
 import org.nuxeo.ecm.core.api.DocumentModel;
@@ -79,6 +81,38 @@ public interface SnapshotManager {
 
     public static String PROPERTY_USE_ES = "org.nuxeo.apidoc.use.elasticsearch";
 
+    /**
+     * Maximum number of persisted distributions indexed in memory, see
+     * {@link #getDistributionIndex(DocumentModel)}.
+     *
+     * @since 2023.1
+     */
+    public static String PROPERTY_CACHE_SIZE = "org.nuxeo.apidoc.cache.size";
+
+    /**
+     * Property enabling the build of the runtime live snapshot in the background as soon as the framework has started,
+     * see {@link #getRuntimeSnapshotAsync()}.
+     *
+     * @since 2023.1
+     */
+    public static String PROPERTY_WARMUP = "org.nuxeo.apidoc.snapshot.warmup.enabled";
+
+    /**
+     * Property enabling search on persisted distributions through in-memory indexes instead of Elasticsearch, see
+     * {@link org.nuxeo.apidoc.search.InMemoryArtifactSearcher}. The live distribution is always searched in memory.
+     *
+     * @since 2023.1
+     */
+    public static String PROPERTY_SEARCH_IN_MEMORY = "org.nuxeo.apidoc.search.memory.enabled";
+
+    /**
+     * Maximum number of search results cached for each persisted distribution, 0 to disable caching, see
+     * {@link org.nuxeo.apidoc.search.CachingArtifactSearcher}.
+     *
+     * @since 2023.1
+     */
+    public static String PROPERTY_SEARCH_CACHE_SIZE = "org.nuxeo.apidoc.search.cache.size";
+
     static Comparator<DistributionSnapshotDesc> DISTRIBUTION_COMPARATOR = Comparator.comparing(
             DistributionSnapshotDesc::getVersion, new VersionComparator())
                                                                                     .reversed()
@@ -100,6 +134,18 @@ public interface SnapshotManager {
      */
     DistributionSnapshot getRuntimeSnapshot();
 
+    /**
+     * Returns the build of the current runtime live snapshot, starting it in the background if needed, so that callers
+     * can wait for it with a timeout.
+     * <p>
+     * The returned future completes exceptionally if the build fails, in which case the next call starts a new build.
+     *
+     * @throws RuntimeServiceException if the runtime live snapshot should not be made available (see
+     *             {@link #isSiteMode()}.
+     * @since 2023.1
+     */
+    CompletableFuture<DistributionSnapshot> getRuntimeSnapshotAsync();
+
     /**
      * Returns the distribution with given key or alias.
      * <p>
@@ -156,10 +202,24 @@ public interface SnapshotManager {
      * <p>
      * Corresponding distribution will be hidden until
      * #{@link #validateImportedSnapshot(CoreSession, String, Map, List)} is called (or until distribution is unhidden).
+     * <p>
+     * Since 2023.1, documents can be created in parallel, committed by batches, see
+     * {@link org.nuxeo.apidoc.repository.ArchiveSnapshotImporter}.
      */
     DocumentModel importTmpSnapshot(CoreSession session, InputStream is)
             throws IOException, DocumentValidationException;
 
+    /**
+     * Imports given json export of a snapshot as a nuxeo tree, reading bundles one at a time.
+     * <p>
+     * Corresponding distribution will be hidden until
+     * #{@link #validateImportedSnapshot(CoreSession, String, Map, List)} is called (or until distribution is unhidden).
+     *
+     * @since 2023.1
+     */
+    DocumentModel importTmpJsonSnapshot(CoreSession session, InputStream is)
+            throws IOException, DocumentValidationException;
+
     /**
      * Imports given snapshot as a nuxeo tree.
      *
@@ -181,6 +241,12 @@ public interface SnapshotManager {
     void validateImportedSnapshot(CoreSession session, String distribDocId, Map<String, Serializable> properties,
             List<String> reservedKeys) throws DocumentValidationException;
 
+    /**
+     * Writes the Nuxeo archive of given persisted distribution to given stream, as it is produced.
+     * <p>
+     * Since 2023.1, documents can be converted in parallel, see
+     * {@link org.nuxeo.apidoc.repository.ArchiveSnapshotExporter}.
+     */
     void exportSnapshot(CoreSession session, String key, OutputStream out) throws IOException;
 
     /**
@@ -236,4 +302,22 @@ public interface SnapshotManager {
      */
     Exporter getExporter(String id);
 
+    /**
+     * Returns the node-local index of artifacts for given persisted distribution document, creating it if needed.
+     * <p>
+     * Returns null if caching is disabled, or if the distribution is hidden (as it may still be in the process of being
+     * persisted or imported).
+     *
+     * @since 2023.1
+     */
+    DistributionIndex getDistributionIndex(DocumentModel distributionDoc);
+
+    /**
+     * Drops the cached data for the distribution document with given id, as well as cached resolutions of distribution
+     * keys and aliases, on all cluster nodes.
+     *
+     * @since 2023.1
+     */
+    void invalidateDistributionIndex(String distributionDocId);
+
 }
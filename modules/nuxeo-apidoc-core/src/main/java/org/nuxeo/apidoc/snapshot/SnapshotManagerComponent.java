@@ -24,6 +24,7 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Serializable;
 import java.lang.reflect.Constructor;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -31,6 +32,9 @@ import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 
 import javax.servlet.http.HttpServletRequest;
@@ -52,16 +56,26 @@ import org.nuxeo.apidoc.export.api.ExporterDescriptor;
 import org.nuxeo.apidoc.introspection.RuntimeSnapshot;
 import org.nuxeo.apidoc.plugin.Plugin;
 import org.nuxeo.apidoc.plugin.PluginDescriptor;
+import org.nuxeo.apidoc.repository.ArchiveSnapshotExporter;
+import org.nuxeo.apidoc.repository.ArchiveSnapshotImporter;
+import org.nuxeo.apidoc.repository.DistributionIndex;
+import org.nuxeo.apidoc.repository.JsonSnapshotImporter;
 import org.nuxeo.apidoc.repository.RepositoryDistributionSnapshot;
 import org.nuxeo.apidoc.repository.SnapshotPersister;
 import org.nuxeo.apidoc.search.ArtifactSearcher;
 import org.nuxeo.apidoc.search.ArtifactSearcherImpl;
+import org.nuxeo.apidoc.search.CachingArtifactSearcher;
+import org.nuxeo.apidoc.search.InMemoryArtifactSearcher;
 import org.nuxeo.apidoc.security.SecurityHelper;
+import org.nuxeo.ecm.core.api.CoreInstance;
 import org.nuxeo.ecm.core.api.CoreSession;
 import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.api.DocumentNotFoundException;
 import org.nuxeo.ecm.core.api.DocumentRef;
+import org.nuxeo.ecm.core.api.DocumentSecurityException;
 import org.nuxeo.ecm.core.api.IdRef;
 import org.nuxeo.ecm.core.api.NuxeoException;
+import org.nuxeo.ecm.core.api.NuxeoPrincipal;
 import org.nuxeo.ecm.core.api.PathRef;
 import org.nuxeo.ecm.core.api.validation.DocumentValidationException;
 import org.nuxeo.ecm.core.bulk.BulkService;
@@ -70,15 +84,15 @@ import org.nuxeo.ecm.core.io.DocumentReader;
 import org.nuxeo.ecm.core.io.DocumentWriter;
 import org.nuxeo.ecm.core.io.impl.DocumentPipeImpl;
 import org.nuxeo.ecm.core.io.impl.plugins.DocumentModelWriter;
-import org.nuxeo.ecm.core.io.impl.plugins.DocumentTreeReader;
 import org.nuxeo.ecm.core.io.impl.plugins.NuxeoArchiveReader;
-import org.nuxeo.ecm.core.io.impl.plugins.NuxeoArchiveWriter;
 import org.nuxeo.runtime.RuntimeMessage.Level;
 import org.nuxeo.runtime.RuntimeServiceException;
 import org.nuxeo.runtime.api.Framework;
 import org.nuxeo.runtime.model.ComponentContext;
 import org.nuxeo.runtime.model.ComponentManager;
 import org.nuxeo.runtime.model.DefaultComponent;
+import org.nuxeo.runtime.pubsub.PubSubService;
+import org.nuxeo.runtime.services.config.ConfigurationService;
 import org.nuxeo.runtime.transaction.TransactionHelper;
 
 public class SnapshotManagerComponent extends DefaultComponent implements SnapshotManager {
@@ -90,7 +104,7 @@ public class SnapshotManagerComponent extends DefaultComponent implements Snapsh
      *
      * @since 11.1
      */
-    protected final ArtifactSearcher searcher = new ArtifactSearcherImpl();
+    protected volatile ArtifactSearcher searcher = new ArtifactSearcherImpl();
 
     /**
      * Extension point for plugins.
@@ -108,6 +122,16 @@ public class SnapshotManagerComponent extends DefaultComponent implements Snapsh
 
     protected volatile DistributionSnapshot runtimeSnapshot;
 
+    /**
+     * Build of the runtime snapshot, shared by all callers while in progress.
+     *
+     * @since 2023.1
+     */
+    protected CompletableFuture<DistributionSnapshot> runtimeSnapshotBuild;
+
+    /** @since 2023.1 */
+    protected static final String WARMUP_THREAD_NAME = "Nuxeo-Explorer-RuntimeSnapshot";
+
     protected static final String IMPORT_TMP = "tmpImport";
 
     // save every 3000 documents
@@ -121,11 +145,80 @@ public class SnapshotManagerComponent extends DefaultComponent implements Snapsh
 
     protected final Map<String, Exporter> exporters = new LinkedHashMap<>();
 
+    /** @since 2023.1 */
+    protected static final int DEFAULT_CACHE_SIZE = 10;
+
+    /** @since 2023.1 */
+    protected static final int DEFAULT_SEARCH_CACHE_SIZE = 100;
+
+    /** @since 2023.1 */
+    protected volatile int cacheSize;
+
+    /**
+     * Indexes of persisted distributions, by document id, evicting the least recently used ones.
+     *
+     * @since 2023.1
+     */
+    protected final Map<String, DistributionIndex> indexes = new LinkedHashMap<>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, DistributionIndex> eldest) {
+            return size() > cacheSize;
+        }
+    };
+
+    /**
+     * Pub/sub topic used to drop the indexes of updated distributions on all cluster nodes.
+     *
+     * @since 2023.1
+     */
+    protected static final String INVALIDATIONS_TOPIC = "apidocDistributionInvalidations";
+
+    /** @since 2023.1 */
+    protected BiConsumer<String, byte[]> invalidationsSubscriber;
+
+    /** @since 2023.1 */
+    protected static final int DISTRIBUTION_IDS_CACHE_SIZE = 1000;
+
+    /**
+     * Document ids of persisted distributions, by user and key or alias, evicting the least recently used ones: as
+     * resolution depends on the distributions readable by the user, it is not shared with other users.
+     *
+     * @since 2023.1
+     */
+    protected final Map<String, String> distributionIds = new LinkedHashMap<>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > DISTRIBUTION_IDS_CACHE_SIZE;
+        }
+    };
+
     public SnapshotManagerComponent() {
         componentListener = new SnapshotListener();
         ComponentManager compManager = Framework.getRuntime().getComponentManager();
         compManager.addComponentListener(componentListener);
         compManager.addListener(componentListener);
+        compManager.addListener(new ComponentManager.Listener() {
+            @Override
+            public void afterStart(ComponentManager mgr, boolean isResume) {
+                warmUp();
+            }
+        });
+    }
+
+    /**
+     * Starts building the runtime snapshot in the background, if enabled.
+     *
+     * @since 2023.1
+     */
+    protected void warmUp() {
+        if (isSiteMode() || !Framework.getService(ConfigurationService.class).isBooleanTrue(PROPERTY_WARMUP)) {
+            return;
+        }
+        getRuntimeSnapshotAsync();
     }
 
     @Override
@@ -133,14 +226,92 @@ public class SnapshotManagerComponent extends DefaultComponent implements Snapsh
         if (isSiteMode()) {
             throw new RuntimeServiceException("Live runtime cannot be snapshotted.");
         }
-        if (runtimeSnapshot == null) {
+        DistributionSnapshot snapshot = runtimeSnapshot;
+        if (snapshot == null) {
+            try {
+                snapshot = startRuntimeSnapshotBuild(false).join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new NuxeoException(e.getCause());
+            }
+        }
+        if (snapshot instanceof RuntimeSnapshot && componentListener.hasChanges()) {
             synchronized (this) {
-                if (runtimeSnapshot == null) {
-                    runtimeSnapshot = RuntimeSnapshot.build();
+                // drained under the same lock as applied, so that changes of concurrent callers are applied in order
+                Map<String, Boolean> changes = componentListener.drainChanges();
+                if (!changes.isEmpty()) {
+                    ((RuntimeSnapshot) snapshot).update(changes);
                 }
             }
         }
-        return runtimeSnapshot;
+        return snapshot;
+    }
+
+    @Override
+    public CompletableFuture<DistributionSnapshot> getRuntimeSnapshotAsync() {
+        if (isSiteMode()) {
+            throw new RuntimeServiceException("Live runtime cannot be snapshotted.");
+        }
+        DistributionSnapshot snapshot = runtimeSnapshot;
+        if (snapshot != null) {
+            return CompletableFuture.completedFuture(snapshot);
+        }
+        return startRuntimeSnapshotBuild(true);
+    }
+
+    /**
+     * Returns the runtime snapshot build in progress, or starts a new one, either in the calling thread or in a
+     * background thread.
+     *
+     * @since 2023.1
+     */
+    protected CompletableFuture<DistributionSnapshot> startRuntimeSnapshotBuild(boolean async) {
+        CompletableFuture<DistributionSnapshot> build;
+        synchronized (this) {
+            if (runtimeSnapshot != null) {
+                return CompletableFuture.completedFuture(runtimeSnapshot);
+            }
+            if (runtimeSnapshotBuild != null) {
+                return runtimeSnapshotBuild;
+            }
+            build = new CompletableFuture<>();
+            runtimeSnapshotBuild = build;
+        }
+        if (async) {
+            build.exceptionally(e -> {
+                log.error("Failed to build runtime snapshot in the background", e);
+                return null;
+            });
+            Thread thread = new Thread(() -> buildRuntimeSnapshot(build), WARMUP_THREAD_NAME);
+            thread.setDaemon(true);
+            thread.start();
+        } else {
+            buildRuntimeSnapshot(build);
+        }
+        return build;
+    }
+
+    /** @since 2023.1 */
+    protected void buildRuntimeSnapshot(CompletableFuture<DistributionSnapshot> build) {
+        try {
+            // changes recorded so far are part of the build
+            componentListener.drainChanges();
+            long start = System.currentTimeMillis();
+            DistributionSnapshot snapshot = RuntimeSnapshot.build();
+            log.debug("Built runtime snapshot in {}ms", () -> System.currentTimeMillis() - start);
+            synchronized (this) {
+                runtimeSnapshot = snapshot;
+                runtimeSnapshotBuild = null;
+            }
+            build.complete(snapshot);
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                runtimeSnapshotBuild = null;
+            }
+            build.completeExceptionally(e);
+        }
     }
 
     @Override
@@ -151,7 +322,18 @@ public class SnapshotManagerComponent extends DefaultComponent implements Snapsh
             }
             return getRuntimeSnapshot();
         }
+        DistributionSnapshot cached = getCachedSnapshot(session, key);
+        if (cached != null) {
+            return cached;
+        }
         List<DistributionSnapshot> snaps = getPersistentSnapshots(session, key, true);
+        if (snaps.size() == 1 && cacheSize > 0) {
+            // only cache unambiguous resolutions
+            String docId = ((RepositoryDistributionSnapshot) snaps.get(0)).getDoc().getId();
+            synchronized (distributionIds) {
+                distributionIds.put(getDistributionIdKey(session, key), docId);
+            }
+        }
         if (snaps.isEmpty() && canSeeRuntimeSnapshot(session)) {
             DistributionSnapshot rtsnap = getRuntimeSnapshot();
             if (rtsnap.getKey().equals(key)) {
@@ -164,6 +346,95 @@ public class SnapshotManagerComponent extends DefaultComponent implements Snapsh
         return snaps.get(0);
     }
 
+    /**
+     * Returns the persisted distribution for given key or alias, if its resolution was cached and is still valid.
+     *
+     * @since 2023.1
+     */
+    protected DistributionSnapshot getCachedSnapshot(CoreSession session, String key) {
+        String idKey = getDistributionIdKey(session, key);
+        String docId;
+        synchronized (distributionIds) {
+            docId = distributionIds.get(idKey);
+        }
+        if (docId == null) {
+            return null;
+        }
+        DocumentModel doc;
+        try {
+            doc = session.getDocument(new IdRef(docId));
+        } catch (DocumentNotFoundException | DocumentSecurityException e) {
+            removeDistributionId(idKey);
+            return null;
+        }
+        // key or aliases may have been updated on another node
+        RepositoryDistributionSnapshot snap = doc.isTrashed() || doc.isVersion() ? null
+                : (RepositoryDistributionSnapshot) doc.getAdapter(DistributionSnapshot.class);
+        if (snap == null || !(key.equals(snap.getKey()) || snap.getAliases().contains(key))) {
+            removeDistributionId(idKey);
+            return null;
+        }
+        return snap;
+    }
+
+    /**
+     * Returns the key of the cached document id of given distribution key or alias, for the user of given session.
+     *
+     * @since 2023.1
+     */
+    protected String getDistributionIdKey(CoreSession session, String key) {
+        return session.getPrincipal().getName() + "/" + key;
+    }
+
+    /** @since 2023.1 */
+    protected void removeDistributionId(String idKey) {
+        synchronized (distributionIds) {
+            distributionIds.remove(idKey);
+        }
+    }
+
+    /** @since 2023.1 */
+    protected void clearDistributionIds() {
+        synchronized (distributionIds) {
+            distributionIds.clear();
+        }
+    }
+
+    @Override
+    public DistributionIndex getDistributionIndex(DocumentModel distributionDoc) {
+        if (cacheSize < 1 || distributionDoc.getId() == null
+                || Boolean.TRUE.equals(distributionDoc.getPropertyValue(DistributionSnapshot.PROP_HIDE))) {
+            return null;
+        }
+        synchronized (indexes) {
+            DistributionIndex index = indexes.get(distributionDoc.getId());
+            if (index == null || !index.matches(distributionDoc)) {
+                index = new DistributionIndex(distributionDoc);
+                indexes.put(index.getDocId(), index);
+            }
+            return index;
+        }
+    }
+
+    @Override
+    public void invalidateDistributionIndex(String distributionDocId) {
+        invalidateLocalDistributionIndex(distributionDocId);
+        Framework.getService(PubSubService.class)
+                 .publish(INVALIDATIONS_TOPIC, distributionDocId.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Drops the index of given distribution on this node only.
+     *
+     * @since 2023.1
+     */
+    protected void invalidateLocalDistributionIndex(String distributionDocId) {
+        synchronized (indexes) {
+            indexes.remove(distributionDocId);
+        }
+        clearDistributionIds();
+    }
+
     @Override
     public List<DistributionSnapshot> listPersistentSnapshots(CoreSession session) {
         List<DistributionSnapshot> distribs = RepositoryDistributionSnapshot.readPersistentSnapshots(session);
@@ -299,14 +570,7 @@ public class SnapshotManagerComponent extends DefaultComponent implements Snapsh
         RepositoryDistributionSnapshot docSnap = (RepositoryDistributionSnapshot) snap;
         DocumentModel root = docSnap.getDoc();
 
-        DocumentReader reader = new DocumentTreeReader(session, root);
-        DocumentWriter writer = new NuxeoArchiveWriter(out);
-        DocumentPipe pipe = new DocumentPipeImpl(10);
-        pipe.setReader(reader);
-        pipe.setWriter(writer);
-        pipe.run();
-        reader.close();
-        writer.close();
+        new ArchiveSnapshotExporter().export(session, root, out);
     }
 
     @Override
@@ -324,6 +588,16 @@ public class SnapshotManagerComponent extends DefaultComponent implements Snapsh
 
     @Override
     public DocumentModel importTmpSnapshot(CoreSession session, InputStream is) throws IOException {
+        int nbThreads = ArchiveSnapshotImporter.getConfiguredThreads();
+        if (nbThreads > 1) {
+            // the container must be visible to the sessions of the importer
+            String repositoryName = session.getRepositoryName();
+            NuxeoPrincipal principal = session.getPrincipal();
+            TransactionHelper.runInNewTransaction(
+                    () -> persister.getDistributionRoot(CoreInstance.getCoreSession(repositoryName, principal)));
+            return new ArchiveSnapshotImporter(nbThreads).importArchive(session, persister.getDistributionRoot(session),
+                    is);
+        }
         DocumentModel container = persister.getDistributionRoot(session);
         DocumentRef tmpRef = new PathRef(container.getPathAsString(), IMPORT_TMP);
 
@@ -383,6 +657,12 @@ public class SnapshotManagerComponent extends DefaultComponent implements Snapsh
         return snapDoc;
     }
 
+    @Override
+    public DocumentModel importTmpJsonSnapshot(CoreSession session, InputStream is)
+            throws IOException, DocumentValidationException {
+        return new JsonSnapshotImporter(persister, getPlugins()).importJson(session, is).getDoc();
+    }
+
     protected void commitOrRollbackAndRestartTransaction() {
         TransactionHelper.commitOrRollbackTransaction();
         TransactionHelper.startTransaction();
@@ -433,6 +713,15 @@ public class SnapshotManagerComponent extends DefaultComponent implements Snapsh
         super.start(context);
         fillRegistry(XP_PLUGINS, plugins, PluginDescriptor.class);
         fillRegistry(XP_EXPORTERS, exporters, ExporterDescriptor.class);
+        ConfigurationService cs = Framework.getService(ConfigurationService.class);
+        cacheSize = cs.getInteger(PROPERTY_CACHE_SIZE, DEFAULT_CACHE_SIZE);
+        ArtifactSearcher backend = cs.isBooleanTrue(PROPERTY_SEARCH_IN_MEMORY) ? new InMemoryArtifactSearcher()
+                : new ArtifactSearcherImpl();
+        int searchCacheSize = cs.getInteger(PROPERTY_SEARCH_CACHE_SIZE, DEFAULT_SEARCH_CACHE_SIZE);
+        searcher = searchCacheSize > 0 ? new CachingArtifactSearcher(backend, searchCacheSize) : backend;
+        invalidationsSubscriber = (topic, message) -> invalidateLocalDistributionIndex(
+                new String(message, StandardCharsets.UTF_8));
+        Framework.getService(PubSubService.class).registerSubscriber(INVALIDATIONS_TOPIC, invalidationsSubscriber);
     }
 
     @SuppressWarnings("unchecked")
@@ -458,8 +747,17 @@ public class SnapshotManagerComponent extends DefaultComponent implements Snapsh
     @Override
     public void stop(ComponentContext context) throws InterruptedException {
         super.stop(context);
+        if (invalidationsSubscriber != null) {
+            Framework.getService(PubSubService.class)
+                     .unregisterSubscriber(INVALIDATIONS_TOPIC, invalidationsSubscriber);
+            invalidationsSubscriber = null;
+        }
         plugins.clear();
         exporters.clear();
+        synchronized (indexes) {
+            indexes.clear();
+        }
+        clearDistributionIds();
     }
 
     @Override
@@ -0,0 +1,105 @@
+/*
+ * (C) Copyright 2023 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nuxeo.apidoc.worker;
+
+import static org.nuxeo.apidoc.adapters.BaseNuxeoArtifactDocAdapter.APIDOC_COMMON_SCHEMA;
+import static org.nuxeo.apidoc.adapters.BaseNuxeoArtifactDocAdapter.PROP_HIERARCHY_PATH;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.nuxeo.apidoc.adapters.BaseNuxeoArtifactDocAdapter;
+import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.api.DocumentNotFoundException;
+import org.nuxeo.ecm.core.work.AbstractWork;
+import org.nuxeo.ecm.platform.dublincore.listener.DublinCoreListener;
+
+/**
+ * Fills denormalized parent information on artifacts of a distribution persisted by a previous version.
+ * <p>
+ * Documents already holding this information are left untouched, so that this work can be run again safely.
+ *
+ * @since 2023.1
+ */
+public class DenormalizeArtifactsWorker extends AbstractWork {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Logger log = LogManager.getLogger(DenormalizeArtifactsWorker.class);
+
+    public static final String CATEGORY = "apidoc-denormalizer";
+
+    /** Number of updated documents after which the transaction is committed. */
+    protected static final int COMMIT_INTERVAL = 500;
+
+    protected long count;
+
+    public DenormalizeArtifactsWorker(String repositoryName, String originatingUsername, String distributionDocId) {
+        super(String.format("%s:%s:denormalizer", repositoryName, distributionDocId));
+        setDocument(repositoryName, distributionDocId);
+        setOriginatingUsername(originatingUsername);
+    }
+
+    @Override
+    public boolean isIdempotent() {
+        return false;
+    }
+
+    @Override
+    public void work() {
+        setStatus("Denormalizing");
+        openSystemSession();
+
+        try {
+            DocumentModel distribution = session.getDocument(getDocument().getDocRef());
+            denormalizeChildren(distribution);
+            session.save();
+            log.info(String.format("Denormalized %s documents for distribution '%s'", count, distribution.getName()));
+            setStatus("Done");
+        } catch (DocumentNotFoundException cause) {
+            setStatus("Not found");
+        }
+    }
+
+    protected void denormalizeChildren(DocumentModel parent) {
+        for (DocumentModel child : session.getChildren(parent.getRef())) {
+            if (child.hasSchema(APIDOC_COMMON_SCHEMA) && child.getPropertyValue(PROP_HIERARCHY_PATH) == null) {
+                BaseNuxeoArtifactDocAdapter.fillParentData(child, parent);
+                BaseNuxeoArtifactDocAdapter.fillContextData(child);
+                child.putContextData(DublinCoreListener.DISABLE_DUBLINCORE_LISTENER, true);
+                child = session.saveDocument(child);
+                if (++count % COMMIT_INTERVAL == 0) {
+                    session.save();
+                    commitOrRollbackTransaction();
+                    startTransaction();
+                }
+            }
+            if (child.isFolder()) {
+                denormalizeChildren(child);
+            }
+        }
+    }
+
+    @Override
+    public String getCategory() {
+        return CATEGORY;
+    }
+
+    @Override
+    public String getTitle() {
+        return "Denormalization of distribution artifacts";
+    }
+
+}
@@ -0,0 +1,87 @@
+/*
+ * (C) Copyright 2023 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nuxeo.apidoc.worker;
+
+import static org.nuxeo.ecm.core.bulk.BulkServiceImpl.STATUS_STREAM;
+import static org.nuxeo.lib.stream.computation.AbstractComputation.INPUT_1;
+import static org.nuxeo.lib.stream.computation.AbstractComputation.OUTPUT_1;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang3.StringUtils;
+import org.nuxeo.apidoc.listener.AttributesExtractorStater;
+import org.nuxeo.ecm.core.api.CoreSession;
+import org.nuxeo.ecm.core.bulk.BulkService;
+import org.nuxeo.ecm.core.bulk.action.computation.AbstractBulkComputation;
+import org.nuxeo.ecm.core.bulk.message.BulkCommand;
+import org.nuxeo.lib.stream.computation.Topology;
+import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.stream.StreamProcessorTopology;
+
+/**
+ * Bulk action extracting XML attributes of all artifacts documents holding some, see
+ * {@link ExtractXmlAttributesWorker}.
+ * <p>
+ * Documents are scrolled and processed by buckets by the Bulk Action Framework: a reindexation is resumed where it
+ * stopped after a restart, and its progress is available from the status of its command.
+ *
+ * @since 2023.1
+ */
+public class ExtractXmlAttributesAction implements StreamProcessorTopology {
+
+    public static final String ACTION_NAME = "apidocExtractXmlAttributes";
+
+    public static final String ACTION_FULL_NAME = "bulk/" + ACTION_NAME;
+
+    /** Query selecting all artifacts documents holding XML attributes. */
+    public static final String QUERY = String.format(
+            "SELECT * FROM Document WHERE ecm:primaryType IN ('%s') AND ecm:isProxy = 0 AND ecm:isTrashed = 0",
+            StringUtils.join(AttributesExtractorStater.DOC_TYPES, "','"));
+
+    /**
+     * Submits the extraction of XML attributes of all artifacts documents of given repository, and returns the id of
+     * the bulk command.
+     */
+    public static String submit(String repositoryName, String username) {
+        BulkCommand command = new BulkCommand.Builder(ACTION_NAME, QUERY, username).repository(repositoryName)
+                                                                                  .build();
+        return Framework.getService(BulkService.class).submit(command);
+    }
+
+    @Override
+    public Topology getTopology(Map<String, String> options) {
+        return Topology.builder()
+                       .addComputation(ExtractXmlAttributesComputation::new,
+                               List.of(INPUT_1 + ":" + ACTION_FULL_NAME, OUTPUT_1 + ":" + STATUS_STREAM))
+                       .build();
+    }
+
+    public static class ExtractXmlAttributesComputation extends AbstractBulkComputation {
+
+        public ExtractXmlAttributesComputation() {
+            super(ACTION_FULL_NAME);
+        }
+
+        @Override
+        protected void compute(CoreSession session, List<String> ids, Map<String, Serializable> properties) {
+            ExtractXmlAttributesWorker.extractAttributes(session, ids);
+        }
+
+    }
+
+}
@@ -20,7 +20,11 @@
 package org.nuxeo.apidoc.worker;
 
 import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.stream.IntStream;
 
@@ -29,21 +33,33 @@ import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
 
 import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.nuxeo.apidoc.adapters.BaseNuxeoArtifactDocAdapter;
 import org.nuxeo.apidoc.listener.AttributesExtractorStater;
 import org.nuxeo.ecm.core.api.Blob;
+import org.nuxeo.ecm.core.api.CoreSession;
 import org.nuxeo.ecm.core.api.DocumentModel;
 import org.nuxeo.ecm.core.api.DocumentNotFoundException;
 import org.nuxeo.ecm.core.api.DocumentRef;
+import org.nuxeo.ecm.core.api.IdRef;
 import org.nuxeo.ecm.core.api.NuxeoException;
 import org.nuxeo.ecm.core.api.blobholder.BlobHolder;
 import org.nuxeo.ecm.core.work.AbstractWork;
+import org.nuxeo.ecm.core.work.api.WorkManager;
 import org.nuxeo.ecm.platform.dublincore.listener.DublinCoreListener;
+import org.nuxeo.runtime.api.Framework;
 import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.DefaultHandler;
 
 /**
+ * Extracts XML attributes of artifacts documents and stores them in a property that will be indexed.
+ * <p>
+ * Since 2023.1, a single work can handle a batch of documents, fetched in a single call and saved in the work
+ * transaction, see {@link #schedule(String, String, Collection)}.
+ *
  * @author <a href="mailto:ak@nuxeo.com">Arnaud Kervern</a>
  * @since 8.3
  */
@@ -51,8 +67,20 @@ public class ExtractXmlAttributesWorker extends AbstractWork {
 
     private static final long serialVersionUID = 1L;
 
+    private static final Logger log = LogManager.getLogger(ExtractXmlAttributesWorker.class);
+
     public static final String CATEGORY = "apidoc-xml-extractor";
 
+    /**
+     * Maximum number of documents handled by a work scheduled by {@link #schedule(String, String, Collection)}.
+     *
+     * @since 2023.1
+     */
+    public static final int BATCH_SIZE = 100;
+
+    /** Parsers are costly to create: keep one per thread, reset after each use. */
+    protected static final ThreadLocal<SAXParser> PARSERS = new ThreadLocal<>();
+
     protected ExtractXmlAttributesWorker(String repositoryName, String docId) {
         super(String.format("%s:%s:xml:extractor", repositoryName, docId));
         setDocument(repositoryName, docId);
@@ -63,6 +91,38 @@ public class ExtractXmlAttributesWorker extends AbstractWork {
         setOriginatingUsername(originatingUsername);
     }
 
+    /**
+     * Creates a work extracting attributes of all given documents.
+     *
+     * @since 2023.1
+     */
+    public ExtractXmlAttributesWorker(String repositoryName, String originatingUsername, List<String> docIds) {
+        super(String.format("%s:%s+%s:xml:extractor", repositoryName, docIds.get(0), docIds.size() - 1));
+        setDocuments(repositoryName, docIds);
+        setOriginatingUsername(originatingUsername);
+    }
+
+    /**
+     * Schedules the extraction of attributes of given documents, using one work per batch of {@link #BATCH_SIZE}
+     * documents.
+     *
+     * @since 2023.1
+     */
+    public static void schedule(String repositoryName, String originatingUsername, Collection<String> docIds) {
+        WorkManager workManager = Framework.getService(WorkManager.class);
+        List<String> batch = new ArrayList<>(BATCH_SIZE);
+        for (String docId : docIds) {
+            batch.add(docId);
+            if (batch.size() == BATCH_SIZE) {
+                workManager.schedule(new ExtractXmlAttributesWorker(repositoryName, originatingUsername, batch));
+                batch = new ArrayList<>(BATCH_SIZE);
+            }
+        }
+        if (!batch.isEmpty()) {
+            workManager.schedule(new ExtractXmlAttributesWorker(repositoryName, originatingUsername, batch));
+        }
+    }
+
     @Override
     public boolean isIdempotent() {
         return false;
@@ -73,22 +133,53 @@ public class ExtractXmlAttributesWorker extends AbstractWork {
         setStatus("Extracting");
         openSystemSession();
 
-        try {
-            DocumentModel doc = loadDocument();
-            BlobHolder adapter = doc.getAdapter(BlobHolder.class);
-            String attributes = extractAttributes(adapter.getBlob());
-            doc.setPropertyValue(AttributesExtractorStater.ATTRIBUTES_PROPERTY, attributes);
-            BaseNuxeoArtifactDocAdapter.fillContextData(doc);
-            session.saveDocument(doc);
+        if (docIds == null) {
+            try {
+                DocumentModel doc = loadDocument();
+                extractAttributes(doc);
+                session.saveDocument(doc);
+            } catch (DocumentNotFoundException cause) {
+            } catch (IOException | ParserConfigurationException | SAXException e) {
+                setStatus("Failed");
+                throw new NuxeoException(e);
+            }
+        } else {
+            extractAttributes(session, docIds);
+            session.save();
+        }
 
-            setStatus("Done");
-        } catch (DocumentNotFoundException cause) {
-        } catch (IOException | ParserConfigurationException | SAXException e) {
-            setStatus("Failed");
-            throw new NuxeoException(e);
+        setStatus("Done");
+    }
+
+    /**
+     * Extracts and saves the attributes of given documents, fetched in a single call. Missing documents are skipped,
+     * and a failure on one document does not prevent the others from being updated.
+     *
+     * @since 2023.1
+     */
+    public static void extractAttributes(CoreSession session, List<String> ids) {
+        DocumentRef[] refs = ids.stream().map(IdRef::new).toArray(DocumentRef[]::new);
+        for (DocumentModel doc : session.getDocuments(refs)) {
+            doc.putContextData(DublinCoreListener.DISABLE_DUBLINCORE_LISTENER, true);
+            try {
+                extractAttributes(doc);
+            } catch (IOException | ParserConfigurationException | SAXException e) {
+                log.error(String.format("Cannot extract XML attributes of document '%s'", doc.getId()), e);
+                continue;
+            }
+            session.saveDocument(doc);
         }
     }
 
+    protected static void extractAttributes(DocumentModel doc)
+            throws IOException, ParserConfigurationException, SAXException {
+        BlobHolder adapter = doc.getAdapter(BlobHolder.class);
+        Blob blob = adapter.getBlob();
+        String attributes = blob == null ? null : extractAttributes(new InputSource(blob.getStream()));
+        doc.setPropertyValue(AttributesExtractorStater.ATTRIBUTES_PROPERTY, attributes);
+        BaseNuxeoArtifactDocAdapter.fillContextData(doc);
+    }
+
     protected DocumentModel loadDocument() throws DocumentNotFoundException {
         final DocumentRef docRef = getDocument().getDocRef();
         DocumentModel doc = session.getDocument(docRef);
@@ -101,15 +192,44 @@ public class ExtractXmlAttributesWorker extends AbstractWork {
             return null;
         }
 
-        SAXParserFactory factory = SAXParserFactory.newInstance();
-        SAXParser saxParser = factory.newSAXParser();
+        return extractAttributes(new InputSource(blob.getStream()));
+    }
+
+    /**
+     * Returns the attributes of given XML, as stored in {@link AttributesExtractorStater#ATTRIBUTES_PROPERTY}.
+     *
+     * @since 2023.1
+     */
+    public static String extractXmlAttributes(String xml)
+            throws ParserConfigurationException, SAXException, IOException {
+        if (xml == null) {
+            return null;
+        }
+        return extractAttributes(new InputSource(new StringReader(xml)));
+    }
 
+    protected static String extractAttributes(InputSource source)
+            throws ParserConfigurationException, SAXException, IOException {
+        SAXParser saxParser = getParser();
         Set<String> attributes = new HashSet<>();
-        saxParser.parse(blob.getStream(), new Handler(attributes));
+        try {
+            saxParser.parse(source, new Handler(attributes));
+        } finally {
+            saxParser.reset();
+        }
 
         return StringUtils.join(attributes, ' ');
     }
 
+    protected static SAXParser getParser() throws ParserConfigurationException, SAXException {
+        SAXParser parser = PARSERS.get();
+        if (parser == null) {
+            parser = SAXParserFactory.newInstance().newSAXParser();
+            PARSERS.set(parser);
+        }
+        return parser;
+    }
+
     @Override
     public String getCategory() {
         return CATEGORY;
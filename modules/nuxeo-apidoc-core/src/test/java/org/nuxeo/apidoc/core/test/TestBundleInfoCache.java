@@ -0,0 +1,82 @@
+/*
+ * (C) Copyright 2023 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nuxeo.apidoc.core.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.nuxeo.apidoc.introspection.BundleInfoCache;
+import org.nuxeo.apidoc.introspection.BundleInfoImpl;
+import org.nuxeo.ecm.core.api.impl.blob.StringBlob;
+
+/**
+ * @since 2023.1
+ */
+public class TestBundleInfoCache {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testCache() throws IOException {
+        File jar = folder.newFile("foo.jar");
+        Files.writeString(jar.toPath(), "content");
+        File cacheFile = new File(folder.getRoot(), "cache/bundles-cache.json");
+
+        BundleInfoImpl binfo = new BundleInfoImpl("org.nuxeo.foo");
+        binfo.setManifest("Manifest-Version: 1.0");
+        binfo.setRequirements(List.of("org.nuxeo.bar"));
+        binfo.setGroupId("org.nuxeo");
+        binfo.setArtifactId("nuxeo-foo");
+        binfo.setArtifactVersion("1.0");
+        binfo.setReadme(new StringBlob("# Foo", "text/plain", StandardCharsets.UTF_8.name(), "ReadMe.md"));
+
+        BundleInfoCache cache = new BundleInfoCache(cacheFile);
+        assertFalse(cache.fill(jar, new BundleInfoImpl("org.nuxeo.foo")));
+        cache.put(jar, binfo);
+        cache.save();
+        assertTrue(cacheFile.isFile());
+
+        // read back from disk
+        cache = new BundleInfoCache(cacheFile);
+        BundleInfoImpl cached = new BundleInfoImpl("org.nuxeo.foo");
+        assertTrue(cache.fill(jar, cached));
+        assertEquals("Manifest-Version: 1.0", cached.getManifest());
+        assertEquals(List.of("org.nuxeo.bar"), cached.getRequirements());
+        assertEquals("org.nuxeo", cached.getGroupId());
+        assertEquals("nuxeo-foo", cached.getArtifactId());
+        assertEquals("1.0", cached.getArtifactVersion());
+        assertEquals("ReadMe.md", cached.getReadme().getFilename());
+        assertEquals("# Foo", cached.getReadme().getString());
+        assertNull(cached.getParentReadme());
+
+        // changed jar invalidates the entry
+        Files.writeString(jar.toPath(), "new content");
+        assertFalse(cache.fill(jar, new BundleInfoImpl("org.nuxeo.foo")));
+    }
+
+}
@@ -21,13 +21,19 @@ package org.nuxeo.apidoc.core.test;
 import static org.junit.Assert.assertEquals;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.nuxeo.apidoc.introspection.BundleInfoImpl;
 import org.nuxeo.apidoc.introspection.EmbeddedDocExtractor;
+import org.nuxeo.apidoc.introspection.JarScanner;
 import org.nuxeo.common.utils.FileUtils;
 import org.nuxeo.runtime.test.runner.Deploy;
 import org.nuxeo.runtime.test.runner.Features;
@@ -69,6 +75,28 @@ public class TestEmbeddedDocExtractor {
                 EmbeddedDocExtractor.getHtmlFromMarkdown(getReferenceContent("markdown/sample-readme.md")));
     }
 
+    @Test
+    public void testJarScanner() throws IOException {
+        File jar = File.createTempFile("test-scanner", ".jar");
+        try {
+            try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(jar))) {
+                out.putNextEntry(new ZipEntry("doc/"));
+                out.putNextEntry(new ZipEntry("doc/ReadMe.md"));
+                out.write("local".getBytes(StandardCharsets.UTF_8));
+                out.putNextEntry(new ZipEntry("org/nuxeo/Foo.class"));
+                out.putNextEntry(new ZipEntry("doc-parent/ReadMe.md"));
+                out.write("parent".getBytes(StandardCharsets.UTF_8));
+            }
+            BundleInfoImpl binfo = new BundleInfoImpl("org.nuxeo.foo");
+            new JarScanner(List.of(EmbeddedDocExtractor.README_EXTRACTOR)).scan(jar, binfo);
+            assertEquals("ReadMe.md", binfo.getReadme().getFilename());
+            assertEquals("local", binfo.getReadme().getString());
+            assertEquals("parent", binfo.getParentReadme().getString());
+        } finally {
+            jar.delete();
+        }
+    }
+
     protected String getReferenceContent(String path) throws IOException {
         URL fileUrl = Thread.currentThread().getContextClassLoader().getResource(path);
         if (fileUrl == null) {
@@ -23,6 +23,8 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -30,10 +32,14 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 import javax.inject.Inject;
 
@@ -41,14 +47,25 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.nuxeo.apidoc.api.BundleInfo;
+import org.nuxeo.apidoc.api.ExtensionInfo;
+import org.nuxeo.apidoc.repository.ArchiveSnapshotExporter;
+import org.nuxeo.apidoc.repository.ArchiveSnapshotImporter;
+import org.nuxeo.apidoc.repository.BatchDocumentWriter;
+import org.nuxeo.apidoc.repository.JsonSnapshotImporter;
+import org.nuxeo.apidoc.repository.RepositoryDistributionSnapshot;
 import org.nuxeo.apidoc.repository.SnapshotPersister;
 import org.nuxeo.apidoc.snapshot.DistributionSnapshot;
+import org.nuxeo.apidoc.snapshot.SnapshotFilter;
 import org.nuxeo.apidoc.snapshot.SnapshotManager;
 import org.nuxeo.ecm.core.api.CoreSession;
 import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.api.IdRef;
+import org.nuxeo.ecm.core.api.NuxeoException;
 import org.nuxeo.ecm.core.api.PathRef;
 import org.nuxeo.ecm.core.api.validation.DocumentValidationException;
 import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.test.runner.Deploy;
 import org.nuxeo.runtime.test.runner.Features;
 import org.nuxeo.runtime.test.runner.FeaturesRunner;
 import org.nuxeo.runtime.test.runner.TransactionalFeature;
@@ -178,4 +195,156 @@ public class TestExportImport {
         assertEquals(2, snapshotManager.getPersistentSnapshots(session, key, false).size());
     }
 
+    @Test
+    public void testJsonImport() throws IOException {
+        DistributionSnapshot snapshot = snapshotManager.getSnapshot("Nuxeo-unknown", session);
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        snapshot.writeJson(sink, null, null);
+
+        String distribDocId;
+        try (InputStream in = new ByteArrayInputStream(sink.toByteArray())) {
+            DocumentModel doc = snapshotManager.importTmpJsonSnapshot(session, in);
+            assertNotNull(doc);
+            distribDocId = doc.getId();
+        }
+        DistributionSnapshot imported = session.getDocument(new IdRef(distribDocId))
+                                               .getAdapter(DistributionSnapshot.class);
+        checkSnapshot(imported, "Nuxeo", "unknown", "Nuxeo-unknown", List.of(), true);
+        assertEquals(snapshot.getBundleIds().size(), imported.getBundleIds().size());
+        assertEquals(snapshot.getComponentIds(), imported.getComponentIds());
+        assertEquals(snapshot.getContributionIds(), imported.getContributionIds());
+        assertEquals(snapshot.getOperations().size(), imported.getOperations().size());
+        assertNotNull(imported.getComponent("org.nuxeo.apidoc.snapshot.SnapshotManagerComponent"));
+
+        snapshotManager.validateImportedSnapshot(session, distribDocId, getDistribProps(), null);
+        checkFinalSnapshots();
+    }
+
+    @Test
+    @Deploy("org.nuxeo.apidoc.repo.test:apidoc-persist-batch-test-contrib.xml")
+    public void testJsonImportFailure() throws IOException, DocumentValidationException {
+        DistributionSnapshot snapshot = snapshotManager.getSnapshot("Nuxeo-unknown", session);
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        snapshot.writeJson(sink, null, null);
+        txFeature.nextTransaction();
+
+        SnapshotPersister persister = new SnapshotPersister() {
+            @Override
+            protected void persistBundleContent(DistributionSnapshot snapshot, SnapshotFilter filter,
+                    BundleInfo bundleInfo, BatchDocumentWriter writer, String label, DocumentModel bundleDoc) {
+                // fail on the second pass only, reading bundles content
+                if ("org.nuxeo.apidoc.repo".equals(bundleInfo.getId()) && !bundleInfo.getComponents().isEmpty()) {
+                    throw new NuxeoException("Failure for tests");
+                }
+                super.persistBundleContent(snapshot, filter, bundleInfo, writer, label, bundleDoc);
+            }
+        };
+        try (InputStream in = new ByteArrayInputStream(sink.toByteArray())) {
+            new JsonSnapshotImporter(persister, List.of()).importJson(session, in);
+            fail("Import should have failed");
+        } catch (NuxeoException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("Failure for tests"));
+        }
+        txFeature.nextTransaction();
+
+        // partially imported distribution was removed, though bundles content was committed
+        assertEquals(1, session.query("SELECT * FROM " + DistributionSnapshot.TYPE_NAME).size());
+        assertEquals(snapshot.getBundleIds().size(), session.query("SELECT * FROM " + BundleInfo.TYPE_NAME).size());
+    }
+
+    @Test
+    public void testExportParallel() throws IOException {
+        RepositoryDistributionSnapshot snapshot = (RepositoryDistributionSnapshot) snapshotManager.getSnapshot(
+                "Nuxeo-unknown", session);
+        List<String> serial = getEntries(new ArchiveSnapshotExporter(1, 10), snapshot.getDoc());
+        // tasks only see committed documents
+        txFeature.nextTransaction();
+        List<String> parallel = getEntries(new ArchiveSnapshotExporter(4, 10), snapshot.getDoc());
+        assertTrue(serial.size() > 1);
+        // same entries, in the same order
+        assertEquals(serial, parallel);
+        try (InputStream in = new FileInputStream(tempExportFile)) {
+            assertEquals(serial.size(), getEntries(in).size());
+        }
+    }
+
+    @Test
+    public void testImportParallel() throws IOException {
+        DistributionSnapshot exported = snapshotManager.getSnapshot("Nuxeo-unknown", session);
+        DocumentModel container = session.getDocument(
+                new PathRef(SnapshotPersister.Root_PATH + SnapshotPersister.Root_NAME));
+        // tasks only see committed documents
+        txFeature.nextTransaction();
+        DocumentModel doc;
+        try (InputStream in = new FileInputStream(tempExportFile)) {
+            doc = new ArchiveSnapshotImporter(4).importArchive(session, container, in);
+        }
+        assertTrue(ArchiveSnapshotImporter.getImportsInProgress().isEmpty());
+        // created hidden, next to the exported one
+        assertEquals(container.getId(), doc.getParentRef().toString());
+        assertTrue(doc.getName().startsWith("Nuxeo-unknown."));
+        DistributionSnapshot imported = doc.getAdapter(DistributionSnapshot.class);
+        assertTrue(imported.isHidden());
+        assertEquals(exported.getBundleIds(), imported.getBundleIds());
+        assertEquals(exported.getComponentIds(), imported.getComponentIds());
+        assertEquals(exported.getContributionIds(), imported.getContributionIds());
+    }
+
+    @Test
+    public void testImportParallelFailure() throws IOException {
+        checkImportParallelFailure(name -> {
+            throw new NuxeoException("Cannot create " + name);
+        });
+    }
+
+    @Test
+    public void testImportParallelError() throws IOException {
+        checkImportParallelFailure(name -> {
+            throw new LinkageError("Cannot create " + name);
+        });
+    }
+
+    protected void checkImportParallelFailure(Consumer<String> failure) throws IOException {
+        DocumentModel container = session.getDocument(
+                new PathRef(SnapshotPersister.Root_PATH + SnapshotPersister.Root_NAME));
+        txFeature.nextTransaction();
+        ArchiveSnapshotImporter importer = new ArchiveSnapshotImporter(4) {
+            @Override
+            protected void beforeCreateDocument(DocumentModel doc) {
+                if (ExtensionInfo.TYPE_NAME.equals(doc.getType())) {
+                    failure.accept(doc.getName());
+                }
+                super.beforeCreateDocument(doc);
+            }
+        };
+        try (InputStream in = new FileInputStream(tempExportFile)) {
+            importer.importArchive(session, container, in);
+            fail("Import should have failed");
+        } catch (NuxeoException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Failed to import distribution 'Nuxeo-unknown."));
+        }
+        assertTrue(ArchiveSnapshotImporter.getImportsInProgress().isEmpty());
+        // partially imported distribution is removed, exported one is left untouched
+        txFeature.nextTransaction();
+        List<String> names = new ArrayList<>();
+        session.getChildren(container.getRef()).forEach(child -> names.add(child.getName()));
+        assertEquals(List.of("Nuxeo-unknown"), names);
+    }
+
+    protected List<String> getEntries(ArchiveSnapshotExporter exporter, DocumentModel root) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exporter.export(session, root, out);
+        return getEntries(new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    protected List<String> getEntries(InputStream in) throws IOException {
+        List<String> entries = new ArrayList<>();
+        try (ZipInputStream zip = new ZipInputStream(in)) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                entries.add(entry.getName());
+            }
+        }
+        return entries;
+    }
+
 }
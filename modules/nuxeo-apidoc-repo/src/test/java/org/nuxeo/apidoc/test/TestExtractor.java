@@ -27,6 +27,8 @@ import static org.nuxeo.apidoc.listener.AttributesExtractorStater.ATTRIBUTES_PRO
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -38,15 +40,20 @@ import org.dom4j.DocumentException;
 import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.nuxeo.apidoc.adapters.ExtensionInfoDocAdapter;
 import org.nuxeo.apidoc.api.ExtensionInfo;
 import org.nuxeo.apidoc.api.NuxeoArtifact;
 import org.nuxeo.apidoc.documentation.ContributionItem;
 import org.nuxeo.apidoc.documentation.XMLContributionParser;
 import org.nuxeo.apidoc.listener.AttributesExtractorStater;
+import org.nuxeo.apidoc.snapshot.SnapshotManager;
+import org.nuxeo.apidoc.worker.ExtractXmlAttributesAction;
 import org.nuxeo.apidoc.worker.ExtractXmlAttributesWorker;
 import org.nuxeo.ecm.core.api.CoreSession;
 import org.nuxeo.ecm.core.api.DocumentModel;
 import org.nuxeo.ecm.core.api.impl.blob.FileBlob;
+import org.nuxeo.ecm.core.bulk.BulkService;
+import org.nuxeo.ecm.core.bulk.message.BulkStatus;
 import org.nuxeo.ecm.core.event.EventServiceAdmin;
 import org.nuxeo.ecm.core.work.api.WorkManager;
 import org.nuxeo.runtime.test.runner.Deploy;
@@ -84,6 +91,12 @@ public class TestExtractor {
     @Inject
     protected EventServiceAdmin eventServiceAdmin;
 
+    @Inject
+    protected SnapshotManager snapshotManager;
+
+    @Inject
+    protected BulkService bulkService;
+
     @Test
     public void testParser() throws Exception {
         File xmlFile = org.nuxeo.common.utils.FileUtils.getResourceFileFromContext(
@@ -141,6 +154,49 @@ public class TestExtractor {
         assertTrue(checks.stream().allMatch(attributes::contains));
     }
 
+    @Test
+    public void testAttributesExtractedInBatch() {
+        long scheduled = workManager.getMetrics(ExtractXmlAttributesWorker.CATEGORY).scheduled.longValue();
+        int nb = ExtractXmlAttributesWorker.BATCH_SIZE + 1;
+        List<DocumentModel> docs = new ArrayList<>();
+        for (int i = 0; i < nb; i++) {
+            DocumentModel myDoc = session.createDocumentModel("/", "mydoc" + i, ExtensionInfo.TYPE_NAME);
+            myDoc.setPropertyValue(NuxeoArtifact.CONTENT_PROPERTY_PATH, getBlob());
+            docs.add(session.createDocument(myDoc));
+        }
+        txFeature.nextTransaction();
+
+        // documents of the transaction are batched
+        assertEquals(scheduled + 2, workManager.getMetrics(ExtractXmlAttributesWorker.CATEGORY).scheduled.longValue());
+        for (DocumentModel doc : docs) {
+            String attributes = (String) session.getDocument(doc.getRef()).getPropertyValue(ATTRIBUTES_PROPERTY);
+            assertNotNull(attributes);
+            assertTrue(checks.stream().allMatch(attributes::contains));
+        }
+    }
+
+    @Test
+    public void testAttributesExtractedAtPersistence() throws Exception {
+        ExtensionInfo contribution = snapshotManager.getRuntimeSnapshot()
+                                                   .getContributions()
+                                                   .stream()
+                                                   .filter(ei -> ei.getXml() != null)
+                                                   .findFirst()
+                                                   .orElseThrow();
+        String expected = ExtractXmlAttributesWorker.extractXmlAttributes(contribution.getXml());
+        assertNotNull(expected);
+
+        long scheduled = workManager.getMetrics(ExtractXmlAttributesWorker.CATEGORY).scheduled.longValue();
+        DocumentModel myDoc = ExtensionInfoDocAdapter.createDocumentModel(contribution, 0, session, "/");
+        assertEquals(expected, myDoc.getPropertyValue(ATTRIBUTES_PROPERTY));
+        myDoc = session.createDocument(myDoc);
+        txFeature.nextTransaction();
+
+        // no extraction needed
+        assertEquals(scheduled, workManager.getMetrics(ExtractXmlAttributesWorker.CATEGORY).scheduled.longValue());
+        assertEquals(expected, session.getDocument(myDoc.getRef()).getPropertyValue(ATTRIBUTES_PROPERTY));
+    }
+
     @Test
     public void testOnExistingDocument() {
         // Disable listener to simulate exisiting document before new attributes field
@@ -170,6 +226,38 @@ public class TestExtractor {
         assertTrue(checks.stream().allMatch(attributes::contains));
     }
 
+    @Test
+    @Deploy("org.nuxeo.apidoc.repo.test:apidoc-reindex-test-contrib.xml")
+    public void testReindex() throws InterruptedException {
+        // Disable listener to simulate exisiting documents before new attributes field
+        eventServiceAdmin.setListenerEnabledFlag(AttributesExtractorStater.class.getSimpleName(), false);
+        List<DocumentModel> docs = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            DocumentModel myDoc = session.createDocumentModel("/", "mydoc" + i, ExtensionInfo.TYPE_NAME);
+            myDoc.setPropertyValue(NuxeoArtifact.CONTENT_PROPERTY_PATH, getBlob());
+            docs.add(session.createDocument(myDoc));
+        }
+        txFeature.nextTransaction();
+        eventServiceAdmin.setListenerEnabledFlag(AttributesExtractorStater.class.getSimpleName(), true);
+        assertNull(session.getDocument(docs.get(0).getRef()).getPropertyValue(ATTRIBUTES_PROPERTY));
+
+        String commandId = ExtractXmlAttributesAction.submit(session.getRepositoryName(),
+                session.getPrincipal().getName());
+        txFeature.nextTransaction();
+        assertTrue(bulkService.await(commandId, Duration.ofMinutes(1)));
+        BulkStatus status = bulkService.getStatus(commandId);
+        assertEquals(BulkStatus.State.COMPLETED, status.getState());
+        assertEquals(status.getTotal(), status.getProcessed());
+        assertTrue(status.getProcessed() >= docs.size());
+        txFeature.nextTransaction();
+
+        for (DocumentModel doc : docs) {
+            String attributes = (String) session.getDocument(doc.getRef()).getPropertyValue(ATTRIBUTES_PROPERTY);
+            assertNotNull(attributes);
+            assertTrue(checks.stream().allMatch(attributes::contains));
+        }
+    }
+
     @Test
     public void testExtractContributionItems() throws DocumentException {
         List<ContributionItem> items = XMLContributionParser.extractContributionItems(
@@ -18,21 +18,38 @@
  */
 package org.nuxeo.apidoc.test;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import javax.inject.Inject;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.nuxeo.apidoc.api.BundleInfo;
+import org.nuxeo.apidoc.api.ComponentInfo;
+import org.nuxeo.apidoc.api.ExtensionInfo;
+import org.nuxeo.apidoc.api.ExtensionPointInfo;
 import org.nuxeo.apidoc.api.NuxeoArtifact;
+import org.nuxeo.apidoc.repository.RepositoryDistributionSnapshot;
+import org.nuxeo.apidoc.search.ArtifactIndex;
 import org.nuxeo.apidoc.search.ArtifactSearcher;
+import org.nuxeo.apidoc.search.ArtifactTrie;
+import org.nuxeo.apidoc.search.CachingArtifactSearcher;
+import org.nuxeo.apidoc.search.InMemoryArtifactSearcher;
 import org.nuxeo.apidoc.snapshot.DistributionSnapshot;
 import org.nuxeo.apidoc.snapshot.SnapshotManager;
 import org.nuxeo.ecm.core.api.CoreSession;
+import org.nuxeo.ecm.core.api.DocumentModel;
 import org.nuxeo.ecm.core.event.EventService;
 import org.nuxeo.ecm.core.work.api.WorkManager;
 import org.nuxeo.elasticsearch.api.ElasticSearchAdmin;
@@ -85,6 +102,188 @@ public class TestSearcher {
 
         artifacts = searcher.filterArtifact(session, persistent.getKey(), "NXComponent", "related");
         assertNotEquals(0, artifacts.size());
+        artifacts.forEach(artifact -> assertEquals(ComponentInfo.TYPE_NAME, artifact.getArtifactType()));
+
+        // contributions and components hits are grouped on their bundle
+        artifacts = searcher.filterArtifact(session, persistent.getKey(), BundleInfo.TYPE_NAME, "related");
+        assertNotEquals(0, artifacts.size());
+        artifacts.forEach(artifact -> assertEquals(BundleInfo.TYPE_NAME, artifact.getArtifactType()));
+        assertEquals(artifacts.size(), artifacts.stream().map(NuxeoArtifact::getId).distinct().count());
+    }
+
+    @Test
+    public void testSearchPaginated() throws Exception {
+        DistributionSnapshot persistent = snapshotManager.persistRuntimeSnapshot(session);
+        assertNotNull(persistent);
+        waitForIndexing();
+        String key = persistent.getKey();
+
+        List<NuxeoArtifact> artifacts = searcher.searchArtifact(session, key, "related");
+        assertTrue(artifacts.size() > 1);
+        List<NuxeoArtifact> page = searcher.searchArtifact(session, key, "related", null, 0, 1);
+        assertEquals(1, page.size());
+        assertEquals(artifacts.get(0).getId(), page.get(0).getId());
+        page = searcher.searchArtifact(session, key, "related", null, 1, 1);
+        assertEquals(1, page.size());
+        assertEquals(artifacts.get(1).getId(), page.get(0).getId());
+
+        // type filter
+        artifacts = searcher.searchArtifact(session, key, "related", List.of(ComponentInfo.TYPE_NAME), 0,
+                ArtifactSearcher.MAX_RESULTS);
+        artifacts.forEach(artifact -> assertEquals(ComponentInfo.TYPE_NAME, artifact.getArtifactType()));
+
+        // id matches are boosted over fulltext matches of contributions and parents
+        String componentId = "org.nuxeo.apidoc.lifecycle.contrib";
+        artifacts = searcher.searchArtifact(session, key, componentId, null, 0, 10);
+        assertNotEquals(0, artifacts.size());
+        assertEquals(ComponentInfo.TYPE_NAME, artifacts.get(0).getArtifactType());
+        assertEquals(componentId, artifacts.get(0).getId());
+    }
+
+    protected static List<String> getIds(List<NuxeoArtifact> artifacts) {
+        return artifacts.stream().map(NuxeoArtifact::getId).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testSearchInMemory() {
+        InMemoryArtifactSearcher memorySearcher = new InMemoryArtifactSearcher();
+        DistributionSnapshot runtime = snapshotManager.getRuntimeSnapshot();
+        String componentId = "org.nuxeo.apidoc.lifecycle.contrib";
+        String contributionId = "org.nuxeo.apidoc.lifecycle.contrib--lifecycle";
+        int max = ArtifactSearcher.MAX_RESULTS;
+
+        // contribution XML
+        List<NuxeoArtifact> artifacts = memorySearcher.searchArtifact(runtime, "explorer_default", null, 0, max);
+        assertTrue(getIds(artifacts).contains(contributionId));
+
+        // exact id first
+        artifacts = memorySearcher.searchArtifact(runtime, componentId, null, 0, 10);
+        assertNotEquals(0, artifacts.size());
+        assertEquals(componentId, artifacts.get(0).getId());
+        assertEquals(ComponentInfo.TYPE_NAME, artifacts.get(0).getArtifactType());
+
+        // prefix and type filter
+        artifacts = memorySearcher.searchArtifact(runtime, "explorer_def*", List.of(ExtensionInfo.TYPE_NAME), 0, max);
+        assertTrue(getIds(artifacts).contains(contributionId));
+        artifacts.forEach(artifact -> assertEquals(ExtensionInfo.TYPE_NAME, artifact.getArtifactType()));
+
+        // fuzzy
+        assertTrue(memorySearcher.searchArtifact(runtime, "explorer_defaut", null, 0, max).isEmpty());
+        artifacts = memorySearcher.searchArtifact(runtime, "explorer_defaut~", null, 0, max);
+        assertTrue(getIds(artifacts).contains(contributionId));
+
+        // pagination
+        artifacts = memorySearcher.searchArtifact(runtime, "lifecycle", null, 0, max);
+        assertTrue(artifacts.size() > 1);
+        List<NuxeoArtifact> page = memorySearcher.searchArtifact(runtime, "lifecycle", null, 1, 1);
+        assertEquals(List.of(artifacts.get(1).getId()), getIds(page));
+
+        // grouped on components
+        artifacts = memorySearcher.filterArtifact(runtime, ComponentInfo.TYPE_NAME, "explorer_default");
+        assertTrue(getIds(artifacts).contains(componentId));
+        artifacts.forEach(artifact -> assertEquals(ComponentInfo.TYPE_NAME, artifact.getArtifactType()));
+
+        // the live distribution is searched in memory by the default searcher too
+        artifacts = searcher.searchArtifact(session, SnapshotManager.DISTRIBUTION_ALIAS_CURRENT, "explorer_default");
+        assertTrue(getIds(artifacts).contains(contributionId));
+    }
+
+    @Test
+    public void testSearchInMemoryPersisted() throws Exception {
+        DistributionSnapshot persistent = snapshotManager.persistRuntimeSnapshot(session);
+        assertNotNull(persistent);
+        waitForIndexing();
+        persistent = snapshotManager.getSnapshot(persistent.getKey(), session);
+        assertTrue(persistent instanceof RepositoryDistributionSnapshot);
+
+        InMemoryArtifactSearcher memorySearcher = new InMemoryArtifactSearcher();
+        String componentId = "org.nuxeo.apidoc.lifecycle.contrib";
+        String contributionId = "org.nuxeo.apidoc.lifecycle.contrib--lifecycle";
+        int max = ArtifactSearcher.MAX_RESULTS;
+
+        // indexed from projections, with the same artifacts as the documents
+        ArtifactIndex index = memorySearcher.getIndex(persistent);
+        assertEquals(persistent.getComponentIds().stream().sorted().collect(Collectors.toList()),
+                index.search(null, List.of(ComponentInfo.TYPE_NAME))
+                     .stream()
+                     .map(ArtifactIndex.Entry::getId)
+                     .sorted()
+                     .collect(Collectors.toList()));
+        assertEquals(persistent.getContributionIds().size(),
+                index.search(null, List.of(ExtensionInfo.TYPE_NAME)).size());
+
+        // exact id first
+        List<NuxeoArtifact> artifacts = memorySearcher.searchArtifact(persistent, componentId, null, 0, 10);
+        assertNotEquals(0, artifacts.size());
+        assertEquals(componentId, artifacts.get(0).getId());
+        assertEquals(ComponentInfo.TYPE_NAME, artifacts.get(0).getArtifactType());
+
+        // extracted contribution attributes
+        artifacts = memorySearcher.searchArtifact(persistent, "explorer_default", null, 0, max);
+        assertTrue(getIds(artifacts).contains(contributionId));
+
+        // grouped on components, from the denormalized parent ids
+        artifacts = memorySearcher.filterArtifact(persistent, ComponentInfo.TYPE_NAME, "explorer_default");
+        assertTrue(getIds(artifacts).contains(componentId));
+        artifacts = memorySearcher.filterArtifact(persistent, BundleInfo.TYPE_NAME, "explorer_default");
+        assertTrue(getIds(artifacts).contains("org.nuxeo.apidoc.repo"));
+    }
+
+    @Test
+    public void testSuggest() {
+        DistributionSnapshot runtime = snapshotManager.getRuntimeSnapshot();
+        ArtifactTrie trie = ArtifactTrie.of(runtime);
+        assertSame(trie, ArtifactTrie.of(runtime));
+        String cid = "org.nuxeo.ecm.core.lifecycle.LifeCycleService";
+
+        // segment prefix, case insensitive
+        List<ArtifactTrie.Suggestion> suggestions = trie.suggest("lifecycles", ArtifactTrie.MAX_SUGGESTIONS);
+        assertTrue(suggestions.stream()
+                              .anyMatch(s -> cid.equals(s.getId()) && ComponentInfo.TYPE_NAME.equals(s.getType())));
+
+        // full id prefix, components ranked first
+        suggestions = trie.suggest(cid, ArtifactTrie.MAX_SUGGESTIONS);
+        assertEquals(cid, suggestions.get(0).getId());
+        assertEquals(ComponentInfo.TYPE_NAME, suggestions.get(0).getType());
+        suggestions.forEach(s -> assertTrue(s.getId().toLowerCase().startsWith(cid.toLowerCase())));
+        assertTrue(suggestions.stream()
+                              .anyMatch(s -> (cid + "--types").equals(s.getId())
+                                      && ExtensionPointInfo.TYPE_NAME.equals(s.getType())));
+
+        assertEquals(1, trie.suggest(cid, 1).size());
+        assertTrue(trie.suggest("nosuchartifactprefix", ArtifactTrie.MAX_SUGGESTIONS).isEmpty());
+        assertTrue(trie.suggest("", ArtifactTrie.MAX_SUGGESTIONS).isEmpty());
+    }
+
+    @Test
+    public void testSearchCache() throws Exception {
+        assertTrue(searcher instanceof CachingArtifactSearcher);
+        DistributionSnapshot persistent = snapshotManager.persistRuntimeSnapshot(session);
+        assertNotNull(persistent);
+        waitForIndexing();
+        String key = persistent.getKey();
+
+        List<NuxeoArtifact> artifacts = searcher.filterArtifact(session, key, ComponentInfo.TYPE_NAME, "related");
+        assertNotEquals(0, artifacts.size());
+        Map<?, ?> cache = getSearchCache(snapshotManager.getSnapshot(key, session));
+        assertEquals(1, cache.size());
+        // same normalized query, served from cache
+        assertEquals(getIds(artifacts),
+                getIds(searcher.filterArtifact(session, key, ComponentInfo.TYPE_NAME, "  related ")));
+        assertEquals(1, cache.size());
+        assertSame(cache, getSearchCache(snapshotManager.getSnapshot(key, session)));
+
+        // update drops cached results
+        DocumentModel updated = ((RepositoryDistributionSnapshot) persistent).updateDocument(session,
+                Map.of(DistributionSnapshot.PROP_ALIASES, "foo"), null, null);
+        DistributionSnapshot updatedSnapshot = snapshotManager.getSnapshot(key, session);
+        assertEquals(updated.getId(), ((RepositoryDistributionSnapshot) updatedSnapshot).getDoc().getId());
+        assertNotSame(cache, getSearchCache(updatedSnapshot));
+        assertEquals(0, getSearchCache(updatedSnapshot).size());
+    }
+
+    protected Map<?, ?> getSearchCache(DistributionSnapshot snapshot) {
+        return snapshot.getAttachment(CachingArtifactSearcher.CACHE_ATTACHMENT, HashMap::new);
     }
 
 }
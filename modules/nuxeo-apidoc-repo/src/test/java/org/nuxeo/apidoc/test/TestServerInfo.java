@@ -0,0 +1,69 @@
+/*
+ * (C) Copyright 2023 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nuxeo.apidoc.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.inject.Inject;
+
+import org.junit.Test;
+import org.nuxeo.apidoc.api.BundleInfo;
+import org.nuxeo.apidoc.introspection.ServerInfo;
+import org.nuxeo.runtime.test.runner.Deploy;
+import org.nuxeo.runtime.test.runner.HotDeployer;
+
+/**
+ * @since 2023.1
+ */
+public class TestServerInfo extends AbstractApidocTest {
+
+    @Inject
+    protected HotDeployer hotDeployer;
+
+    @Test
+    @Deploy("org.nuxeo.apidoc.repo.test:apidoc-introspection-parallel-test-contrib.xml")
+    public void testParallelIntrospection() throws Exception {
+        ServerInfo parallel = ServerInfo.build();
+        hotDeployer.deploy("org.nuxeo.apidoc.repo.test:apidoc-introspection-sequential-test-contrib.xml");
+        ServerInfo sequential = ServerInfo.build();
+
+        List<String> bundleIds = getBundleIds(sequential);
+        assertFalse(bundleIds.isEmpty());
+        assertEquals(bundleIds, getBundleIds(parallel));
+        for (BundleInfo expected : sequential.getBundles()) {
+            BundleInfo actual = parallel.getBundle(expected.getId());
+            assertNotNull(expected.getId(), actual);
+            assertEquals(expected.getId(), expected.getFileName(), actual.getFileName());
+            assertEquals(expected.getId(), expected.getGroupId(), actual.getGroupId());
+            assertEquals(expected.getId(), expected.getArtifactId(), actual.getArtifactId());
+            assertEquals(expected.getId(), expected.getArtifactVersion(), actual.getArtifactVersion());
+            assertEquals(expected.getId(), expected.getManifest(), actual.getManifest());
+            assertEquals(expected.getId(), expected.getRequirements(), actual.getRequirements());
+            assertEquals(expected.getId(), expected.getMinResolutionOrder(), actual.getMinResolutionOrder());
+            assertEquals(expected.getId(), expected.getMaxResolutionOrder(), actual.getMaxResolutionOrder());
+        }
+    }
+
+    protected List<String> getBundleIds(ServerInfo serverInfo) {
+        return serverInfo.getBundles().stream().map(BundleInfo::getId).sorted().collect(Collectors.toList());
+    }
+
+}
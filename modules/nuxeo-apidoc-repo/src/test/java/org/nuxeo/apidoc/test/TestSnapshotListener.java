@@ -21,13 +21,22 @@ package org.nuxeo.apidoc.test;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map;
 
 import javax.inject.Inject;
 
 import org.junit.Test;
+import org.nuxeo.apidoc.api.BundleInfo;
+import org.nuxeo.apidoc.api.ComponentInfo;
 import org.nuxeo.apidoc.api.ExtensionInfo;
 import org.nuxeo.apidoc.api.ExtensionPointInfo;
+import org.nuxeo.apidoc.introspection.RuntimeSnapshot;
 import org.nuxeo.apidoc.snapshot.SnapshotListener;
 import org.nuxeo.runtime.model.ComponentStartOrders;
 
@@ -88,4 +97,73 @@ public class TestSnapshotListener extends AbstractApidocTest {
                 ExtensionInfo.computeId("org.nuxeo.apidoc.adapterContrib", "adapters")));
     }
 
+    /** @since 2023.1 */
+    @Test
+    public void testIncrementalUpdate() {
+        RuntimeSnapshot snapshot = RuntimeSnapshot.build();
+        String cid = "org.nuxeo.apidoc.lifecycle.contrib";
+        String contribId = ExtensionInfo.computeId(cid, "types");
+        String xpId = ExtensionPointInfo.computeId("org.nuxeo.ecm.core.lifecycle.LifeCycleService", "types");
+        assertNotNull(snapshot.getComponent(cid));
+        Long resolutionOrder = snapshot.getComponent(cid).getResolutionOrder();
+        assertTrue(snapshot.getContributionIds().contains(contribId));
+        // sorted views are computed once
+        List<String> componentIds = snapshot.getComponentIds();
+        assertSame(componentIds, snapshot.getComponentIds());
+
+        // component unresolved
+        BundleInfo bundle = snapshot.getBundle("org.nuxeo.apidoc.repo");
+        ExtensionPointInfo xp = snapshot.getExtensionPoint(xpId);
+        snapshot.update(Map.of(cid, false));
+        // previous views and artifacts are left untouched
+        assertTrue(componentIds.contains(cid));
+        assertTrue(bundle.getComponents().stream().anyMatch(c -> cid.equals(c.getId())));
+        assertTrue(xp.getExtensions().stream().anyMatch(e -> contribId.equals(e.getId())));
+        assertFalse(snapshot.getComponentIds().contains(cid));
+        assertNull(snapshot.getComponent(cid));
+        assertFalse(snapshot.getContributionIds().contains(contribId));
+        assertFalse(snapshot.getBundle("org.nuxeo.apidoc.repo").getComponents().stream().anyMatch(
+                c -> cid.equals(c.getId())));
+        assertFalse(snapshot.getExtensionPoint(xpId).getExtensions().stream().anyMatch(
+                e -> contribId.equals(e.getId())));
+        checkParents(snapshot);
+
+        // component resolved again
+        bundle = snapshot.getBundle("org.nuxeo.apidoc.repo");
+        xp = snapshot.getExtensionPoint(xpId);
+        snapshot.update(Map.of(cid, true));
+        assertNotNull(snapshot.getComponent(cid));
+        assertEquals("org.nuxeo.apidoc.repo", snapshot.getComponent(cid).getBundle().getId());
+        assertEquals(resolutionOrder, snapshot.getComponent(cid).getResolutionOrder());
+        assertTrue(snapshot.getContributionIds().contains(contribId));
+        assertTrue(snapshot.getExtensionPoint(xpId).getExtensions().stream().anyMatch(
+                e -> contribId.equals(e.getId())));
+        // artifacts of previous indexes are left untouched
+        assertFalse(bundle.getComponents().stream().anyMatch(c -> cid.equals(c.getId())));
+        assertFalse(xp.getExtensions().stream().anyMatch(e -> contribId.equals(e.getId())));
+        assertNotSame(bundle, snapshot.getBundle("org.nuxeo.apidoc.repo"));
+        assertNotSame(xp, snapshot.getExtensionPoint(xpId));
+        checkParents(snapshot);
+    }
+
+    /**
+     * Checks that artifacts reachable from the snapshot reference their indexed parents.
+     */
+    protected void checkParents(RuntimeSnapshot snapshot) {
+        for (BundleInfo bundle : snapshot.getBundles()) {
+            assertSame(bundle, snapshot.getBundle(bundle.getId()));
+            for (ComponentInfo component : bundle.getComponents()) {
+                assertSame(bundle, component.getBundle());
+                assertSame(component, snapshot.getComponent(component.getId()));
+                component.getServices().forEach(s -> assertSame(component, s.getComponent()));
+                component.getExtensions().forEach(e -> assertSame(component, e.getComponent()));
+                for (ExtensionPointInfo xp : component.getExtensionPoints()) {
+                    assertSame(component, xp.getComponent());
+                    assertSame(xp, snapshot.getExtensionPoint(xp.getId()));
+                    xp.getExtensions().forEach(e -> assertSame(e, snapshot.getContribution(e.getId())));
+                }
+            }
+        }
+    }
+
 }
@@ -21,15 +21,25 @@ package org.nuxeo.apidoc.test;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.junit.Assume.assumeTrue;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 import javax.inject.Inject;
@@ -37,25 +47,45 @@ import javax.inject.Inject;
 import org.apache.commons.lang3.StringUtils;
 import org.junit.Before;
 import org.junit.Test;
+import org.nuxeo.apidoc.adapters.BaseNuxeoArtifactDocAdapter;
 import org.nuxeo.apidoc.api.BundleGroup;
 import org.nuxeo.apidoc.api.BundleGroupFlatTree;
 import org.nuxeo.apidoc.api.BundleGroupTreeHelper;
 import org.nuxeo.apidoc.api.BundleInfo;
 import org.nuxeo.apidoc.api.ComponentInfo;
+import org.nuxeo.apidoc.api.ComponentSummary;
+import org.nuxeo.apidoc.api.ContributionSummary;
+import org.nuxeo.apidoc.api.ExtensionInfo;
 import org.nuxeo.apidoc.api.NuxeoArtifact;
 import org.nuxeo.apidoc.api.OperationInfo;
+import org.nuxeo.apidoc.api.OperationSummary;
 import org.nuxeo.apidoc.api.PackageInfo;
+import org.nuxeo.apidoc.api.ServiceInfo;
+import org.nuxeo.apidoc.repository.BatchDocumentWriter;
+import org.nuxeo.apidoc.repository.DistributionIndex;
+import org.nuxeo.apidoc.repository.PagedAdapterList;
 import org.nuxeo.apidoc.repository.RepositoryDistributionSnapshot;
+import org.nuxeo.apidoc.repository.SnapshotPersister;
 import org.nuxeo.apidoc.snapshot.DistributionSnapshot;
 import org.nuxeo.apidoc.snapshot.PersistSnapshotFilter;
+import org.nuxeo.apidoc.snapshot.SnapshotFilter;
 import org.nuxeo.apidoc.snapshot.SnapshotManager;
 import org.nuxeo.apidoc.snapshot.TargetExtensionPointSnapshotFilter;
 import org.nuxeo.connect.update.PackageException;
 import org.nuxeo.ecm.automation.OperationDocumentation;
 import org.nuxeo.ecm.core.api.Blob;
+import org.nuxeo.ecm.core.api.CoreInstance;
 import org.nuxeo.ecm.core.api.CoreSession;
+import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.api.NuxeoException;
+import org.nuxeo.ecm.core.api.security.ACE;
+import org.nuxeo.ecm.core.api.security.ACL;
+import org.nuxeo.ecm.core.api.security.ACP;
+import org.nuxeo.ecm.core.api.security.SecurityConstants;
 import org.nuxeo.ecm.core.api.validation.DocumentValidationException;
 import org.nuxeo.ecm.core.test.CoreFeature;
+import org.nuxeo.runtime.test.runner.Deploy;
+import org.nuxeo.runtime.transaction.TransactionHelper;
 
 public class TestSnapshotPersist extends AbstractApidocTest {
 
@@ -84,6 +114,18 @@ public class TestSnapshotPersist extends AbstractApidocTest {
         checkDistributionSnapshot(snapshot, false, false);
     }
 
+    /** @since 2023.1 */
+    @Test
+    public void testSnapshotAsync() throws InterruptedException, ExecutionException, TimeoutException {
+        CompletableFuture<DistributionSnapshot> build = snapshotManager.getRuntimeSnapshotAsync();
+        DistributionSnapshot snapshot = build.get(5, TimeUnit.MINUTES);
+        assertNotNull(snapshot);
+        assertSame(snapshot, snapshotManager.getRuntimeSnapshot());
+        CompletableFuture<DistributionSnapshot> built = snapshotManager.getRuntimeSnapshotAsync();
+        assertTrue(built.isDone());
+        assertSame(snapshot, built.get());
+    }
+
     @Test
     public void testPersist() throws IOException {
         DistributionSnapshot snapshot = snapshotManager.persistRuntimeSnapshot(session);
@@ -95,6 +137,389 @@ public class TestSnapshotPersist extends AbstractApidocTest {
         checkDistributionSnapshot(persisted, false, false);
     }
 
+    @Test
+    @Deploy("org.nuxeo.apidoc.repo.test:apidoc-persist-batch-test-contrib.xml")
+    public void testPersistBatched() throws IOException {
+        DistributionSnapshot snapshot = snapshotManager.persistRuntimeSnapshot(session);
+        assertNotNull(snapshot);
+        assertFalse(snapshot.isHidden());
+        checkDistributionSnapshot(snapshot, false, false);
+
+        DistributionSnapshot persisted = snapshotManager.getSnapshot(snapshot.getKey(), session);
+        assertNotNull(persisted);
+        assertFalse(persisted.isHidden());
+        checkDistributionSnapshot(persisted, false, false);
+    }
+
+    @Test
+    @Deploy("org.nuxeo.apidoc.repo.test:apidoc-persist-parallel-test-contrib.xml")
+    public void testPersistParallel() throws IOException {
+        DistributionSnapshot snapshot = snapshotManager.persistRuntimeSnapshot(session);
+        assertNotNull(snapshot);
+        assertFalse(snapshot.isHidden());
+
+        DistributionSnapshot persisted = snapshotManager.getSnapshot(snapshot.getKey(), session);
+        assertNotNull(persisted);
+        assertFalse(persisted.isHidden());
+        checkDistributionSnapshot(persisted, false, false);
+    }
+
+    /** @since 2023.1 */
+    @Test
+    @Deploy("org.nuxeo.apidoc.repo.test:apidoc-persist-parallel-test-contrib.xml")
+    public void testPersistParallelFailure() {
+        SnapshotPersister persister = new SnapshotPersister() {
+            @Override
+            protected void persistBundleContent(DistributionSnapshot snapshot, SnapshotFilter filter,
+                    BundleInfo bundleInfo, BatchDocumentWriter writer, String label, DocumentModel bundleDoc) {
+                if ("org.nuxeo.apidoc.repo".equals(bundleInfo.getId())) {
+                    throw new NuxeoException("Failure for tests");
+                }
+                super.persistBundleContent(snapshot, filter, bundleInfo, writer, label, bundleDoc);
+            }
+        };
+        try {
+            persister.persist(snapshotManager.getRuntimeSnapshot(), session, null, null, null, null, List.of());
+            fail("Persistence should have failed");
+        } catch (NuxeoException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("Bundle org.nuxeo.apidoc.repo: Failure for tests"));
+        }
+        TransactionHelper.commitOrRollbackTransaction();
+        TransactionHelper.startTransaction();
+
+        // partial distribution was removed, though bundle documents were committed
+        assertTrue(session.query("SELECT * FROM " + DistributionSnapshot.TYPE_NAME).isEmpty());
+        assertTrue(session.query("SELECT * FROM " + BundleInfo.TYPE_NAME).isEmpty());
+        assertTrue(session.query("SELECT * FROM " + ComponentInfo.TYPE_NAME).isEmpty());
+    }
+
+    @Test
+    @Deploy("org.nuxeo.apidoc.repo.test:apidoc-persist-blob-test-contrib.xml")
+    public void testPersistBlob() throws IOException {
+        DistributionSnapshot runtime = snapshotManager.getRuntimeSnapshot();
+        DistributionSnapshot snapshot = snapshotManager.persistRuntimeSnapshot(session);
+        assertNotNull(snapshot);
+
+        DistributionSnapshot persisted = snapshotManager.getSnapshot(snapshot.getKey(), session);
+        assertTrue(persisted instanceof RepositoryDistributionSnapshot);
+        assertTrue(((RepositoryDistributionSnapshot) persisted).isBlobStored());
+        assertEquals(runtime.getBundleIds(), persisted.getBundleIds());
+        assertEquals(runtime.getComponentIds(), persisted.getComponentIds());
+        assertEquals(runtime.getServiceIds(), persisted.getServiceIds());
+        assertEquals(runtime.getExtensionPointIds(), persisted.getExtensionPointIds());
+        assertEquals(runtime.getContributionIds(), persisted.getContributionIds());
+        assertEquals(runtime.getOperations().size(), persisted.getOperations().size());
+        String cid = "org.nuxeo.apidoc.snapshot.SnapshotManagerComponent";
+        assertNotNull(persisted.getComponent(cid));
+        assertEquals(cid, persisted.getComponent(cid).getId());
+        assertNotNull(persisted.getBundle("org.nuxeo.apidoc.core"));
+    }
+
+    /** @since 2023.1 */
+    @Test
+    @Deploy("org.nuxeo.apidoc.repo.test:apidoc-persist-blob-test-contrib.xml")
+    public void testPersistBlobSameAsDocuments() throws DocumentValidationException {
+        checkPersistBlobSameAsDocuments(null);
+        PersistSnapshotFilter filter = new PersistSnapshotFilter("apidoc");
+        filter.addBundle("org.nuxeo.apidoc");
+        checkPersistBlobSameAsDocuments(filter);
+    }
+
+    protected void checkPersistBlobSameAsDocuments(SnapshotFilter filter) throws DocumentValidationException {
+        SnapshotPersister documentsPersister = new SnapshotPersister() {
+            @Override
+            protected String getStorage() {
+                return STORAGE_DOCUMENTS;
+            }
+        };
+        String suffix = filter == null ? "" : "-" + filter.getName();
+        DistributionSnapshot documents = documentsPersister.persist(snapshotManager.getRuntimeSnapshot(), session,
+                "documents" + suffix, filter, null, null, snapshotManager.getPlugins());
+        DistributionSnapshot blob = snapshotManager.persistRuntimeSnapshot(session, "blob" + suffix, null, null,
+                filter);
+        assertFalse(((RepositoryDistributionSnapshot) documents).isBlobStored());
+        assertTrue(((RepositoryDistributionSnapshot) blob).isBlobStored());
+        // read back from the blob
+        blob = snapshotManager.getSnapshot(blob.getKey(), session);
+        assertTrue(((RepositoryDistributionSnapshot) blob).isBlobStored());
+
+        assertEquals(documents.getBundleIds(), blob.getBundleIds());
+        assertEquals(documents.getComponentIds(), blob.getComponentIds());
+        assertEquals(documents.getServiceIds(), blob.getServiceIds());
+        assertEquals(documents.getExtensionPointIds(), blob.getExtensionPointIds());
+        assertEquals(documents.getContributionIds(), blob.getContributionIds());
+
+        assertEquals(getBundleGroupIds(documents.getBundleGroups()), getBundleGroupIds(blob.getBundleGroups()));
+        checkSameBundleGroups(documents.getBundleGroups(), blob.getBundleGroups());
+        for (String bid : documents.getBundleIds()) {
+            BundleInfo expected = documents.getBundle(bid);
+            BundleInfo actual = blob.getBundle(bid);
+            assertEquals(bid, expected.getId(), actual.getId());
+            assertEquals(bid, expected.getHierarchyPath(), actual.getHierarchyPath());
+            assertEquals(bid, expected.getBundleGroup().getId(), actual.getBundleGroup().getId());
+        }
+        for (String cid : documents.getComponentIds()) {
+            assertEquals(cid, documents.getComponent(cid).getHierarchyPath(),
+                    blob.getComponent(cid).getHierarchyPath());
+        }
+    }
+
+    protected List<String> getBundleGroupIds(List<BundleGroup> groups) {
+        return groups.stream().map(BundleGroup::getId).collect(Collectors.toList());
+    }
+
+    protected void checkSameBundleGroups(List<BundleGroup> expected, List<BundleGroup> actual) {
+        assertEquals(getBundleGroupIds(expected), getBundleGroupIds(actual));
+        for (int i = 0; i < expected.size(); i++) {
+            BundleGroup expectedGroup = expected.get(i);
+            BundleGroup actualGroup = actual.get(i);
+            String gid = expectedGroup.getId();
+            assertEquals(gid, expectedGroup.getHierarchyPath(), actualGroup.getHierarchyPath());
+            assertEquals(gid, expectedGroup.getBundleIds(), actualGroup.getBundleIds());
+            assertEquals(gid, expectedGroup.getReadmes().size(), actualGroup.getReadmes().size());
+            checkSameBundleGroups(expectedGroup.getSubGroups(), actualGroup.getSubGroups());
+        }
+    }
+
+    @Test
+    public void testDistributionIndex() throws IOException {
+        DistributionSnapshot snapshot = snapshotManager.persistRuntimeSnapshot(session);
+        assertNotNull(snapshot);
+        DocumentModel distribDoc = ((RepositoryDistributionSnapshot) snapshot).getDoc();
+        DistributionIndex index = snapshotManager.getDistributionIndex(distribDoc);
+        assertNotNull(index);
+        assertSame(index, snapshotManager.getDistributionIndex(distribDoc));
+
+        DistributionSnapshot persisted = snapshotManager.getSnapshot(snapshot.getKey(), session);
+        assertNotNull(persisted);
+        checkDistributionSnapshot(persisted, false, false);
+        // check again, served by the index
+        checkDistributionSnapshot(snapshotManager.getSnapshot(snapshot.getKey(), session), false, false);
+        assertSame(index, snapshotManager.getDistributionIndex(((RepositoryDistributionSnapshot) persisted).getDoc()));
+        // views are computed once
+        assertSame(persisted.getComponentIds(), persisted.getComponentIds());
+        assertSame(persisted.getComponentSummaries(), persisted.getComponentSummaries());
+        assertSame(persisted.getContributionSummaries(), persisted.getContributionSummaries());
+        assertSame(persisted.getOperationSummaries(), persisted.getOperationSummaries());
+
+        // update drops the index, and key resolutions
+        DocumentModel updated = ((RepositoryDistributionSnapshot) persisted).updateDocument(session,
+                Map.of(DistributionSnapshot.PROP_ALIASES, "foo"), null, null);
+        DistributionIndex updatedIndex = snapshotManager.getDistributionIndex(updated);
+        assertNotNull(updatedIndex);
+        assertNotSame(index, updatedIndex);
+        DistributionSnapshot aliased = snapshotManager.getSnapshot("foo", session);
+        assertNotNull(aliased);
+        assertEquals(snapshot.getKey(), aliased.getKey());
+        checkDistributionSnapshot(aliased, false, false);
+
+        // hidden distributions are not indexed
+        updated = ((RepositoryDistributionSnapshot) aliased).updateDocument(session,
+                Map.of(DistributionSnapshot.PROP_ALIASES, "foo", DistributionSnapshot.PROP_HIDE, "true"), null, null);
+        assertNull(snapshotManager.getDistributionIndex(updated));
+        checkDistributionSnapshot(snapshotManager.getSnapshot("foo", session), false, false);
+
+        // removal
+        session.removeDocument(updated.getRef());
+        session.save();
+        assertNull(snapshotManager.getSnapshot("foo", session));
+    }
+
+    /** @since 2023.1 */
+    @Test
+    public void testDistributionIndexPerUser() {
+        DistributionSnapshot snapshot = snapshotManager.persistRuntimeSnapshot(session);
+        String bid = "org.nuxeo.apidoc.repo";
+        String cid = "org.nuxeo.apidoc.listener.contrib";
+        // restrict a bundle to the administrator
+        DocumentModel bundleDoc = ((BaseNuxeoArtifactDocAdapter) snapshot.getBundle(bid)).getDoc();
+        ACP acp = bundleDoc.getACP();
+        acp.addACE(ACL.LOCAL_ACL, new ACE(session.getPrincipal().getName(), SecurityConstants.EVERYTHING, true));
+        acp.addACE(ACL.LOCAL_ACL, ACE.BLOCK);
+        session.setACP(bundleDoc.getRef(), acp, true);
+        session.save();
+
+        // index entries loaded by the administrator first
+        DistributionSnapshot persisted = snapshotManager.getSnapshot(snapshot.getKey(), session);
+        assertTrue(persisted.getBundleIds().contains(bid));
+        assertTrue(persisted.getComponentIds().contains(cid));
+        assertNotNull(persisted.getBundle(bid));
+
+        // not shared with another user
+        CoreSession userSession = CoreInstance.getCoreSession(session.getRepositoryName(), "bob");
+        DistributionSnapshot userPersisted = snapshotManager.getSnapshot(snapshot.getKey(), userSession);
+        assertNotNull(userPersisted);
+        assertFalse(userPersisted.getBundleIds().contains(bid));
+        assertFalse(userPersisted.getComponentIds().contains(cid));
+        assertNull(userPersisted.getBundle(bid));
+        assertNull(userPersisted.getComponent(cid));
+
+        // still available to the administrator
+        assertTrue(snapshotManager.getSnapshot(snapshot.getKey(), session).getBundleIds().contains(bid));
+    }
+
+    /** @since 2023.1 */
+    @Test
+    public void testDistributionResolutionPerUser() throws DocumentValidationException {
+        PersistSnapshotFilter filter = new PersistSnapshotFilter("apidoc");
+        RepositoryDistributionSnapshot first = (RepositoryDistributionSnapshot) snapshotManager.persistRuntimeSnapshot(
+                session, "first", null, null, filter);
+        first.updateDocument(session,
+                Map.of(DistributionSnapshot.PROP_VERSION, "1.0", DistributionSnapshot.PROP_ALIASES, "foo"), null, null);
+        RepositoryDistributionSnapshot second = (RepositoryDistributionSnapshot) snapshotManager.persistRuntimeSnapshot(
+                session, "second", null, null, filter);
+        DocumentModel secondDoc = second.updateDocument(session,
+                Map.of(DistributionSnapshot.PROP_VERSION, "2.0", DistributionSnapshot.PROP_ALIASES, "foo"), null, null);
+        // restrict the latest distribution to another user
+        ACP acp = secondDoc.getACP();
+        acp.addACE(ACL.LOCAL_ACL, new ACE("bob", SecurityConstants.READ, true));
+        acp.addACE(ACL.LOCAL_ACL, ACE.BLOCK);
+        session.setACP(secondDoc.getRef(), acp, true);
+        session.save();
+
+        // resolved and cached for the administrator, only reading the first one
+        assertEquals("1.0", snapshotManager.getSnapshot("foo", session).getVersion());
+        assertEquals("1.0", snapshotManager.getSnapshot("foo", session).getVersion());
+
+        // resolved again for the other user, reading both
+        CoreSession userSession = CoreInstance.getCoreSession(session.getRepositoryName(), "bob");
+        assertEquals("2.0", snapshotManager.getSnapshot("foo", userSession).getVersion());
+        assertEquals("2.0", snapshotManager.getSnapshot("foo", userSession).getVersion());
+        assertEquals("1.0", snapshotManager.getSnapshot("foo", session).getVersion());
+    }
+
+    /** @since 2023.1 */
+    @Test
+    public void testDistributionIndexEviction() throws IOException {
+        DistributionSnapshot snapshot = snapshotManager.persistRuntimeSnapshot(session);
+        DistributionIndex index = new DistributionIndex(((RepositoryDistributionSnapshot) snapshot).getDoc(), 2);
+        List<String> first = index.getIds("first", () -> List.of("a"));
+        assertSame(first, index.getIds("first", () -> List.of("a")));
+        index.getIds("second", () -> List.of("b"));
+        index.getIds("third", () -> List.of("c"));
+        // least recently used entry is evicted
+        assertNotSame(first, index.getIds("first", () -> List.of("a")));
+        assertEquals(List.of("c"), index.getIds("third", () -> List.of("d")));
+    }
+
+    /** @since 2023.1 */
+    @Test
+    public void testPagedChildren() throws IOException {
+        DistributionSnapshot snapshot = snapshotManager.persistRuntimeSnapshot(session);
+        String bid = "org.nuxeo.apidoc.repo";
+        // restrict a bundle to the administrator
+        DocumentModel bundleDoc = ((BaseNuxeoArtifactDocAdapter) snapshot.getBundle(bid)).getDoc();
+        ACP acp = bundleDoc.getACP();
+        acp.addACE(ACL.LOCAL_ACL, new ACE(session.getPrincipal().getName(), SecurityConstants.EVERYTHING, true));
+        acp.addACE(ACL.LOCAL_ACL, ACE.BLOCK);
+        session.setACP(bundleDoc.getRef(), acp, true);
+        session.save();
+
+        List<BundleInfo> bundles = snapshotManager.getSnapshot(snapshot.getKey(), session).getBundles();
+        List<String> ids = bundles.stream()
+                                  .map(b -> ((BaseNuxeoArtifactDocAdapter) b).getDoc().getId())
+                                  .collect(Collectors.toList());
+        int pageSize = 3;
+        assertTrue(ids.size() > 2 * pageSize);
+        assertTrue(ids.contains(bundleDoc.getId()));
+
+        // iterated by the administrator over several pages
+        PagedAdapterList<BundleInfo> paged = new PagedAdapterList<>(session, ids, BundleInfo.class, pageSize);
+        assertEquals(bundles.stream().map(BundleInfo::getId).collect(Collectors.toList()),
+                paged.stream().map(BundleInfo::getId).collect(Collectors.toList()));
+
+        // restricted bundle skipped for another user
+        CoreSession userSession = CoreInstance.getCoreSession(session.getRepositoryName(), "bob");
+        paged = new PagedAdapterList<>(userSession, ids, BundleInfo.class, pageSize);
+        List<String> expected = bundles.stream()
+                                       .map(BundleInfo::getId)
+                                       .filter(id -> !bid.equals(id))
+                                       .collect(Collectors.toList());
+        List<String> iterated = new ArrayList<>();
+        paged.forEach(b -> iterated.add(b.getId()));
+        assertEquals(expected, iterated);
+        assertEquals(expected, paged.stream().map(BundleInfo::getId).collect(Collectors.toList()));
+        assertNull(paged.get(ids.indexOf(bundleDoc.getId())));
+
+        // json export iterates over the same children
+        DistributionSnapshot userPersisted = snapshotManager.getSnapshot(snapshot.getKey(), userSession);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        userPersisted.writeJson(out, null, null);
+        DistributionSnapshot exported = userPersisted.readJson(new ByteArrayInputStream(out.toByteArray()));
+        assertFalse(exported.getBundleIds().contains(bid));
+        assertEquals(expected.size(), exported.getBundleIds().size());
+    }
+
+    @Test
+    public void testSummaries() throws IOException {
+        DistributionSnapshot runtime = snapshotManager.getRuntimeSnapshot();
+        DistributionSnapshot snapshot = snapshotManager.persistRuntimeSnapshot(session);
+        DistributionSnapshot persisted = snapshotManager.getSnapshot(snapshot.getKey(), session);
+
+        List<ComponentSummary> components = persisted.getComponentSummaries();
+        assertEquals(persisted.getComponentIds(),
+                components.stream().map(ComponentSummary::getId).collect(Collectors.toList()));
+        assertEquals(runtime.getComponentSummaries().size(), components.size());
+        String cid = "org.nuxeo.apidoc.snapshot.SnapshotManagerComponent";
+        ComponentInfo component = persisted.getComponent(cid);
+        ComponentSummary summary = components.stream().filter(c -> cid.equals(c.getId())).findFirst().orElseThrow();
+        assertEquals(component.getResolutionOrder(), summary.getResolutionOrder());
+        assertEquals(component.getDeclaredStartOrder(), summary.getDeclaredStartOrder());
+        assertEquals(component.isXmlPureComponent(), summary.isXmlPureComponent());
+
+        List<ContributionSummary> contributions = persisted.getContributionSummaries();
+        assertEquals(persisted.getContributionIds(),
+                contributions.stream().map(ContributionSummary::getId).collect(Collectors.toList()));
+        assertEquals(runtime.getContributionIds(),
+                runtime.getContributionSummaries()
+                       .stream()
+                       .map(ContributionSummary::getId)
+                       .collect(Collectors.toList()));
+        ExtensionInfo contribution = persisted.getContribution(contributions.get(0).getId());
+        assertEquals(contribution.getExtensionPoint(), contributions.get(0).getExtensionPoint());
+        assertEquals(contribution.getTargetComponentName(), contributions.get(0).getTargetComponentName());
+
+        List<OperationSummary> operations = persisted.getOperationSummaries();
+        assertEquals(runtime.getOperationSummaries().size(), operations.size());
+        for (OperationSummary op : operations) {
+            OperationInfo info = persisted.getOperation(op.getName());
+            assertNotNull(op.getName(), info);
+            assertEquals(info.getLabel(), op.getLabel());
+            assertEquals(info.getCategory(), op.getCategory());
+            assertEquals(info.getAliases() == null ? List.of() : info.getAliases(), op.getAliases());
+            assertEquals(info.getRequires(), op.getRequires());
+            assertEquals(info.getSince(), op.getSince());
+        }
+    }
+
+    @Test
+    public void testDenormalizedParentData() throws IOException {
+        DistributionSnapshot snapshot = snapshotManager.persistRuntimeSnapshot(session);
+        DistributionSnapshot persisted = snapshotManager.getSnapshot(snapshot.getKey(), session);
+        String sid = "org.nuxeo.apidoc.snapshot.SnapshotManager";
+        ServiceInfo service = persisted.getService(sid);
+        assertNotNull(service);
+        DocumentModel doc = ((BaseNuxeoArtifactDocAdapter) service).getDoc();
+        assertEquals("org.nuxeo.apidoc.repo", doc.getPropertyValue(BaseNuxeoArtifactDocAdapter.PROP_PARENT_BUNDLE_ID));
+        assertEquals("org.nuxeo.apidoc.snapshot.SnapshotManagerComponent",
+                doc.getPropertyValue(BaseNuxeoArtifactDocAdapter.PROP_PARENT_COMPONENT_ID));
+        String path = (String) doc.getPropertyValue(BaseNuxeoArtifactDocAdapter.PROP_HIERARCHY_PATH);
+        assertNotNull(path);
+        assertTrue(path, path.endsWith("/org.nuxeo.apidoc.repo/org.nuxeo.apidoc.snapshot.SnapshotManagerComponent/"
+                + sid));
+        String version = service.getVersion();
+        String hierarchyPath = service.getHierarchyPath();
+
+        // documents persisted by previous versions are resolved from parents
+        doc.setPropertyValue(BaseNuxeoArtifactDocAdapter.PROP_HIERARCHY_PATH, null);
+        doc.setPropertyValue(BaseNuxeoArtifactDocAdapter.PROP_PARENT_BUNDLE_ID, null);
+        doc.setPropertyValue(BaseNuxeoArtifactDocAdapter.PROP_PARENT_BUNDLE_VERSION, null);
+        doc.setPropertyValue(BaseNuxeoArtifactDocAdapter.PROP_PARENT_COMPONENT_ID, null);
+        ServiceInfo legacy = doc.getAdapter(ServiceInfo.class);
+        assertEquals(version, legacy.getVersion());
+        assertEquals(hierarchyPath, legacy.getHierarchyPath());
+    }
+
     @Test
     public void testUpdatePersisted() throws IOException {
         DistributionSnapshot snapshot = snapshotManager.persistRuntimeSnapshot(session);
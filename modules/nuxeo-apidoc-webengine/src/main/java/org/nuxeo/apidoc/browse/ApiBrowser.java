@@ -38,6 +38,7 @@ import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.StreamingOutput;
 
 import org.apache.commons.lang3.StringUtils;
 import org.nuxeo.apidoc.api.BundleGroup;
@@ -45,15 +46,17 @@ import org.nuxeo.apidoc.api.BundleGroupFlatTree;
 import org.nuxeo.apidoc.api.BundleGroupTreeHelper;
 import org.nuxeo.apidoc.api.BundleInfo;
 import org.nuxeo.apidoc.api.ComponentInfo;
+import org.nuxeo.apidoc.api.ComponentSummary;
 import org.nuxeo.apidoc.api.ExtensionInfo;
 import org.nuxeo.apidoc.api.ExtensionPointInfo;
 import org.nuxeo.apidoc.api.NuxeoArtifact;
-import org.nuxeo.apidoc.api.OperationInfo;
+import org.nuxeo.apidoc.api.OperationSummary;
 import org.nuxeo.apidoc.api.PackageInfo;
 import org.nuxeo.apidoc.api.ServiceInfo;
 import org.nuxeo.apidoc.export.ArchiveFile;
 import org.nuxeo.apidoc.export.api.Exporter;
 import org.nuxeo.apidoc.search.ArtifactSearcher;
+import org.nuxeo.apidoc.search.ArtifactTrie;
 import org.nuxeo.apidoc.snapshot.DistributionSnapshot;
 import org.nuxeo.apidoc.snapshot.JsonPrettyPrinter;
 import org.nuxeo.apidoc.snapshot.PersistSnapshotFilter;
@@ -123,7 +126,7 @@ public class ApiBrowser extends DefaultObject {
         stats.put("services", snap.getServiceIds().size());
         stats.put("xps", snap.getExtensionPointIds().size());
         stats.put("contribs", snap.getContributionIds().size());
-        stats.put("operations", snap.getOperations().size());
+        stats.put("operations", snap.getOperationSummaries().size());
         stats.put("packages", snap.getPackages().size());
         if (embeddedMode) {
             viewId = "indexSimple";
@@ -177,7 +180,7 @@ public class ApiBrowser extends DefaultObject {
     @Path(ApiBrowserConstants.LIST_COMPONENTS)
     public Object getComponents() {
         DistributionSnapshot snapshot = getDistribution();
-        List<ComponentInfo> comps = snapshot.getComponents();
+        List<ComponentSummary> comps = snapshot.getComponentSummaries();
         var javaLabels = new ArrayList<ArtifactLabel>();
         var xmlLabels = new ArrayList<ArtifactLabel>();
         comps.forEach(c -> {
@@ -220,7 +223,7 @@ public class ApiBrowser extends DefaultObject {
     @Path(ApiBrowserConstants.LIST_CONTRIBUTIONS)
     public Object getContributions() {
         DistributionSnapshot snapshot = getDistribution();
-        return getView(ApiBrowserConstants.LIST_CONTRIBUTIONS).arg("contributions", snapshot.getContributions())
+        return getView(ApiBrowserConstants.LIST_CONTRIBUTIONS).arg("contributions", snapshot.getContributionSummaries())
                                                               .arg("isLive", snapshot.isLive())
                                                               .arg(Distribution.DIST_ID,
                                                                       ctx.getProperty(Distribution.DIST_ID));
@@ -242,15 +245,23 @@ public class ApiBrowser extends DefaultObject {
                                                                         ctx.getProperty(Distribution.DIST_ID));
     }
 
+    /**
+     * Lists contributions matching given fulltext.
+     * <p>
+     * Since 2023.1, results are paginated with given offset and limit, the limit being capped to
+     * {@link ArtifactSearcher#MAX_RESULTS}.
+     */
     @GET
     @Produces(MediaType.TEXT_HTML)
     @Path("filterContributions")
-    public Object filterContributions(@QueryParam("fulltext") String fulltext) {
+    public Object filterContributions(@QueryParam("fulltext") String fulltext, @QueryParam("offset") Integer offset,
+            @QueryParam("limit") Integer limit) {
         if (StringUtils.isBlank(fulltext)) {
             return getContributions();
         }
-        List<NuxeoArtifact> artifacts = getSearcher().filterArtifact(getContext().getCoreSession(), distributionId,
-                ExtensionInfo.TYPE_NAME, fulltext);
+        List<NuxeoArtifact> artifacts = getSearcher().searchArtifact(getContext().getCoreSession(), distributionId,
+                fulltext, List.of(ExtensionInfo.TYPE_NAME), offset == null ? 0 : offset,
+                limit == null ? ArtifactSearcher.MAX_RESULTS : limit);
         return getView(ApiBrowserConstants.LIST_CONTRIBUTIONS).arg("contributions", artifacts)
                                                               .arg(Distribution.DIST_ID,
                                                                       ctx.getProperty(Distribution.DIST_ID))
@@ -365,7 +376,7 @@ public class ApiBrowser extends DefaultObject {
     @Produces(MediaType.TEXT_HTML)
     @Path(ApiBrowserConstants.LIST_OPERATIONS)
     public Object listOperations() {
-        List<OperationInfo> operations = getDistribution().getOperations();
+        List<OperationSummary> operations = getDistribution().getOperationSummaries();
         return getView(ApiBrowserConstants.LIST_OPERATIONS).arg("operations", operations)
                                                            .arg(Distribution.DIST_ID,
                                                                    ctx.getProperty(Distribution.DIST_ID))
@@ -407,6 +418,25 @@ public class ApiBrowser extends DefaultObject {
         return Response.ok(json, MediaType.APPLICATION_JSON).build();
     }
 
+    /**
+     * Returns artifacts whose id, or one of the id segments, starts with given query.
+     * <p>
+     * Sample: {"suggestions":[{"id":"org.nuxeo.ecm.core.lifecycle.LifeCycleService","type":"NXComponent"}]}
+     *
+     * @since 2023.1
+     */
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    @Path(ApiBrowserConstants.SUGGEST_ACTION)
+    public Object suggest(@QueryParam("q") String query, @QueryParam("limit") Integer limit,
+            @QueryParam("pretty") Boolean pretty) throws JsonProcessingException {
+        int max = limit == null ? ArtifactTrie.MAX_SUGGESTIONS : Math.min(limit, ArtifactTrie.MAX_SUGGESTIONS);
+        List<ArtifactTrie.Suggestion> suggestions = ArtifactTrie.of(getDistribution()).suggest(query, max);
+        String json = new ObjectMapper().writer(getPrinter(pretty))
+                                        .writeValueAsString(Map.of("suggestions", suggestions));
+        return Response.ok(json, MediaType.APPLICATION_JSON).build();
+    }
+
     protected File getExportTmpFile() throws IOException {
         File tmpFile = File.createTempFile("apidoc-export", null, Environment.getDefault().getTemp());
         if (tmpFile.exists()) {
@@ -422,6 +452,8 @@ public class ApiBrowser extends DefaultObject {
 
     /**
      * Returns the distribution json export.
+     * <p>
+     * Since 2023.1, the export is streamed to the response as it is generated.
      *
      * @since 20.0.0
      */
@@ -435,17 +467,13 @@ public class ApiBrowser extends DefaultObject {
             @QueryParam("javaPackagePrefixes") List<String> javaPackagePrefixes,
             @QueryParam("excludedJavaPackagePrefixes") List<String> excludedJavaPackagePrefixes,
             @QueryParam("checkAsPrefixes") Boolean checkAsPrefixes,
-            @QueryParam("includeReferences") Boolean includeReferences, @QueryParam("pretty") Boolean pretty)
-            throws IOException {
+            @QueryParam("includeReferences") Boolean includeReferences, @QueryParam("pretty") Boolean pretty) {
         SnapshotFilter filter = getSnapshotFilter(bundles, excludedBundles, nuxeoPackages, excludedNuxeoPackages,
                 javaPackagePrefixes, excludedJavaPackagePrefixes, checkAsPrefixes, includeReferences);
-        File tmp = getExportTmpFile();
-        try (OutputStream out = new FileOutputStream(tmp)) {
-            getDistribution().writeJson(out, filter, getPrinter(pretty));
-        }
-
-        ArchiveFile aFile = new ArchiveFile(tmp.getAbsolutePath());
-        return Response.ok(aFile).type("application/json").build();
+        DistributionSnapshot snapshot = getDistribution();
+        PrettyPrinter printer = getPrinter(pretty);
+        StreamingOutput output = out -> snapshot.writeJson(out, filter, printer);
+        return Response.ok(output).type("application/json").build();
     }
 
     /**
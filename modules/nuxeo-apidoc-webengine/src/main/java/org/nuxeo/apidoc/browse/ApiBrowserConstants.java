@@ -76,6 +76,9 @@ public class ApiBrowserConstants {
     /** @since 20.0.0 */
     public static final String EXPORT_ACTION = "export";
 
+    /** @since 2023.1 */
+    public static final String SUGGEST_ACTION = "suggest";
+
     /** @since 20.0.0 */
     public static final String SUCCESS_FEEBACK_MESSAGE_VARIABLE = "successFeedbackMessage";
 
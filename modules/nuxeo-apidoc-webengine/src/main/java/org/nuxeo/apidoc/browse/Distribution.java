@@ -19,10 +19,7 @@
  */
 package org.nuxeo.apidoc.browse;
 
-import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.io.Serializable;
 import java.io.StringWriter;
@@ -30,9 +27,13 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 import javax.ws.rs.GET;
@@ -44,14 +45,14 @@ import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.StreamingOutput;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.nuxeo.apidoc.export.ArchiveFile;
 import org.nuxeo.apidoc.introspection.RuntimeSnapshot;
-import org.nuxeo.apidoc.listener.AttributesExtractorStater;
 import org.nuxeo.apidoc.plugin.Plugin;
+import org.nuxeo.apidoc.repository.ArchiveSnapshotImporter;
 import org.nuxeo.apidoc.repository.RepositoryDistributionSnapshot;
 import org.nuxeo.apidoc.security.SecurityHelper;
 import org.nuxeo.apidoc.snapshot.DistributionSnapshot;
@@ -62,8 +63,8 @@ import org.nuxeo.apidoc.snapshot.SnapshotManager;
 import org.nuxeo.apidoc.snapshot.SnapshotResolverHelper;
 import org.nuxeo.apidoc.snapshot.TargetExtensionPointSnapshotFilter;
 import org.nuxeo.apidoc.snapshot.VersionComparator;
-import org.nuxeo.apidoc.worker.ExtractXmlAttributesWorker;
-import org.nuxeo.common.Environment;
+import org.nuxeo.apidoc.worker.DenormalizeArtifactsWorker;
+import org.nuxeo.apidoc.worker.ExtractXmlAttributesAction;
 import org.nuxeo.common.utils.URIUtils;
 import org.nuxeo.ecm.core.api.Blob;
 import org.nuxeo.ecm.core.api.CoreSession;
@@ -74,6 +75,8 @@ import org.nuxeo.ecm.core.api.IterableQueryResult;
 import org.nuxeo.ecm.core.api.NuxeoException;
 import org.nuxeo.ecm.core.api.NuxeoPrincipal;
 import org.nuxeo.ecm.core.api.validation.DocumentValidationException;
+import org.nuxeo.ecm.core.bulk.BulkService;
+import org.nuxeo.ecm.core.bulk.message.BulkStatus;
 import org.nuxeo.ecm.core.query.QueryFilter;
 import org.nuxeo.ecm.core.query.sql.NXQL;
 import org.nuxeo.ecm.core.work.api.Work;
@@ -88,8 +91,11 @@ import org.nuxeo.ecm.webengine.model.WebObject;
 import org.nuxeo.ecm.webengine.model.exceptions.WebResourceNotFoundException;
 import org.nuxeo.ecm.webengine.model.impl.ModuleRoot;
 import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.services.config.ConfigurationService;
 import org.nuxeo.runtime.transaction.TransactionHelper;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.sun.jersey.api.NotFoundException;
 
 @Path("/distribution")
@@ -142,9 +148,23 @@ public class Distribution extends ModuleRoot {
     /** @since 20.0.0 */
     public static final String REINDEX_ACTION = "_reindex";
 
+    /** @since 2023.1 */
+    public static final String DENORMALIZE_ACTION = "_denormalize";
+
     /** @since 20.0.0 */
     public static final String LOGIN_ACTION = "apidocLogin";
 
+    /**
+     * Property controlling the number of seconds requests wait for the live distribution to be built, before getting a
+     * "building" response.
+     *
+     * @since 2023.1
+     */
+    public static final String PROPERTY_RUNTIME_SNAPSHOT_TIMEOUT = "org.nuxeo.apidoc.snapshot.wait.timeout";
+
+    /** @since 2023.1 */
+    public static final int DEFAULT_RUNTIME_SNAPSHOT_TIMEOUT = 30;
+
     /**
      * List of subviews, used for validation of distribution names and aliases.
      *
@@ -152,7 +172,7 @@ public class Distribution extends ModuleRoot {
      */
     protected static final List<String> SUB_DISTRIBUTION_PATH_RESERVED = List.of(VIEW_ADMIN, SAVE_ACTION,
             SAVE_EXTENDED_ACTION, DOWNLOAD_ACTION, UPDATE_ACTION, DO_UPDATE_ACTION, DELETE_ACTION, UPLOAD_ACTION,
-            UPLOAD_TMP_ACTION, UPLOAD_TMP_VALID_ACTION, REINDEX_ACTION);
+            UPLOAD_TMP_ACTION, UPLOAD_TMP_VALID_ACTION, REINDEX_ACTION, DENORMALIZE_ACTION);
 
     /**
      * Customized error management.
@@ -286,6 +306,9 @@ public class Distribution extends ModuleRoot {
         }
 
         boolean showRuntimeSnapshot = showRuntimeSnapshot();
+        if (showRuntimeSnapshot && !isRuntimeDistributionReady()) {
+            return ctx.newObject(Resource503.TYPE);
+        }
         String orgDistributionId = distributionId;
         Boolean embeddedMode = Boolean.FALSE;
         if (SnapshotManager.DISTRIBUTION_ALIAS_ADM.equals(distributionId)) {
@@ -321,6 +344,28 @@ public class Distribution extends ModuleRoot {
         return getSnapshotManager().getRuntimeSnapshot();
     }
 
+    /**
+     * Waits for the live distribution to be built, and returns false if it is still being built after the timeout
+     * configured by {@link #PROPERTY_RUNTIME_SNAPSHOT_TIMEOUT}.
+     *
+     * @since 2023.1
+     */
+    protected boolean isRuntimeDistributionReady() {
+        int timeout = Framework.getService(ConfigurationService.class)
+                               .getInteger(PROPERTY_RUNTIME_SNAPSHOT_TIMEOUT, DEFAULT_RUNTIME_SNAPSHOT_TIMEOUT);
+        try {
+            getSnapshotManager().getRuntimeSnapshotAsync().get(timeout, TimeUnit.SECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new NuxeoException(e);
+        } catch (ExecutionException e) {
+            throw new NuxeoException("Failed to build the live distribution", e.getCause());
+        }
+    }
+
     /**
      * Returns true if given key is shared by several instances.
      *
@@ -483,15 +528,12 @@ public class Distribution extends ModuleRoot {
 
     }
 
-    protected File getExportTmpFile() {
-        File tmpFile = new File(Environment.getDefault().getTemp(), "export.zip");
-        if (tmpFile.exists()) {
-            tmpFile.delete();
-        }
-        tmpFile.deleteOnExit();
-        return tmpFile;
-    }
-
+    /**
+     * Streams the Nuxeo archive of given distribution.
+     * <p>
+     * Since 2023.1, the archive is written to the response as it is produced, instead of being written to a temporary
+     * file first.
+     */
     @GET
     @Path(DOWNLOAD_ACTION + "/{distributionId}")
     public Response downloadDistrib(@PathParam("distributionId") String distribId) throws IOException {
@@ -499,15 +541,15 @@ public class Distribution extends ModuleRoot {
             return Response.status(Status.NOT_FOUND).build();
         }
 
-        File tmp = getExportTmpFile();
-        tmp.createNewFile();
-        try (OutputStream out = new FileOutputStream(tmp)) {
-            getSnapshotManager().exportSnapshot(getContext().getCoreSession(), distribId, out);
+        CoreSession session = getContext().getCoreSession();
+        DistributionSnapshot snapshot = getSnapshotManager().getSnapshot(distribId, session);
+        if (snapshot == null || snapshot.isLive()) {
+            return Response.status(Status.NOT_FOUND).build();
         }
         String fName = "nuxeo-distribution-" + distribId + ".zip";
         fName = fName.replace(" ", "_");
-        ArchiveFile aFile = new ArchiveFile(tmp.getAbsolutePath());
-        return Response.ok(aFile)
+        StreamingOutput output = out -> getSnapshotManager().exportSnapshot(session, distribId, out);
+        return Response.ok(output)
                        .header("Content-Disposition", "attachment;filename=" + fName)
                        .type("application/zip")
                        .build();
@@ -555,8 +597,15 @@ public class Distribution extends ModuleRoot {
                 formData.getFormFields());
 
         try {
-            getSnapshotManager().importSnapshot(getContext().getCoreSession(), blob.getStream(), updateProperties,
-                    SUB_DISTRIBUTION_PATH_RESERVED);
+            if (isJson(blob)) {
+                CoreSession session = getContext().getCoreSession();
+                DocumentModel snap = getSnapshotManager().importTmpJsonSnapshot(session, blob.getStream());
+                getSnapshotManager().validateImportedSnapshot(session, snap.getId(), updateProperties,
+                        SUB_DISTRIBUTION_PATH_RESERVED);
+            } else {
+                getSnapshotManager().importSnapshot(getContext().getCoreSession(), blob.getStream(),
+                        updateProperties, SUB_DISTRIBUTION_PATH_RESERVED);
+            }
         } catch (IOException | IllegalArgumentException | NuxeoException e) {
             log.error(e, e);
             TransactionHelper.setTransactionRollbackOnly();
@@ -584,8 +633,12 @@ public class Distribution extends ModuleRoot {
         }
         Template view;
         try {
-            DocumentModel snap = getSnapshotManager().importTmpSnapshot(getContext().getCoreSession(),
-                    blob.getStream());
+            DocumentModel snap;
+            if (isJson(blob)) {
+                snap = getSnapshotManager().importTmpJsonSnapshot(getContext().getCoreSession(), blob.getStream());
+            } else {
+                snap = getSnapshotManager().importTmpSnapshot(getContext().getCoreSession(), blob.getStream());
+            }
             if (snap == null) {
                 view = getView("importKO").arg("message", "Unable to import archive.");
             } else {
@@ -603,6 +656,35 @@ public class Distribution extends ModuleRoot {
         return view;
     }
 
+    /**
+     * Returns the number of documents created so far by the archive imports in progress on this node, by name of the
+     * imported distribution document.
+     * <p>
+     * Sample: {"Nuxeo-2023.1.1690000000000":12500}
+     *
+     * @since 2023.1
+     */
+    @GET
+    @Path(UPLOAD_TMP_ACTION + "/status")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Object uploadDistribTmpStatus() throws JsonProcessingException {
+        if (!canImportOrExportDistributions()) {
+            return show404();
+        }
+        return Response.ok(new ObjectMapper().writeValueAsString(ArchiveSnapshotImporter.getImportsInProgress()),
+                MediaType.APPLICATION_JSON).build();
+    }
+
+    /**
+     * Returns true if given uploaded blob is a json export, rather than a zip archive of distribution documents.
+     *
+     * @since 2023.1
+     */
+    protected boolean isJson(Blob blob) {
+        return MediaType.APPLICATION_JSON.equals(blob.getMimeType())
+                || StringUtils.endsWithIgnoreCase(blob.getFilename(), ".json");
+    }
+
     @POST
     @Path(UPLOAD_TMP_VALID_ACTION)
     @Produces(MediaType.TEXT_HTML)
@@ -727,6 +809,14 @@ public class Distribution extends ModuleRoot {
         return "";
     }
 
+    /**
+     * Submits the extraction of XML attributes of all artifacts and returns the id of the bulk command, whose progress
+     * is available at {@code _reindex/status/<id>}.
+     * <p>
+     * Since 2023.1, documents are processed by buckets by a bulk action, see {@link ExtractXmlAttributesAction}.
+     *
+     * @since 20.0.0
+     */
     @GET
     @Path(REINDEX_ACTION)
     @Produces(MediaType.TEXT_PLAIN)
@@ -736,15 +826,64 @@ public class Distribution extends ModuleRoot {
             return show404();
         }
 
+        CoreSession coreSession = getContext().getCoreSession();
+        String commandId = ExtractXmlAttributesAction.submit(coreSession.getRepositoryName(), nxPrincipal.getName());
+
+        return Response.ok(commandId).build();
+    }
+
+    /**
+     * Returns the progress of the reindexation with given id, as returned by {@link #reindex()}.
+     * <p>
+     * Sample: {"state":"RUNNING","processed":200,"total":1250,"errors":0}
+     *
+     * @since 2023.1
+     */
+    @GET
+    @Path(REINDEX_ACTION + "/status/{commandId}")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Object reindexStatus(@PathParam("commandId") String commandId) throws JsonProcessingException {
+        NuxeoPrincipal nxPrincipal = getContext().getPrincipal();
+        if (!nxPrincipal.isAdministrator()) {
+            return show404();
+        }
+
+        BulkStatus bulkStatus = Framework.getService(BulkService.class).getStatus(commandId);
+        if (bulkStatus.getState() == BulkStatus.State.UNKNOWN
+                || !ExtractXmlAttributesAction.ACTION_NAME.equals(bulkStatus.getAction())) {
+            return show404();
+        }
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("state", bulkStatus.getState());
+        status.put("processed", bulkStatus.getProcessed());
+        status.put("total", bulkStatus.getTotal());
+        status.put("errors", bulkStatus.getErrorCount());
+        return Response.ok(new ObjectMapper().writeValueAsString(status), MediaType.APPLICATION_JSON).build();
+    }
+
+    /**
+     * Schedules the denormalization of parent information on artifacts of distributions persisted by previous versions.
+     *
+     * @since 2023.1
+     */
+    @GET
+    @Path(DENORMALIZE_ACTION)
+    @Produces(MediaType.TEXT_PLAIN)
+    public Object denormalize() {
+        NuxeoPrincipal nxPrincipal = getContext().getPrincipal();
+        if (!nxPrincipal.isAdministrator()) {
+            return show404();
+        }
+
         CoreSession coreSession = getContext().getCoreSession();
         String query = String.format(
-                "SELECT ecm:uuid FROM Document WHERE ecm:primaryType in ('%s') AND ecm:isProxy = 0 AND ecm:isTrashed = 0",
-                StringUtils.join(AttributesExtractorStater.DOC_TYPES, "','"));
+                "SELECT ecm:uuid FROM %s WHERE ecm:isProxy = 0 AND ecm:isVersion = 0 AND ecm:isTrashed = 0",
+                DistributionSnapshot.TYPE_NAME);
 
         try (IterableQueryResult it = coreSession.queryAndFetch(query, NXQL.NXQL, QueryFilter.EMPTY);) {
             for (Map<String, Serializable> map : it) {
                 String id = (String) map.get(NXQL.ECM_UUID);
-                Work work = new ExtractXmlAttributesWorker(coreSession.getRepositoryName(), nxPrincipal.getName(), id);
+                Work work = new DenormalizeArtifactsWorker(coreSession.getRepositoryName(), nxPrincipal.getName(), id);
                 Framework.getService(WorkManager.class).schedule(work);
             }
         }
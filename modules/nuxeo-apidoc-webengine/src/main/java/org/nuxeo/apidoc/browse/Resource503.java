@@ -0,0 +1,68 @@
+/*
+ * (C) Copyright 2023 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nuxeo.apidoc.browse;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+
+import org.nuxeo.ecm.webengine.model.WebObject;
+import org.nuxeo.ecm.webengine.model.impl.DefaultObject;
+
+/**
+ * Handles requests on the live distribution while it is being built.
+ *
+ * @since 2023.1
+ */
+@WebObject(type = Resource503.TYPE)
+public class Resource503 extends DefaultObject {
+
+    public static final String TYPE = "building";
+
+    /** Delay in seconds after which clients are invited to retry. */
+    public static final int RETRY_AFTER = 10;
+
+    @GET
+    @Produces(MediaType.TEXT_HTML)
+    public Object doGet() {
+        return Response.status(Status.SERVICE_UNAVAILABLE)
+                       .type(MediaType.TEXT_HTML_TYPE)
+                       .header("Retry-After", RETRY_AFTER)
+                       .entity(Resource503.getPageContent())
+                       .build();
+    }
+
+    public static String getPageContent() {
+        StringWriter sw = new StringWriter();
+        PrintWriter pw = new PrintWriter(sw);
+        pw.println("<html>");
+        pw.println(String.format("<head><meta http-equiv=\"refresh\" content=\"%s\">", RETRY_AFTER));
+        pw.println("<title>503 - Distribution Being Built</title></head>");
+        pw.println("<body>");
+        pw.println("<h1>503 Distribution Being Built</h1>");
+        pw.println("<p>The live distribution is being introspected, this page will reload shortly.</p>");
+        pw.println("</body>");
+        pw.println("</html>");
+        pw.close();
+        return sw.toString();
+    }
+
+}